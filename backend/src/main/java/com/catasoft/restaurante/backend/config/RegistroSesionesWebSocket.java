@@ -0,0 +1,289 @@
+package com.catasoft.restaurante.backend.config;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageHandlingRunnable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.security.Principal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Registro de sesiones STOMP y control de consumidores lentos.
+ * Intercepta el canal de salida para llevar por sesión cuántos mensajes están encolados y aún
+ * no se entregaron al socket. Una tablet o un puente de impresión congelado no puede acumular
+ * más de maxPendientes mensajes: el exceso se descarta y, si la sesión no avanza durante el
+ * límite de tiempo, se cierra para que se reconecte y pida el estado completo.
+ * También es el executor del canal de salida: cada sesión tiene su carril, que escribe sus
+ * mensajes de a uno y en orden (x-secuencia no se adelanta), sobre hilos virtuales para que
+ * un socket bloqueado no ocupe un hilo del pool. La cola de cada carril es la que se acota y
+ * se vigila aquí, así un envío trabado no frena el control de los mensajes que siguen llegando.
+ */
+@Component
+public class RegistroSesionesWebSocket implements ExecutorChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistroSesionesWebSocket.class);
+
+    public static final int MAX_PENDIENTES = 200;
+    public static final long LIMITE_ESTANCADA_MS = 10_000;
+
+    private final int maxPendientes;
+    private final long limiteEstancadaMs;
+    private final LongSupplier relojMs;
+    private final Map<String, Sesion> sesiones = new ConcurrentHashMap<>();
+    private final AtomicLong expulsiones = new AtomicLong();
+    private final ExecutorService hilos = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("ws-salida-", 0).factory());
+
+    public RegistroSesionesWebSocket() {
+        this(MAX_PENDIENTES, LIMITE_ESTANCADA_MS, System::currentTimeMillis);
+    }
+
+    RegistroSesionesWebSocket(int maxPendientes, long limiteEstancadaMs, LongSupplier relojMs) {
+        this.maxPendientes = maxPendientes;
+        this.limiteEstancadaMs = limiteEstancadaMs;
+        this.relojMs = relojMs;
+    }
+
+    /**
+     * Estado de una sesión para monitoreo.
+     * pendientes: mensajes aceptados en el canal de salida que aún no se escribieron al socket.
+     */
+    public record EstadoSesion(String sesionId, String usuario, int pendientes, long enviados,
+                               long descartados, boolean estancada, LocalDateTime conectadaDesde) {
+    }
+
+    private static final class Sesion {
+        private final WebSocketSession session;
+        private final String usuario;
+        private final LocalDateTime conectadaDesde = LocalDateTime.now();
+        private final AtomicInteger pendientes = new AtomicInteger();
+        private final AtomicLong enviados = new AtomicLong();
+        private final AtomicLong descartados = new AtomicLong();
+        private final AtomicBoolean expulsada = new AtomicBoolean();
+        private final Carril carril;
+        // Último momento en que la sesión avanzó (o empezó a tener pendientes)
+        private volatile long ultimoProgresoMs;
+
+        private Sesion(WebSocketSession session, long ahoraMs, Executor hilos) {
+            this.session = session;
+            this.carril = new Carril(hilos);
+            Principal principal = session.getPrincipal();
+            this.usuario = principal != null ? principal.getName() : null;
+            this.ultimoProgresoMs = ahoraMs;
+        }
+    }
+
+    /**
+     * Cola de salida de una sesión: ejecuta sus envíos de a uno, en el orden en que se publicaron.
+     */
+    private static final class Carril {
+        private final Executor hilos;
+        private final Queue<Runnable> tareas = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean activo = new AtomicBoolean();
+
+        private Carril(Executor hilos) {
+            this.hilos = hilos;
+        }
+
+        void encolar(Runnable tarea) {
+            tareas.add(tarea);
+            programar();
+        }
+
+        private void programar() {
+            if (!tareas.isEmpty() && activo.compareAndSet(false, true)) {
+                hilos.execute(this::drenar);
+            }
+        }
+
+        private void drenar() {
+            try {
+                Runnable tarea;
+                while ((tarea = tareas.poll()) != null) {
+                    try {
+                        tarea.run();
+                    } catch (RuntimeException e) {
+                        // El error ya se informó en afterMessageHandled; se sigue con el siguiente mensaje
+                        logger.debug("Error entregando un mensaje WebSocket: {}", e.getMessage());
+                    }
+                }
+            } finally {
+                activo.set(false);
+            }
+            programar(); // Llegó un mensaje entre el último poll y la liberación del carril
+        }
+    }
+
+    /**
+     * Executor del canal de salida. Los mensajes de una sesión registrada van a su carril;
+     * el resto (sin sesión o de sesiones ya cerradas) se entrega directamente.
+     */
+    public Executor ejecutorSalida() {
+        return tarea -> {
+            Sesion sesion = null;
+            if (tarea instanceof MessageHandlingRunnable envio) {
+                String sesionId = SimpMessageHeaderAccessor.getSessionId(envio.getMessage().getHeaders());
+                sesion = sesionId != null ? sesiones.get(sesionId) : null;
+            }
+            if (sesion != null) {
+                sesion.carril.encolar(tarea);
+            } else {
+                hilos.execute(tarea);
+            }
+        };
+    }
+
+    /**
+     * Decorador del handler WebSocket que registra las sesiones al conectar y las quita al cerrar.
+     */
+    public WebSocketHandler decorar(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                sesiones.put(session.getId(), new Sesion(session, relojMs.getAsLong(), hilos));
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                Sesion sesion = sesiones.remove(session.getId());
+                if (sesion != null && sesion.descartados.get() > 0) {
+                    logger.info("Sesión WebSocket {} cerrada ({}) con {} mensajes descartados",
+                            session.getId(), closeStatus, sesion.descartados.get());
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        Sesion sesion = sesionDeMensaje(message);
+        if (sesion == null) {
+            return message;
+        }
+        long ahora = relojMs.getAsLong();
+        if (estaEstancada(sesion, ahora)) {
+            sesion.descartados.incrementAndGet();
+            expulsar(sesion);
+            return null;
+        }
+        if (sesion.pendientes.get() >= maxPendientes) {
+            sesion.descartados.incrementAndGet();
+            return null;
+        }
+        if (sesion.pendientes.getAndIncrement() == 0) {
+            sesion.ultimoProgresoMs = ahora;
+        }
+        return message;
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        // El executor rechazó el mensaje: nunca llegará a afterMessageHandled
+        if (!sent || ex != null) {
+            Sesion sesion = sesionDeMensaje(message);
+            if (sesion != null) {
+                sesion.pendientes.decrementAndGet();
+                sesion.descartados.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        Sesion sesion = sesionDeMensaje(message);
+        if (sesion == null) {
+            return;
+        }
+        sesion.pendientes.decrementAndGet();
+        sesion.ultimoProgresoMs = relojMs.getAsLong();
+        if (ex == null) {
+            sesion.enviados.incrementAndGet();
+        } else {
+            sesion.descartados.incrementAndGet();
+        }
+    }
+
+    /**
+     * Sesiones conectadas, primero las que más mensajes tienen encolados.
+     */
+    public List<EstadoSesion> getSesiones() {
+        long ahora = relojMs.getAsLong();
+        List<EstadoSesion> estados = new ArrayList<>(sesiones.size());
+        for (Map.Entry<String, Sesion> entrada : sesiones.entrySet()) {
+            Sesion sesion = entrada.getValue();
+            estados.add(new EstadoSesion(entrada.getKey(), sesion.usuario, Math.max(0, sesion.pendientes.get()),
+                    sesion.enviados.get(), sesion.descartados.get(), estaEstancada(sesion, ahora), sesion.conectadaDesde));
+        }
+        estados.sort(Comparator.comparingInt(EstadoSesion::pendientes).reversed());
+        return estados;
+    }
+
+    /**
+     * Sesiones cerradas por no consumir sus mensajes desde el arranque.
+     */
+    public long getExpulsiones() {
+        return expulsiones.get();
+    }
+
+    private boolean estaEstancada(Sesion sesion, long ahoraMs) {
+        return sesion.pendientes.get() > 0 && ahoraMs - sesion.ultimoProgresoMs > limiteEstancadaMs;
+    }
+
+    // Solo se controlan los MESSAGE de suscripciones; CONNECTED, RECEIPT y ERROR pasan siempre
+    private Sesion sesionDeMensaje(Message<?> message) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return null;
+        }
+        String sesionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        return sesionId != null ? sesiones.get(sesionId) : null;
+    }
+
+    @PreDestroy
+    public void detener() {
+        hilos.shutdownNow();
+    }
+
+    private void expulsar(Sesion sesion) {
+        if (!sesion.expulsada.compareAndSet(false, true)) {
+            return;
+        }
+        expulsiones.incrementAndGet();
+        logger.warn("Sesión WebSocket {} ({}) sin avanzar hace más de {} ms con {} mensajes pendientes, se cierra",
+                sesion.session.getId(), sesion.usuario, limiteEstancadaMs, sesion.pendientes.get());
+        // El cierre de un socket congelado puede bloquear: se hace fuera del hilo del broker
+        Thread.ofVirtual().name("ws-expulsion-" + sesion.session.getId()).start(() -> {
+            try {
+                sesion.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (Exception e) {
+                logger.warn("Error cerrando la sesión WebSocket {}: {}", sesion.session.getId(), e.getMessage());
+            }
+        });
+    }
+}
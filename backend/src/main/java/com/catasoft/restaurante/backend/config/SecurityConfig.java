@@ -53,6 +53,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/v1/areas/**").hasRole("GERENTE")
                 .requestMatchers("/api/v1/product-areas/**").hasRole("GERENTE")
                 .requestMatchers("/api/v1/comanda-areas/**").hasRole("GERENTE")
+                .requestMatchers("/api/v1/websocket/**").hasRole("GERENTE")
                 .requestMatchers("/api/v1/business-config/**").hasRole("GERENTE")
                 
                 // Cualquier otra petición requiere autenticación
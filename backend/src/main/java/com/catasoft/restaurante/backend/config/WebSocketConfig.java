@@ -1,15 +1,28 @@
 package com.catasoft.restaurante.backend.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    // Límites por sesión: un cliente que no lee no puede retener más que esto en el servidor
+    private static final int LIMITE_BUFFER_ENVIO_BYTES = 512 * 1024;
+    private static final int LIMITE_TIEMPO_ENVIO_MS = (int) RegistroSesionesWebSocket.LIMITE_ESTANCADA_MS;
+    private static final int TAMANO_MAXIMO_MENSAJE_BYTES = 128 * 1024;
+
+    private final RegistroSesionesWebSocket registroSesiones;
+
+    public WebSocketConfig(RegistroSesionesWebSocket registroSesiones) {
+        this.registroSesiones = registroSesiones;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Eliminamos .withSockJS() para forzar una conexión de WebSocket nativa
@@ -21,4 +34,22 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.enableSimpleBroker("/topic");
         registry.setApplicationDestinationPrefixes("/app");
     }
-}
\ No newline at end of file
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // Si se supera el buffer Spring cierra la sesión; los envíos de una sesión van de a uno
+        // (ver RegistroSesionesWebSocket), así el envío trabado lo detecta y expulsa el registro
+        registration.setSendBufferSizeLimit(LIMITE_BUFFER_ENVIO_BYTES)
+                .setSendTimeLimit(LIMITE_TIEMPO_ENVIO_MS)
+                .setMessageSizeLimit(TAMANO_MAXIMO_MENSAJE_BYTES)
+                .addDecoratorFactory(registroSesiones::decorar);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Un carril por sesión: los mensajes de una sesión salen en orden (sin huecos falsos en
+        // x-secuencia / X-Secuencia-Area) y su cola está acotada por el registro
+        registration.interceptors(registroSesiones)
+                .executor(registroSesiones.ejecutorSalida());
+    }
+}
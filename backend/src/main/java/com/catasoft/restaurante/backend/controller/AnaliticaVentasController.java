@@ -0,0 +1,102 @@
+package com.catasoft.restaurante.backend.controller;
+
+import com.catasoft.restaurante.backend.dto.HorasPicoVentasDTO;
+import com.catasoft.restaurante.backend.dto.MapaCalorVentasDTO;
+import com.catasoft.restaurante.backend.dto.RankingVentasDTO;
+import com.catasoft.restaurante.backend.service.CuboVentasService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+/**
+ * Analítica de ventas desde el cubo en memoria (por hora, producto, área y mesero).
+ * Todas las consultas aceptan filtrar por productoId, areaId y usuarioId (mesero).
+ */
+@RestController
+@RequestMapping("/api/v1/analitica/ventas")
+public class AnaliticaVentasController {
+
+    private static final int MAX_RANKING = 100;
+
+    private final CuboVentasService cuboVentasService;
+
+    public AnaliticaVentasController(CuboVentasService cuboVentasService) {
+        this.cuboVentasService = cuboVentasService;
+    }
+
+    /**
+     * Unidades e importe por día de la semana y hora.
+     * HTTP GET http://localhost:8080/api/v1/analitica/ventas/mapa-calor?fechaInicio=2025-01-01&fechaFin=2025-01-31
+     */
+    @GetMapping("/mapa-calor")
+    @PreAuthorize("hasRole('GERENTE')")
+    public ResponseEntity<MapaCalorVentasDTO> getMapaDeCalor(
+            @RequestParam("fechaInicio") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam("fechaFin") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestParam(value = "productoId", required = false) Long productoId,
+            @RequestParam(value = "areaId", required = false) String areaId,
+            @RequestParam(value = "usuarioId", required = false) Long usuarioId) {
+        validarRango(fechaInicio, fechaFin);
+        return ResponseEntity.ok(cuboVentasService.mapaDeCalor(fechaInicio, fechaFin, productoId, areaId, usuarioId));
+    }
+
+    /**
+     * Horas del día con más ventas, de mayor a menor importe.
+     * HTTP GET http://localhost:8080/api/v1/analitica/ventas/horas-pico?fechaInicio=2025-01-01&fechaFin=2025-01-31&limite=3
+     */
+    @GetMapping("/horas-pico")
+    @PreAuthorize("hasRole('GERENTE')")
+    public ResponseEntity<HorasPicoVentasDTO> getHorasPico(
+            @RequestParam("fechaInicio") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam("fechaFin") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestParam(value = "limite", defaultValue = "24") int limite,
+            @RequestParam(value = "productoId", required = false) Long productoId,
+            @RequestParam(value = "areaId", required = false) String areaId,
+            @RequestParam(value = "usuarioId", required = false) Long usuarioId) {
+        validarRango(fechaInicio, fechaFin);
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser mayor que cero.");
+        }
+        return ResponseEntity.ok(cuboVentasService.horasPico(fechaInicio, fechaFin, limite, productoId, areaId, usuarioId));
+    }
+
+    /**
+     * Los primeros K productos, áreas o meseros por importe o por unidades.
+     * HTTP GET http://localhost:8080/api/v1/analitica/ventas/top?dimension=MESERO&metrica=IMPORTE&k=5&fechaInicio=...&fechaFin=...
+     */
+    @GetMapping("/top")
+    @PreAuthorize("hasRole('GERENTE')")
+    public ResponseEntity<RankingVentasDTO> getRanking(
+            @RequestParam("fechaInicio") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam("fechaFin") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin,
+            @RequestParam(value = "dimension", defaultValue = "PRODUCTO") CuboVentasService.DimensionVentas dimension,
+            @RequestParam(value = "metrica", defaultValue = "IMPORTE") CuboVentasService.MetricaVentas metrica,
+            @RequestParam(value = "k", defaultValue = "10") int k,
+            @RequestParam(value = "productoId", required = false) Long productoId,
+            @RequestParam(value = "areaId", required = false) String areaId,
+            @RequestParam(value = "usuarioId", required = false) Long usuarioId) {
+        validarRango(fechaInicio, fechaFin);
+        if (k < 1 || k > MAX_RANKING) {
+            throw new IllegalArgumentException("k debe estar entre 1 y " + MAX_RANKING + ".");
+        }
+        return ResponseEntity.ok(cuboVentasService.ranking(fechaInicio, fechaFin, dimension, metrica, k,
+                productoId, areaId, usuarioId));
+    }
+
+    // Vuelve a cargar el cubo desde las comandas pagadas (se hace en segundo plano)
+    @PostMapping("/reconstruir")
+    @PreAuthorize("hasRole('GERENTE')")
+    public ResponseEntity<Void> reconstruir() {
+        cuboVentasService.reconstruir();
+        return ResponseEntity.accepted().build();
+    }
+
+    private static void validarRango(LocalDate fechaInicio, LocalDate fechaFin) {
+        if (fechaFin.isBefore(fechaInicio)) {
+            throw new IllegalArgumentException("La fecha de fin no puede ser anterior a la de inicio.");
+        }
+    }
+}
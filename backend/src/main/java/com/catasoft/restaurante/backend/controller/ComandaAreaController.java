@@ -57,9 +57,12 @@ public class ComandaAreaController {
         try {
             log.debug("Solicitando comandas para área: {}", areaId);
             
-            List<ComandaAreaResponseDTO> comandas = comandaAreaService.getComandasPorArea(areaId);
-            log.debug("Comandas encontradas para área {}: {}", areaId, comandas.size());
-            return ResponseEntity.ok(comandas);
+            ComandaAreaService.PantallaCocina pantalla = comandaAreaService.getPantallaCocina(areaId);
+            log.debug("Comandas encontradas para área {}: {}", areaId, pantalla.comandas().size());
+            // La secuencia permite al cliente enlazar esta foto con los eventos de /topic/area/{areaId}
+            return ResponseEntity.ok()
+                .header("X-Secuencia-Area", String.valueOf(pantalla.secuencia()))
+                .body(pantalla.comandas());
         } catch (Exception e) {
             log.error("Error al obtener comandas por área: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -108,11 +111,9 @@ public class ComandaAreaController {
 
     @PutMapping("/{id}")
     public ResponseEntity<ComandaArea> update(@PathVariable Long id, @RequestBody ComandaArea ca) {
-        if (!comandaAreaService.findById(id).isPresent()) {
-            return ResponseEntity.notFound().build();
-        }
-        ca.setId(id);
-        return ResponseEntity.ok(comandaAreaService.save(ca));
+        return comandaAreaService.update(id, ca)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
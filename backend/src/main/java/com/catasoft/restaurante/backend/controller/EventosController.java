@@ -0,0 +1,35 @@
+package com.catasoft.restaurante.backend.controller;
+
+import com.catasoft.restaurante.backend.dto.ReanudacionEventosDTO;
+import com.catasoft.restaurante.backend.service.HistorialEventosService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/eventos")
+public class EventosController {
+
+    private final HistorialEventosService historialEventosService;
+
+    public EventosController(HistorialEventosService historialEventosService) {
+        this.historialEventosService = historialEventosService;
+    }
+
+    /**
+     * Eventos STOMP publicados después de la secuencia indicada, para reanudar tras una reconexión.
+     * Sin desde, solo devuelve la época y la secuencia actual. La época es la de la secuencia
+     * (cabecera x-epoca); si el servidor se reinició desde entonces la respuesta no es completa.
+     * HTTP GET http://localhost:8080/api/v1/eventos?desde=120&epoca=1760000000000&destino=/topic/mesas&destino=/topic/area/cocina
+     */
+    @GetMapping
+    public ResponseEntity<ReanudacionEventosDTO> getEventos(@RequestParam(required = false) Long desde,
+                                                           @RequestParam(required = false) Long epoca,
+                                                           @RequestParam(name = "destino", required = false) List<String> destinos) {
+        return ResponseEntity.ok(historialEventosService.desde(desde, epoca, destinos != null ? destinos : List.of()));
+    }
+}
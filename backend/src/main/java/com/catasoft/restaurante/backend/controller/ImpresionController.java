@@ -2,9 +2,13 @@ package com.catasoft.restaurante.backend.controller;
 
 import com.catasoft.restaurante.backend.model.dto.PrintJobDTO;
 import com.catasoft.restaurante.backend.model.dto.TicketDTO;
+import com.catasoft.restaurante.backend.model.enums.TipoTrabajoImpresion;
 import com.catasoft.restaurante.backend.service.ComandaService;
-import com.catasoft.restaurante.backend.service.WebSocketService;
-import com.catasoft.restaurante.backend.service.TicketTemplateService;
+import com.catasoft.restaurante.backend.service.ColaImpresionService;
+import com.catasoft.restaurante.backend.service.SaludImpresorasService;
+import com.catasoft.restaurante.backend.service.CatalogoImpresionService;
+import com.catasoft.restaurante.backend.dto.BacklogImpresoraDTO;
+import com.catasoft.restaurante.backend.dto.SaludImpresorasDTO;
 import com.catasoft.restaurante.backend.dto.TicketTemplateDTO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,22 +18,58 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import com.catasoft.restaurante.backend.model.PrinterConfiguration;
 import com.catasoft.restaurante.backend.service.PrinterConfigurationService;
+import java.util.List;
 import java.util.Optional;
 @RestController
 @RequestMapping("/api/v1/imprimir")
 public class ImpresionController {
     private final PrinterConfigurationService printerConfigService;
     private final ComandaService comandaService;
-    private final WebSocketService webSocketService;
-    private final TicketTemplateService ticketTemplateService;
+    private final ColaImpresionService colaImpresionService;
+    private final SaludImpresorasService saludImpresorasService;
+    private final CatalogoImpresionService catalogoImpresion;
     private static final Logger logger = LoggerFactory.getLogger(ImpresionController.class);
 
     @Autowired
-    public ImpresionController(ComandaService comandaService, WebSocketService webSocketService, PrinterConfigurationService printerConfigService, TicketTemplateService ticketTemplateService) {
+    public ImpresionController(ComandaService comandaService, ColaImpresionService colaImpresionService, PrinterConfigurationService printerConfigService, CatalogoImpresionService catalogoImpresion, SaludImpresorasService saludImpresorasService) {
         this.comandaService = comandaService;
-        this.webSocketService = webSocketService;
+        this.colaImpresionService = colaImpresionService;
         this.printerConfigService = printerConfigService;
-        this.ticketTemplateService = ticketTemplateService;
+        this.catalogoImpresion = catalogoImpresion;
+        this.saludImpresorasService = saludImpresorasService;
+    }
+
+    /**
+     * Trabajos de impresión que el puente no pudo imprimir tras todos los intentos, del más reciente al más antiguo.
+     */
+    @GetMapping("/fallidos")
+    public ResponseEntity<List<ColaImpresionService.TrabajoFallido>> getTrabajosFallidos() {
+        return ResponseEntity.ok(colaImpresionService.getFallidos());
+    }
+
+    /**
+     * Trabajos persistidos que el puente todavía no confirmó, agrupados por impresora.
+     */
+    @GetMapping("/cola")
+    public ResponseEntity<List<BacklogImpresoraDTO>> getCola() {
+        return ResponseEntity.ok(colaImpresionService.getBacklog());
+    }
+
+    /**
+     * Vuelve a encolar un trabajo que el puente no pudo imprimir.
+     */
+    @PostMapping("/cola/{id}/reintentar")
+    public ResponseEntity<Void> reintentarTrabajo(@PathVariable Long id) {
+        colaImpresionService.reintentar(id);
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Salud de cada impresora (confirmaciones, errores, pendientes, throughput) y desvíos al respaldo.
+     */
+    @GetMapping("/salud")
+    public ResponseEntity<SaludImpresorasDTO> getSalud() {
+        return ResponseEntity.ok(saludImpresorasService.getSalud());
     }
 
     @PostMapping("/ticket-caja/{comandaId}")
@@ -39,20 +79,24 @@ public class ImpresionController {
         
         try {
             logger.info("Paso 1: Buscando configuración de impresora para rol 'CAJA'...");
-            Optional<PrinterConfiguration> configOpt = printerConfigService.getConfigurationByRole("CAJA");
-            logger.info("Configuración encontrada: {}", configOpt.isPresent());
+            // Impresora y plantilla salen del catálogo en memoria
+            String area = "caja";
+            Optional<CatalogoImpresionService.ImpresoraResuelta> impresoraOpt = catalogoImpresion.resolverRol("CAJA", area);
+            logger.info("Configuración encontrada: {}", impresoraOpt.isPresent());
 
-            if (configOpt.isEmpty()) {
+            if (impresoraOpt.isEmpty()) {
                 logger.info("Paso 1.1: No hay configuración, creando por defecto...");
                 try {
                     PrinterConfiguration defaultConfig = printerConfigService.createDefaultConfiguration("CAJA");
                     logger.info("Configuración por defecto creada: {}", defaultConfig.getPrinterTarget());
-                    configOpt = Optional.of(defaultConfig);
+                    impresoraOpt = Optional.of(new CatalogoImpresionService.ImpresoraResuelta(defaultConfig.getPrinterType(),
+                            defaultConfig.getPrinterTarget(), catalogoImpresion.getPlantillaDeArea(area)));
                 } catch (Exception e) {
                     logger.error("Error creando configuración por defecto: {}", e.getMessage());
                     return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
                 }
             }
+            CatalogoImpresionService.ImpresoraResuelta impresora = impresoraOpt.get();
 
             logger.info("Paso 2: Obteniendo datos del ticket...");
             TicketDTO ticketData = comandaService.getTicketData(comandaId);
@@ -60,26 +104,10 @@ public class ImpresionController {
                 ticketData.nombreMesa(), ticketData.items().size());
             
             logger.info("Paso 3: Creando PrintJob...");
-            // Crear PrintJob con área y plantilla correctas
-            String area = "caja";
-            Long templateId = configOpt.get().getTemplateId();
-            TicketTemplateDTO template = null;
-            
-            if (templateId != null) {
-                template = ticketTemplateService.getTemplateById(templateId);
-                if (template != null) {
-                    logger.info("Plantilla personalizada encontrada: {}", template.getName());
-                } else {
-                    logger.info("No se encontró la plantilla personalizada, usando la por defecto del área");
-                    template = ticketTemplateService.getTemplateByArea(area);
-                }
-            } else {
-                template = ticketTemplateService.getTemplateByArea(area);
-            }
-            
+            TicketTemplateDTO template = impresora.template();
             PrintJobDTO printJob = new PrintJobDTO(
-                configOpt.get().getPrinterType(),
-                configOpt.get().getPrinterTarget(),
+                impresora.printerType(),
+                impresora.printerTarget(),
                 "CAJA",
                 ticketData,
                 area,
@@ -89,10 +117,10 @@ public class ImpresionController {
                 printJob.printerType(), printJob.printerTarget(), area, 
                 template != null ? template.getName() : "ninguna");
             
-            logger.info("Paso 4: Enviando por WebSocket...");
-            webSocketService.sendPrintJob(printJob);
+            logger.info("Paso 4: Encolando trabajo de impresión...");
+            colaImpresionService.encolar(printJob, "ticket-caja " + comandaId, TipoTrabajoImpresion.CUENTA);
             
-            logger.info("Paso 5: Envío completado exitosamente");
+            logger.info("Paso 5: Trabajo encolado exitosamente");
             logger.info("=== FIN IMPRESIÓN TICKET CAJA ===");
             return ResponseEntity.ok().build();
             
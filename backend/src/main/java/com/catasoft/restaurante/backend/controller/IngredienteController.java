@@ -1,6 +1,5 @@
 package com.catasoft.restaurante.backend.controller;
 
-import com.catasoft.restaurante.backend.exception.ResourceNotFoundException;
 import com.catasoft.restaurante.backend.model.Ingrediente;
 import com.catasoft.restaurante.backend.service.IngredienteService;
 import org.springframework.http.ResponseEntity;
@@ -56,14 +55,8 @@ public class IngredienteController {
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('GERENTE')")
     public ResponseEntity<Ingrediente> update(@PathVariable Long id, @Valid @RequestBody Ingrediente ingrediente) {
-        return ingredienteService.findById(id)
-                .map(existing -> {
-                    existing.setNombre(ingrediente.getNombre());
-                    existing.setStock(ingrediente.getStock());
-                    existing.setUnidad(ingrediente.getUnidad());
-                    existing.setDescripcion(ingrediente.getDescripcion());
-                    return ResponseEntity.ok(ingredienteService.save(existing));
-                })
+        return ingredienteService.update(id, ingrediente)
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -81,8 +74,6 @@ public class IngredienteController {
     @PostMapping("/{id}/ingresar-stock")
     @PreAuthorize("hasRole('GERENTE')")
     public ResponseEntity<Ingrediente> ingresarStock(@PathVariable Long id, @RequestBody Map<String, Object> payload) {
-        Ingrediente ingrediente = ingredienteService.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Ingrediente no encontrado con id: " + id));
         Double cantidad = null;
         if (payload.get("cantidad") instanceof Number) {
             cantidad = ((Number) payload.get("cantidad")).doubleValue();
@@ -92,8 +83,6 @@ public class IngredienteController {
         if (cantidad == null || cantidad <= 0) {
             return ResponseEntity.badRequest().build();
         }
-        ingrediente.setStock(ingrediente.getStock() + cantidad);
-        ingredienteService.save(ingrediente);
-        return ResponseEntity.ok(ingrediente);
+        return ResponseEntity.ok(ingredienteService.ingresarStock(id, Math.round(cantidad * 1000)));
     }
 }
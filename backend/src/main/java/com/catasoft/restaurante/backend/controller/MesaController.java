@@ -7,6 +7,7 @@ import com.catasoft.restaurante.backend.model.Mesa;
 import com.catasoft.restaurante.backend.model.enums.EstadoMesa;
 import com.catasoft.restaurante.backend.repository.MesaRepository;
 import com.catasoft.restaurante.backend.service.ComandaService;
+import com.catasoft.restaurante.backend.service.EstadoMesasService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -22,10 +23,12 @@ public class MesaController {
 
     private final MesaRepository mesaRepository;
     private final ComandaService comandaService;
+    private final EstadoMesasService estadoMesasService;
 
-    public MesaController(MesaRepository mesaRepository, ComandaService comandaService) {
+    public MesaController(MesaRepository mesaRepository, ComandaService comandaService, EstadoMesasService estadoMesasService) {
         this.mesaRepository = mesaRepository;
         this.comandaService = comandaService;
+        this.estadoMesasService = estadoMesasService;
     }
 
     // --- MÉTODOS EXISTENTES ---
@@ -48,7 +51,9 @@ public class MesaController {
             throw new IllegalStateException("Ya existe una mesa con el número: " + mesa.getNumero());
         }
         
-        return mesaRepository.save(mesa);
+        Mesa mesaCreada = mesaRepository.save(mesa);
+        estadoMesasService.mesaCambiada(mesaCreada);
+        return mesaCreada;
     }
 
     @GetMapping("/{id}")
@@ -72,6 +77,7 @@ public class MesaController {
             EstadoMesa nuevoEstado = EstadoMesa.valueOf(nuevoEstadoStr.toUpperCase());
             mesa.setEstado(nuevoEstado);
             Mesa mesaActualizada = mesaRepository.save(mesa);
+            estadoMesasService.mesaCambiada(mesaActualizada);
             return ResponseEntity.ok(mesaActualizada);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
@@ -93,6 +99,7 @@ public class MesaController {
                 .orElseThrow(() -> new ResourceNotFoundException("Mesa no encontrada con id: " + id));
         mesa.setActivo(false);
         mesaRepository.save(mesa);
+        estadoMesasService.mesaEliminada(id);
         return ResponseEntity.noContent().build();
     }
 
@@ -163,6 +170,7 @@ public class MesaController {
 
         Mesa mesaActualizada = mesaRepository.save(mesa);
         System.out.println("Mesa actualizada: " + mesaActualizada);
+        estadoMesasService.mesaCambiada(mesaActualizada);
         
         return ResponseEntity.ok(mesaActualizada);
     }
@@ -187,7 +195,9 @@ public class MesaController {
                     if (posicionY != null) mesa.setPosicionY(posicionY);
                     if (nombre != null) mesa.setNombre(nombre);
                     
-                    return mesaRepository.save(mesa);
+                    Mesa mesaActualizada = mesaRepository.save(mesa);
+                    estadoMesasService.mesaCambiada(mesaActualizada);
+                    return mesaActualizada;
                 })
                 .collect(Collectors.toList());
         
@@ -0,0 +1,28 @@
+package com.catasoft.restaurante.backend.controller;
+
+import com.catasoft.restaurante.backend.dto.MetricasCocinaDTO;
+import com.catasoft.restaurante.backend.service.MetricasCocinaService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/cocina")
+public class MetricasCocinaController {
+
+    private final MetricasCocinaService metricasCocinaService;
+
+    public MetricasCocinaController(MetricasCocinaService metricasCocinaService) {
+        this.metricasCocinaService = metricasCocinaService;
+    }
+
+    /**
+     * Tiempos de espera, preparación y entrega por área y por producto (p50/p95/p99).
+     * HTTP GET http://localhost:8080/api/v1/cocina/metricas
+     */
+    @GetMapping("/metricas")
+    public ResponseEntity<MetricasCocinaDTO> getMetricas() {
+        return ResponseEntity.ok(metricasCocinaService.getMetricas());
+    }
+}
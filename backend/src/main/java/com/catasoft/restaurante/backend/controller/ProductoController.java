@@ -1,8 +1,11 @@
 package com.catasoft.restaurante.backend.controller;
 
+import com.catasoft.restaurante.backend.dto.DisponibilidadMenuDTO;
 import com.catasoft.restaurante.backend.exception.ResourceNotFoundException;
 import com.catasoft.restaurante.backend.model.Producto;
 import com.catasoft.restaurante.backend.repository.ProductoRepository;
+import com.catasoft.restaurante.backend.service.CatalogoProductosService;
+import com.catasoft.restaurante.backend.service.DisponibilidadMenuService;
 import com.catasoft.restaurante.backend.service.ProductoStockService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,11 +19,28 @@ public class ProductoController {
 
     private final ProductoRepository productoRepository;
     private final ProductoStockService productoStockService;
+    private final CatalogoProductosService catalogoProductosService;
+    private final DisponibilidadMenuService disponibilidadMenuService;
 
     // Inyección de dependencias vía constructor (mejor práctica)
-    public ProductoController(ProductoRepository productoRepository, ProductoStockService productoStockService) {
+    public ProductoController(ProductoRepository productoRepository, ProductoStockService productoStockService,
+                              CatalogoProductosService catalogoProductosService,
+                              DisponibilidadMenuService disponibilidadMenuService) {
         this.productoRepository = productoRepository;
         this.productoStockService = productoStockService;
+        this.catalogoProductosService = catalogoProductosService;
+        this.disponibilidadMenuService = disponibilidadMenuService;
+    }
+
+    /**
+     * Endpoint para obtener las unidades disponibles de todo el menú en una sola llamada.
+     * Los productos sin receta no aparecen (disponibilidad 0). Los cambios posteriores
+     * se publican en /topic/disponibilidad.
+     * HTTP GET http://localhost:8080/api/v1/productos/disponibilidad
+     */
+    @GetMapping("/disponibilidad")
+    public ResponseEntity<DisponibilidadMenuDTO> getDisponibilidadMenu() {
+        return ResponseEntity.ok(disponibilidadMenuService.getDisponibilidad());
     }
     /**
      * Endpoint para obtener el stock real disponible de un producto según los ingredientes.
@@ -56,7 +76,9 @@ public class ProductoController {
     public Producto createProducto(@RequestBody Producto producto) {
         // Establecer stock inicial en 0 ya que se calcula dinámicamente
         producto.setStock(0.0);
-        return productoRepository.save(producto);
+        Producto guardado = productoRepository.save(producto);
+        catalogoProductosService.invalidar();
+        return guardado;
     }
     /**
      * Endpoint para obtener un producto por su ID.
@@ -91,6 +113,7 @@ public class ProductoController {
         // producto.setStock(productoDetails.getStock());
 
         final Producto updatedProducto = productoRepository.save(producto);
+        catalogoProductosService.invalidar();
         return ResponseEntity.ok(updatedProducto);
     }
 
@@ -106,6 +129,7 @@ public class ProductoController {
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con id: " + id));
 
         productoRepository.delete(producto);
+        catalogoProductosService.invalidar();
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.catasoft.restaurante.backend.controller;
+
+import com.catasoft.restaurante.backend.dto.ConfirmacionImpresionDTO;
+import com.catasoft.restaurante.backend.dto.PuenteConectadoDTO;
+import com.catasoft.restaurante.backend.service.ColaImpresionService;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Controller;
+
+/**
+ * Mensajes STOMP del puente de impresión: confirmaciones de trabajos y aviso de conexión.
+ */
+@Controller
+public class PuenteImpresionController {
+
+    private final ColaImpresionService colaImpresionService;
+
+    public PuenteImpresionController(ColaImpresionService colaImpresionService) {
+        this.colaImpresionService = colaImpresionService;
+    }
+
+    @MessageMapping("/impresion/confirmar")
+    public void confirmar(@Payload ConfirmacionImpresionDTO confirmacion) {
+        colaImpresionService.confirmar(confirmacion);
+    }
+
+    // Al conectarse el puente se le reenvía lo que quedó sin confirmar para sus impresoras
+    @MessageMapping("/impresion/conectado")
+    public void conectado(@Payload PuenteConectadoDTO puente) {
+        colaImpresionService.reenviarPendientes(puente != null ? puente.impresoras() : null);
+    }
+}
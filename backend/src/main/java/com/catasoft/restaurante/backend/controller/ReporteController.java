@@ -1,14 +1,21 @@
 package com.catasoft.restaurante.backend.controller;
 
 import com.catasoft.restaurante.backend.dto.ReporteVentasDTO;
+import com.catasoft.restaurante.backend.dto.TrabajoReporteDTO;
 import com.catasoft.restaurante.backend.service.PdfService;
 import com.catasoft.restaurante.backend.service.ReporteService;
+import com.catasoft.restaurante.backend.service.TrabajosReporteService;
+import com.catasoft.restaurante.backend.service.VentasDiariasService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 
@@ -19,10 +26,15 @@ public class ReporteController {
 
     private final ReporteService reporteService;
     private final PdfService pdfService;
+    private final VentasDiariasService ventasDiariasService;
+    private final TrabajosReporteService trabajosReporteService;
 
-    public ReporteController(ReporteService reporteService, PdfService pdfService) {
+    public ReporteController(ReporteService reporteService, PdfService pdfService, VentasDiariasService ventasDiariasService,
+                             TrabajosReporteService trabajosReporteService) {
         this.reporteService = reporteService;
         this.pdfService = pdfService;
+        this.ventasDiariasService = ventasDiariasService;
+        this.trabajosReporteService = trabajosReporteService;
     }
 
     @GetMapping("/ventas")
@@ -51,16 +63,71 @@ public class ReporteController {
                 .body(pdfBytes);
     }
 
+    // Los Excel se escriben directamente en la respuesta, sin armar el archivo en memoria
     @GetMapping("/ventas/excel")
     @PreAuthorize("hasRole('GERENTE')")
-    public ResponseEntity<byte[]> exportarReporteVentasExcel(
+    public ResponseEntity<StreamingResponseBody> exportarReporteVentasExcel(
             @RequestParam("fechaInicio") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
             @RequestParam("fechaFin") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
         ReporteVentasDTO reporte = reporteService.generarReporteVentas(fechaInicio, fechaFin);
-        byte[] excelBytes = reporteService.exportarReporteVentasExcel(reporte).readAllBytes();
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=reporte_ventas.xlsx")
-                .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                .body(excelBytes);
+                .contentType(ReporteService.EXCEL)
+                .body(out -> reporteService.exportarReporteVentasExcel(reporte, out));
     }
-}
\ No newline at end of file
+
+    @GetMapping("/ventas/excel/detalle")
+    @PreAuthorize("hasRole('GERENTE')")
+    public ResponseEntity<StreamingResponseBody> exportarDetalleVentasExcel(
+            @RequestParam("fechaInicio") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam("fechaFin") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        if (fechaFin.isBefore(fechaInicio)) {
+            throw new IllegalArgumentException("La fecha de fin no puede ser anterior a la de inicio.");
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=detalle_ventas.xlsx")
+                .contentType(ReporteService.EXCEL)
+                .body(out -> reporteService.exportarDetalleVentasExcel(fechaInicio, fechaFin, out));
+    }
+
+    // Regenera los resúmenes diarios de ventas de un día (o de un rango) desde las comandas
+    @PostMapping("/ventas/resumenes/reconstruir")
+    @PreAuthorize("hasRole('GERENTE')")
+    public ResponseEntity<Void> reconstruirResumenesVentas(
+            @RequestParam("fechaInicio") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam(value = "fechaFin", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        LocalDate hasta = fechaFin != null ? fechaFin : fechaInicio;
+        if (hasta.isBefore(fechaInicio)) {
+            throw new IllegalArgumentException("La fecha de fin no puede ser anterior a la de inicio.");
+        }
+        ventasDiariasService.reconstruir(fechaInicio, hasta);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Reportes en segundo plano: se encola el trabajo y se consulta (o se espera el aviso en
+    // /topic/reportes) hasta que el resultado esté listo para descargar
+    @PostMapping("/trabajos")
+    @PreAuthorize("hasRole('GERENTE')")
+    public ResponseEntity<TrabajoReporteDTO> solicitarReporte(
+            @RequestParam("tipo") TrabajosReporteService.TipoReporte tipo,
+            @RequestParam("fechaInicio") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaInicio,
+            @RequestParam("fechaFin") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fechaFin) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(trabajosReporteService.solicitar(tipo, fechaInicio, fechaFin));
+    }
+
+    @GetMapping("/trabajos/{id}")
+    @PreAuthorize("hasRole('GERENTE')")
+    public ResponseEntity<TrabajoReporteDTO> consultarTrabajoReporte(@PathVariable String id) {
+        return ResponseEntity.ok(trabajosReporteService.consultar(id));
+    }
+
+    @GetMapping("/trabajos/{id}/resultado")
+    @PreAuthorize("hasRole('GERENTE')")
+    public ResponseEntity<Resource> descargarResultadoReporte(@PathVariable String id) {
+        TrabajosReporteService.ResultadoReporte resultado = trabajosReporteService.resultado(id);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + resultado.nombre())
+                .contentType(resultado.mediaType())
+                .body(new FileSystemResource(resultado.archivo()));
+    }
+}
@@ -0,0 +1,31 @@
+package com.catasoft.restaurante.backend.controller;
+
+import com.catasoft.restaurante.backend.config.RegistroSesionesWebSocket;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/websocket")
+public class SesionesWebSocketController {
+
+    private final RegistroSesionesWebSocket registroSesiones;
+
+    public SesionesWebSocketController(RegistroSesionesWebSocket registroSesiones) {
+        this.registroSesiones = registroSesiones;
+    }
+
+    /**
+     * Sesiones STOMP conectadas con su cola de salida y mensajes descartados.
+     * HTTP GET http://localhost:8080/api/v1/websocket/sesiones
+     */
+    @GetMapping("/sesiones")
+    public ResponseEntity<List<RegistroSesionesWebSocket.EstadoSesion>> getSesiones() {
+        return ResponseEntity.ok()
+                .header("X-Sesiones-Expulsadas", String.valueOf(registroSesiones.getExpulsiones()))
+                .body(registroSesiones.getSesiones());
+    }
+}
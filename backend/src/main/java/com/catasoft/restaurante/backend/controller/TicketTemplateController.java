@@ -5,6 +5,7 @@ import com.catasoft.restaurante.backend.model.Area;
 import com.catasoft.restaurante.backend.service.TicketTemplateService;
 import com.catasoft.restaurante.backend.service.TicketPreviewService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -86,49 +87,54 @@ public class TicketTemplateController {
         return ResponseEntity.ok(template);
     }
     
-    // Generar previsualización PDF de una plantilla
+    // Generar previsualización (PDF o PNG al ancho de la impresora) de una plantilla
     @PostMapping("/{id}/preview")
-    public ResponseEntity<byte[]> generatePreview(@PathVariable Long id) {
+    public ResponseEntity<byte[]> generatePreview(@PathVariable Long id,
+                                                  @RequestParam(defaultValue = TicketPreviewService.FORMATO_PDF) String format) {
         try {
             TicketTemplateDTO template = ticketTemplateService.getTemplateById(id);
             if (template == null) {
                 return ResponseEntity.notFound().build();
             }
-            
-            byte[] pdfBytes = ticketPreviewService.generatePreviewPdf(template);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", "ticket-preview.pdf");
-            
-            return ResponseEntity.ok()
-                .headers(headers)
-                .body(pdfBytes);
-                
+            return previewResponse(template, format, "ticket-preview");
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
     
-    // Generar previsualización PDF de una plantilla temporal (sin guardar)
-    @PostMapping("/preview-temp")
-    public ResponseEntity<byte[]> generateTempPreview(@RequestBody TicketTemplateDTO templateDTO) {
+    // Generar previsualización de una plantilla temporal (sin guardar)
+    @PostMapping({"/preview-temp", "/preview"})
+    public ResponseEntity<byte[]> generateTempPreview(@RequestBody TicketTemplateDTO templateDTO,
+                                                      @RequestParam(defaultValue = TicketPreviewService.FORMATO_PDF) String format) {
         try {
-            byte[] pdfBytes = ticketPreviewService.generatePreviewPdf(templateDTO);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            headers.setContentDispositionFormData("attachment", "ticket-preview-temp.pdf");
-            
-            return ResponseEntity.ok()
-                .headers(headers)
-                .body(pdfBytes);
-                
+            return previewResponse(templateDTO, format, "ticket-preview-temp");
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
     
+    // La previsualización sale de la caché del servicio; la huella de los bloques va como ETag
+    private ResponseEntity<byte[]> previewResponse(TicketTemplateDTO template, String format, String fileName) {
+        boolean png = TicketPreviewService.FORMATO_PNG.equalsIgnoreCase(format);
+        byte[] bytes = png
+            ? ticketPreviewService.generatePreviewPng(template)
+            : ticketPreviewService.generatePreviewPdf(template);
+        
+        HttpHeaders headers = new HttpHeaders();
+        if (png) {
+            headers.setContentType(MediaType.IMAGE_PNG);
+            headers.setContentDisposition(ContentDisposition.inline().filename(fileName + ".png").build());
+        } else {
+            headers.setContentType(MediaType.APPLICATION_PDF);
+            headers.setContentDispositionFormData("attachment", fileName + ".pdf");
+        }
+        headers.setETag("\"" + ticketPreviewService.huella(template) + "\"");
+        
+        return ResponseEntity.ok()
+            .headers(headers)
+            .body(bytes);
+    }
+    
     // Endpoint de prueba para verificar plantillas
     @GetMapping("/debug/templates")
     public ResponseEntity<Map<String, Object>> debugTemplates() {
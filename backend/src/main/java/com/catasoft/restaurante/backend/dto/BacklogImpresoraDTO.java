@@ -0,0 +1,10 @@
+package com.catasoft.restaurante.backend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trabajos sin confirmar de una impresora.
+ */
+public record BacklogImpresoraDTO(String impresora, String destino, long encolados, long enviados, long fallidos,
+                                  LocalDateTime masAntiguo) {
+}
@@ -0,0 +1,26 @@
+package com.catasoft.restaurante.backend.dto;
+
+import com.catasoft.restaurante.backend.model.ComandaArea.EstadoComandaArea;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila plana de la pantalla de cocina: una comanda de área con uno de sus items.
+ * Se llena con una proyección por constructor en ComandaAreaRepository; los campos
+ * del item son null si la comanda de área no tiene items.
+ */
+public record ComandaAreaFilaDTO(
+        Long comandaAreaId,
+        Long comandaId,
+        Long mesaId,
+        String areaId,
+        EstadoComandaArea estado,
+        LocalDateTime fechaCreacion,
+        LocalDateTime fechaCreacionComanda,
+        Long itemId,
+        Long productoId,
+        String productoNombre,
+        Integer cantidad,
+        String notas,
+        LocalDateTime fechaCreacionItem) {
+}
@@ -0,0 +1,8 @@
+package com.catasoft.restaurante.backend.dto;
+
+/**
+ * Confirmación que envía el puente de impresión a /app/impresion/confirmar
+ * después de intentar imprimir un trabajo.
+ */
+public record ConfirmacionImpresionDTO(Long trabajoId, boolean ok, String error) {
+}
@@ -0,0 +1,10 @@
+package com.catasoft.restaurante.backend.dto;
+
+import java.util.Map;
+
+/**
+ * Unidades preparables por producto (productoId -> unidades).
+ * En el endpoint contiene todo el menú; en /topic/disponibilidad solo los productos que cambiaron.
+ */
+public record DisponibilidadMenuDTO(long version, Map<Long, Integer> productos) {
+}
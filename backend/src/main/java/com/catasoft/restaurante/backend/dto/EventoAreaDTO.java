@@ -0,0 +1,31 @@
+package com.catasoft.restaurante.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Evento incremental para la pantalla de un área, publicado en /topic/area/{areaId}.
+ * Solo lleva los campos que cambian según el tipo:
+ * TICKET_AGREGADO (cabecera e items), ITEMS_AGREGADOS (items nuevos) y ESTADO_CAMBIADO (estado).
+ * La secuencia es creciente por área; un salto indica que el cliente perdió eventos.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record EventoAreaDTO(
+        long secuencia,
+        String tipo,
+        Long comandaAreaId,
+        Long comandaId,
+        Long mesaId,
+        String estado,
+        String fechaCreacion,
+        List<ComandaAreaResponseDTO.ComandaAreaItemDTO> items) {
+
+    public static final String TICKET_AGREGADO = "TICKET_AGREGADO";
+    public static final String ITEMS_AGREGADOS = "ITEMS_AGREGADOS";
+    public static final String ESTADO_CAMBIADO = "ESTADO_CAMBIADO";
+
+    public EventoAreaDTO conSecuencia(long nuevaSecuencia) {
+        return new EventoAreaDTO(nuevaSecuencia, tipo, comandaAreaId, comandaId, mesaId, estado, fechaCreacion, items);
+    }
+}
@@ -0,0 +1,15 @@
+package com.catasoft.restaurante.backend.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Horas del día con más ventas en el rango, de mayor a menor importe.
+ * promedioDiario divide el importe de la hora por los días del rango.
+ */
+public record HorasPicoVentasDTO(LocalDate fechaInicio, LocalDate fechaFin, long dias, List<Hora> horas) {
+
+    public record Hora(int hora, long unidades, BigDecimal importe, BigDecimal promedioDiario) {
+    }
+}
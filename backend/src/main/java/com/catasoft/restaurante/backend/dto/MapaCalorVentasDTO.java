@@ -0,0 +1,11 @@
+package com.catasoft.restaurante.backend.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Ventas por día de la semana y hora. Las matrices son [7][24]: la fila 0 es el lunes y la
+ * columna es la hora de creación de la comanda.
+ */
+public record MapaCalorVentasDTO(LocalDate fechaInicio, LocalDate fechaFin, long[][] unidades, BigDecimal[][] importes) {
+}
@@ -0,0 +1,12 @@
+package com.catasoft.restaurante.backend.dto;
+
+import java.util.List;
+
+/**
+ * Cambios del plano de mesas publicados en /topic/mesas.
+ * Agrupa todas las mesas que cambiaron dentro de la ventana de agrupación; eliminadas lleva
+ * los ids de mesas desactivadas. La versión crece de uno en uno: un salto indica que se
+ * perdió un mensaje y el cliente debe recargar las mesas.
+ */
+public record MesasCambiosDTO(long version, List<MesaMapaDTO> mesas, List<Long> eliminadas) {
+}
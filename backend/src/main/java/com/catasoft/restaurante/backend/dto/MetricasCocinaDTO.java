@@ -0,0 +1,23 @@
+package com.catasoft.restaurante.backend.dto;
+
+import java.util.List;
+
+/**
+ * Métricas de rendimiento de cocina. Todos los valores del resumen (muestras, media, percentiles
+ * y máximo, en milisegundos) corresponden a la misma ventana deslizante de ventanaMinutos.
+ */
+public record MetricasCocinaDTO(int ventanaMinutos, List<Area> areas, List<Producto> productos) {
+
+    public record Resumen(long muestras, double mediaMs, double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+    }
+
+    /**
+     * espera: creación a inicio de preparación; preparacion: inicio a lista;
+     * entrega: lista a entregada.
+     */
+    public record Area(String areaId, String nombre, Resumen espera, Resumen preparacion, Resumen entrega) {
+    }
+
+    public record Producto(Long productoId, String nombre, Resumen preparacion) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.catasoft.restaurante.backend.dto;
+
+import java.util.List;
+
+/**
+ * Aviso del puente de impresión al (re)conectar. impresoras son los printerTarget que atiende;
+ * vacío o null significa todas.
+ */
+public record PuenteConectadoDTO(List<String> impresoras) {
+}
@@ -0,0 +1,16 @@
+package com.catasoft.restaurante.backend.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Los primeros K productos, áreas o meseros del rango según la métrica pedida.
+ * clave es el id del producto o del mesero, o el areaId.
+ */
+public record RankingVentasDTO(LocalDate fechaInicio, LocalDate fechaFin, String dimension, String metrica,
+                               List<Entrada> entradas) {
+
+    public record Entrada(String clave, String nombre, long unidades, BigDecimal importe) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.catasoft.restaurante.backend.dto;
+
+import java.util.List;
+
+/**
+ * Respuesta de reanudación de eventos STOMP.
+ * Si completo es false, algún evento de los destinos pedidos ya salió del historial y el
+ * cliente debe recargar el estado completo en lugar de aplicar los eventos. La época identifica
+ * la ejecución del servidor: las secuencias de otra época no sirven para reanudar.
+ */
+public record ReanudacionEventosDTO(long epoca, long secuenciaActual, boolean completo, List<Evento> eventos) {
+
+    public record Evento(long secuencia, String destino, Object payload) {
+    }
+}
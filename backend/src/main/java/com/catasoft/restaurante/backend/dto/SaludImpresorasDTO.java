@@ -0,0 +1,38 @@
+package com.catasoft.restaurante.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Estado de salud de las impresoras y desvíos a impresoras de respaldo.
+ */
+public record SaludImpresorasDTO(List<Impresora> impresoras, List<Desvio> desvios) {
+
+    /**
+     * Salud de una impresora (printerTarget) según las confirmaciones del puente.
+     * La tasa de error es sobre los últimos resultados; el throughput, confirmados por minuto
+     * en los últimos 5 minutos; pendientes, los trabajos encolados o enviados sin confirmar.
+     */
+    public record Impresora(
+            String impresora,
+            boolean sana,
+            String motivo,
+            String respaldo,
+            LocalDateTime desviadaHasta,
+            LocalDateTime ultimoEnvio,
+            LocalDateTime ultimaConfirmacion,
+            long confirmados,
+            long errores,
+            double tasaError,
+            int pendientes,
+            double confirmadosPorMinuto,
+            long desviados
+    ) {
+    }
+
+    /**
+     * Una impresora que pasó a desviar sus trabajos al respaldo.
+     */
+    public record Desvio(LocalDateTime fecha, String impresora, String respaldo, String motivo) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.catasoft.restaurante.backend.dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Estado de un trabajo de reporte en segundo plano. urlResultado solo viene cuando terminó.
+ */
+public record TrabajoReporteDTO(
+        String id,
+        String tipo,
+        LocalDate fechaInicio,
+        LocalDate fechaFin,
+        String estado,
+        LocalDateTime fechaSolicitud,
+        LocalDateTime fechaCompletado,
+        String error,
+        String urlResultado
+) {}
@@ -1,5 +1,6 @@
 package com.catasoft.restaurante.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
@@ -17,10 +18,16 @@ public class Ingrediente {
     @Column(nullable = false, unique = true)
     private String nombre;
 
+    // Stock en milésimas de la unidad de medida (punto fijo) para evitar errores de redondeo.
+    // JPA solo lo escribe al crear: después se mueve con UPDATE atómicos desde InventarioService
     @NotNull
     @Min(0)
-    @Column(nullable = false)
-    private Double stock;
+    @Column(name = "stock_milli", nullable = false, updatable = false)
+    private Long stockMilli;
+
+    // Stock que el cliente tenía a la vista al editar: el cambio de stock se aplica solo si sigue siendo ese
+    @Transient
+    private Long stockAnteriorMilli;
 
     @NotBlank
     @Column(name = "unidad_medida", nullable = false, length = 20)
@@ -42,8 +49,16 @@ public class Ingrediente {
     public void setId(Long id) { this.id = id; }
     public String getNombre() { return nombre; }
     public void setNombre(String nombre) { this.nombre = nombre; }
-    public Double getStock() { return stock; }
-    public void setStock(Double stock) { this.stock = stock; }
+    public Double getStock() { return stockMilli != null ? stockMilli / 1000.0 : null; }
+    public void setStock(Double stock) { this.stockMilli = stock != null ? Math.round(stock * 1000) : null; }
+    @JsonIgnore
+    public Long getStockMilli() { return stockMilli; }
+    @JsonIgnore
+    public void setStockMilli(Long stockMilli) { this.stockMilli = stockMilli; }
+    @JsonProperty(value = "stockAnterior", access = JsonProperty.Access.WRITE_ONLY)
+    public void setStockAnterior(Double stock) { this.stockAnteriorMilli = stock != null ? Math.round(stock * 1000) : null; }
+    @JsonIgnore
+    public Long getStockAnteriorMilli() { return stockAnteriorMilli; }
     @JsonProperty("unidad")
     public String getUnidad() { return unidad; }
     @JsonProperty("unidad")
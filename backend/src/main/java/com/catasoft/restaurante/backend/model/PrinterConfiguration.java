@@ -29,6 +29,14 @@ public class PrinterConfiguration {
     @Column(name = "template_id")
     private Long templateId;
 
+    // Destino al que se desvían los trabajos cuando esta impresora falla (opcional)
+    @Column(name = "configuracion_respaldo", nullable = true, length = 100)
+    private String backupTarget;
+
+    // Se suma a la prioridad base de los trabajos de este rol (negativo = más urgente)
+    @Column(name = "ajuste_prioridad", nullable = true)
+    private Integer ajustePrioridad;
+
     // --- Getters y Setters (incluyendo el nuevo para version) ---
 
     public Long getId() {
@@ -78,4 +86,20 @@ public class PrinterConfiguration {
     public void setTemplateId(Long templateId) {
         this.templateId = templateId;
     }
+
+    public String getBackupTarget() {
+        return backupTarget;
+    }
+
+    public void setBackupTarget(String backupTarget) {
+        this.backupTarget = backupTarget;
+    }
+
+    public Integer getAjustePrioridad() {
+        return ajustePrioridad;
+    }
+
+    public void setAjustePrioridad(Integer ajustePrioridad) {
+        this.ajustePrioridad = ajustePrioridad;
+    }
 }
\ No newline at end of file
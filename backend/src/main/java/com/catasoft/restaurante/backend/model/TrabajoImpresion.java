@@ -0,0 +1,174 @@
+package com.catasoft.restaurante.backend.model;
+
+import com.catasoft.restaurante.backend.model.enums.TipoTrabajoImpresion;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Trabajo de impresión persistido. Se entrega al puente por el destino de su impresora
+ * y solo se da por terminado cuando el puente confirma que lo imprimió.
+ */
+@Entity
+@Table(name = "trabajos_impresion")
+public class TrabajoImpresion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // printerTarget de la configuración de impresora
+    @Column(name = "impresora", nullable = false, length = 100)
+    private String impresora;
+
+    @Column(name = "descripcion", length = 255)
+    private String descripcion;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 20)
+    private EstadoTrabajoImpresion estado = EstadoTrabajoImpresion.ENCOLADO;
+
+    // PrintJobDTO serializado en JSON, tal como lo recibe el puente
+    @Column(name = "payload", nullable = false, columnDefinition = "LONGTEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 20)
+    private TipoTrabajoImpresion tipo = TipoTrabajoImpresion.CUENTA;
+
+    // Prioridad base del tipo más el ajuste del rol de la impresora (menor = sale antes)
+    @Column(name = "prioridad", nullable = false)
+    private Integer prioridad = TipoTrabajoImpresion.CUENTA.getPrioridad();
+
+    // Errores informados por el puente; los reenvíos sin respuesta (reconexión, barrido) no cuentan
+    @Column(name = "intentos", nullable = false)
+    private Integer intentos = 0;
+
+    @Column(name = "error", length = 500)
+    private String error;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_envio")
+    private LocalDateTime fechaEnvio;
+
+    @Column(name = "fecha_confirmacion")
+    private LocalDateTime fechaConfirmacion;
+
+    public enum EstadoTrabajoImpresion {
+        PREPARANDO,  // Guardado con el pedido, esperando el renderizado ESC/POS
+        ENCOLADO,    // Guardado, todavía no enviado al puente
+        ENVIADO,     // Enviado, esperando confirmación del puente
+        CONFIRMADO,  // El puente confirmó la impresión
+        FALLIDO      // El puente informó errores en todos los intentos
+    }
+
+    public TrabajoImpresion() {
+        this.fechaCreacion = LocalDateTime.now();
+    }
+
+    public TrabajoImpresion(String impresora, String descripcion, String payload, TipoTrabajoImpresion tipo, int prioridad) {
+        this();
+        this.impresora = impresora;
+        this.descripcion = descripcion;
+        this.payload = payload;
+        this.tipo = tipo;
+        this.prioridad = prioridad;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public TipoTrabajoImpresion getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(TipoTrabajoImpresion tipo) {
+        this.tipo = tipo;
+    }
+
+    public Integer getPrioridad() {
+        return prioridad;
+    }
+
+    public void setPrioridad(Integer prioridad) {
+        this.prioridad = prioridad;
+    }
+
+    public String getImpresora() {
+        return impresora;
+    }
+
+    public void setImpresora(String impresora) {
+        this.impresora = impresora;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+
+    public void setDescripcion(String descripcion) {
+        this.descripcion = descripcion;
+    }
+
+    public EstadoTrabajoImpresion getEstado() {
+        return estado;
+    }
+
+    public void setEstado(EstadoTrabajoImpresion estado) {
+        this.estado = estado;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public Integer getIntentos() {
+        return intentos;
+    }
+
+    public void setIntentos(Integer intentos) {
+        this.intentos = intentos;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+
+    public LocalDateTime getFechaEnvio() {
+        return fechaEnvio;
+    }
+
+    public void setFechaEnvio(LocalDateTime fechaEnvio) {
+        this.fechaEnvio = fechaEnvio;
+    }
+
+    public LocalDateTime getFechaConfirmacion() {
+        return fechaConfirmacion;
+    }
+
+    public void setFechaConfirmacion(LocalDateTime fechaConfirmacion) {
+        this.fechaConfirmacion = fechaConfirmacion;
+    }
+}
@@ -0,0 +1,14 @@
+package com.catasoft.restaurante.backend.model.dto;
+
+/**
+ * Trabajo de impresión ya renderizado en el backend.
+ * El puente solo escribe los bytes ESC/POS en la impresora; Jackson serializa escpos en Base64.
+ */
+public record TrabajoEscPosDTO(
+        String printerType,
+        String printerTarget,
+        String ticketType,
+        String nombreMesa,
+        byte[] escpos
+) {
+}
@@ -0,0 +1,21 @@
+package com.catasoft.restaurante.backend.model.enums;
+
+/**
+ * Tipo de trabajo de impresión y su prioridad base (menor = sale antes).
+ */
+public enum TipoTrabajoImpresion {
+    COMANDA(10),      // Ticket original de una comanda de área (marcha a cocina)
+    ADICION(20),      // Ítems agregados a una comanda de área ya impresa
+    CUENTA(30),       // Ticket de caja para el cliente
+    REIMPRESION(40);  // Reimpresión de un ticket ya impreso
+
+    private final int prioridad;
+
+    TipoTrabajoImpresion(int prioridad) {
+        this.prioridad = prioridad;
+    }
+
+    public int getPrioridad() {
+        return prioridad;
+    }
+}
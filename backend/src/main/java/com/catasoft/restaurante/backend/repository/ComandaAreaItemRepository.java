@@ -2,6 +2,8 @@ package com.catasoft.restaurante.backend.repository;
 
 import com.catasoft.restaurante.backend.model.ComandaAreaItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -41,4 +43,9 @@ public interface ComandaAreaItemRepository extends JpaRepository<ComandaAreaItem
     
     // Verificar si todos los items de una comanda área están listos
     boolean existsByComandaAreaIdAndStatusNot(Long comandaAreaId, ComandaAreaItem.EstadoItem status);
+    
+    // Items que salieron en una ronda de impresión (ronda_impresion no está mapeada en la entidad)
+    @Query(value = "SELECT * FROM comanda_area_items WHERE comanda_area_id = :comandaAreaId AND ronda_impresion = :ronda ORDER BY id",
+           nativeQuery = true)
+    List<ComandaAreaItem> findByComandaAreaIdAndRondaImpresion(@Param("comandaAreaId") Long comandaAreaId, @Param("ronda") int ronda);
 } 
\ No newline at end of file
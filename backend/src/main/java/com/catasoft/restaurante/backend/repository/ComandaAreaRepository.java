@@ -1,8 +1,10 @@
 package com.catasoft.restaurante.backend.repository;
 
+import com.catasoft.restaurante.backend.dto.ComandaAreaFilaDTO;
 import com.catasoft.restaurante.backend.model.ComandaArea;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -70,4 +72,20 @@ public interface ComandaAreaRepository extends JpaRepository<ComandaArea, Long>
     // Obtener comandas con items
     @Query("SELECT ca FROM ComandaArea ca LEFT JOIN FETCH ca.items WHERE ca.areaId = :areaId AND ca.status = :status")
     List<ComandaArea> findByAreaIdAndStatusWithItems(String areaId, ComandaArea.EstadoComandaArea status);
+
+    // Comanda de área con sus items en una sola consulta (marcar lista necesita los productos)
+    @Query("SELECT ca FROM ComandaArea ca LEFT JOIN FETCH ca.items WHERE ca.id = :id")
+    Optional<ComandaArea> findByIdWithItems(@Param("id") Long id);
+
+    // Pantalla de cocina en una sola consulta: comandas de área activas con sus items, sin ventas rápidas
+    @Query("SELECT new com.catasoft.restaurante.backend.dto.ComandaAreaFilaDTO(" +
+           "ca.id, c.id, m.id, ca.areaId, ca.status, ca.createdAt, c.fechaHoraCreacion, " +
+           "i.id, p.id, p.nombre, i.quantity, i.notes, i.createdAt) " +
+           "FROM ComandaArea ca JOIN ca.comanda c JOIN c.mesa m " +
+           "LEFT JOIN ca.items i LEFT JOIN i.producto p " +
+           "WHERE ca.areaId = :areaId AND ca.status NOT IN :excluidos AND m.id <> :mesaVentaRapida " +
+           "ORDER BY ca.createdAt, ca.id, i.id")
+    List<ComandaAreaFilaDTO> findFilasPantallaCocina(@Param("areaId") String areaId,
+                                                     @Param("excluidos") List<ComandaArea.EstadoComandaArea> excluidos,
+                                                     @Param("mesaVentaRapida") Long mesaVentaRapida);
 } 
\ No newline at end of file
@@ -1,9 +1,25 @@
 package com.catasoft.restaurante.backend.repository;
 
 import com.catasoft.restaurante.backend.model.ComandaItem;
+import com.catasoft.restaurante.backend.model.enums.EstadoComanda;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface ComandaItemRepository extends JpaRepository<ComandaItem, Long> {
-}
\ No newline at end of file
+
+    // Ventas por producto en el rango, con el precio guardado en cada ítem:
+    // [productoId, nombre, cantidad total, total generado], de más a menos vendido
+    @Query("SELECT p.id, p.nombre, SUM(i.cantidad), SUM(i.precioUnitario * i.cantidad) FROM ComandaItem i " +
+           "JOIN i.comanda c JOIN i.producto p " +
+           "WHERE c.estado = :estado AND c.fechaHoraCreacion BETWEEN :inicio AND :fin " +
+           "GROUP BY p.id, p.nombre ORDER BY SUM(i.cantidad) DESC")
+    List<Object[]> sumarVentasPorProducto(@Param("estado") EstadoComanda estado,
+                                          @Param("inicio") LocalDateTime inicio,
+                                          @Param("fin") LocalDateTime fin);
+}
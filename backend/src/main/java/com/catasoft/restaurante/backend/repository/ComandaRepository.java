@@ -2,7 +2,9 @@ package com.catasoft.restaurante.backend.repository;
 
 import com.catasoft.restaurante.backend.model.Comanda;
 import com.catasoft.restaurante.backend.model.enums.EstadoComanda;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 import java.time.LocalDateTime;
@@ -15,6 +17,12 @@ public interface ComandaRepository extends JpaRepository<Comanda, Long> {
     // Este método buscará todas las comandas por un estado específico (PAGADA)
     // y cuya fecha de creación esté entre dos momentos dados.
     List<Comanda> findByEstadoAndFechaHoraCreacionBetween(EstadoComanda estado, LocalDateTime start, LocalDateTime end);
+    // Resumen del mismo rango sin cargar las comandas: una fila [cantidad, total recaudado]
+    @Query("SELECT COUNT(c), COALESCE(SUM(c.total), 0) FROM Comanda c " +
+           "WHERE c.estado = :estado AND c.fechaHoraCreacion BETWEEN :inicio AND :fin")
+    List<Object[]> resumirPorEstadoEntre(@Param("estado") EstadoComanda estado,
+                                         @Param("inicio") LocalDateTime inicio,
+                                         @Param("fin") LocalDateTime fin);
     List<Comanda> findByEstado(EstadoComanda estado);
     List<Comanda> findByEstadoIn(Collection<EstadoComanda> estados);
     Optional<Comanda> findFirstByMesaIdAndEstadoOrderByFechaHoraCreacionDesc(Long mesaId, EstadoComanda estado);
@@ -22,4 +30,9 @@ public interface ComandaRepository extends JpaRepository<Comanda, Long> {
     @Query("SELECT c FROM Comanda c JOIN FETCH c.mesa JOIN FETCH c.items i JOIN FETCH i.producto WHERE c.id = :comandaId")
     Optional<Comanda> findByIdWithDetails(@Param("comandaId") Long comandaId);
     // ---------------------------------------------
-}
\ No newline at end of file
+
+    // Bloquea la fila de la comanda hasta el fin de la transacción (cambios de estado concurrentes, por ejemplo dos cobros)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Comanda c WHERE c.id = :id")
+    Optional<Comanda> findByIdParaActualizar(@Param("id") Long id);
+}
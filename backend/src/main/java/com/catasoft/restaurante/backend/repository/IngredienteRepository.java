@@ -2,9 +2,22 @@ package com.catasoft.restaurante.backend.repository;
 
 import com.catasoft.restaurante.backend.model.Ingrediente;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface IngredienteRepository extends JpaRepository<Ingrediente, Long> {
     boolean existsByNombreIgnoreCase(String nombre);
+
+    // Stock actual de todos los ingredientes: [id, stockMilli]
+    @Query("SELECT i.id, i.stockMilli FROM Ingrediente i")
+    List<Object[]> findAllStockMilli();
+
+    // Stock actual de algunos ingredientes: [id, stockMilli]
+    @Query("SELECT i.id, i.stockMilli FROM Ingrediente i WHERE i.id IN :ids")
+    List<Object[]> findStockMilliByIds(@Param("ids") Collection<Long> ids);
 }
@@ -42,4 +42,8 @@ public interface ProductAreaRepository extends JpaRepository<ProductArea, Long>
     
     // Buscar productos con tiempo de preparación entre X e Y minutos
     List<ProductArea> findByPreparationTimeBetween(Integer minMinutes, Integer maxMinutes);
+    
+    // Obtener todas las asignaciones (productoId, areaId, preparationTime) para la tabla de enrutamiento
+    @Query("SELECT pa.producto.id, pa.areaId, pa.preparationTime FROM ProductArea pa ORDER BY pa.id")
+    List<Object[]> findAllRutas();
 } 
\ No newline at end of file
@@ -3,8 +3,11 @@ package com.catasoft.restaurante.backend.repository;
 import com.catasoft.restaurante.backend.model.RecetaIngrediente;
 import com.catasoft.restaurante.backend.model.Producto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,4 +16,13 @@ public interface RecetaIngredienteRepository extends JpaRepository<RecetaIngredi
     List<RecetaIngrediente> findByProductoId(Long productoId);
     void deleteByProducto(Producto producto);
     void deleteByProductoId(Long productoId);
+
+    // Recetas de varios productos en una sola consulta: [productoId, ingredienteId, nombreIngrediente, cantidad]
+    @Query("SELECT ri.producto.id, ri.ingrediente.id, ri.ingrediente.nombre, ri.cantidad FROM RecetaIngrediente ri " +
+           "WHERE ri.producto.id IN :productoIds")
+    List<Object[]> findRecetasByProductoIds(@Param("productoIds") Collection<Long> productoIds);
+
+    // Matriz completa producto x ingrediente: [productoId, ingredienteId, cantidad]
+    @Query("SELECT ri.producto.id, ri.ingrediente.id, ri.cantidad FROM RecetaIngrediente ri")
+    List<Object[]> findMatrizRecetas();
 }
@@ -0,0 +1,34 @@
+package com.catasoft.restaurante.backend.repository;
+
+import com.catasoft.restaurante.backend.model.TrabajoImpresion;
+import com.catasoft.restaurante.backend.model.TrabajoImpresion.EstadoTrabajoImpresion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TrabajoImpresionRepository extends JpaRepository<TrabajoImpresion, Long> {
+
+    // Pendientes de entrega (en orden de llegada), de todas las impresoras o de algunas
+    List<TrabajoImpresion> findByEstadoInOrderByIdAsc(Collection<EstadoTrabajoImpresion> estados);
+
+    List<TrabajoImpresion> findByImpresoraInAndEstadoInOrderByIdAsc(Collection<String> impresoras, Collection<EstadoTrabajoImpresion> estados);
+
+    // Los más recientes en un estado (por ejemplo los FALLIDO)
+    List<TrabajoImpresion> findTop200ByEstadoOrderByIdDesc(EstadoTrabajoImpresion estado);
+
+    // Enviados sin confirmación desde antes de la fecha indicada (los encolados esperan su turno en el despacho)
+    @Query("SELECT t FROM TrabajoImpresion t WHERE t.estado = :enviado AND t.fechaEnvio < :limite ORDER BY t.id")
+    List<TrabajoImpresion> findEnviadosAntesDe(@Param("limite") LocalDateTime limite,
+                                               @Param("enviado") EstadoTrabajoImpresion enviado);
+
+    // Trabajos no confirmados por impresora y estado: [impresora, estado, cantidad, fechaCreacion más antigua]
+    @Query("SELECT t.impresora, t.estado, COUNT(t), MIN(t.fechaCreacion) FROM TrabajoImpresion t " +
+           "WHERE t.estado <> :confirmado GROUP BY t.impresora, t.estado")
+    List<Object[]> contarPendientesPorImpresora(@Param("confirmado") EstadoTrabajoImpresion confirmado);
+}
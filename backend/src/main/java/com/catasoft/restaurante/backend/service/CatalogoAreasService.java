@@ -0,0 +1,81 @@
+package com.catasoft.restaurante.backend.service;
+
+import com.catasoft.restaurante.backend.model.PreparationArea;
+import com.catasoft.restaurante.backend.repository.PreparationAreaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Catálogo en memoria de las áreas de preparación, indexado por id numérico y por areaId.
+ * Se recarga cuando PreparationAreaService o TicketTemplateService escriben un área, así
+ * las pantallas de cocina resuelven nombre e id del área sin consultar la base de datos.
+ */
+@Service
+public class CatalogoAreasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogoAreasService.class);
+
+    private final PreparationAreaRepository preparationAreaRepository;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(0L, Map.of(), Map.of()));
+
+    public CatalogoAreasService(PreparationAreaRepository preparationAreaRepository) {
+        this.preparationAreaRepository = preparationAreaRepository;
+    }
+
+    /**
+     * Datos de un área que necesitan las pantallas de cocina.
+     */
+    public record AreaInfo(Long id, String areaId, String nombre) {
+    }
+
+    private record Snapshot(long version, Map<Long, AreaInfo> porId, Map<String, AreaInfo> porAreaId) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        recargar();
+    }
+
+    /**
+     * Vuelve a leer las áreas y reemplaza el catálogo de forma atómica.
+     */
+    public void recargar() {
+        Map<Long, AreaInfo> porId = new HashMap<>();
+        Map<String, AreaInfo> porAreaId = new HashMap<>();
+        for (PreparationArea area : preparationAreaRepository.findAll()) {
+            AreaInfo info = new AreaInfo(area.getId(), area.getAreaId(), area.getName());
+            porId.put(info.id(), info);
+            porAreaId.put(info.areaId(), info);
+        }
+        Snapshot nuevo = snapshot.updateAndGet(actual ->
+                new Snapshot(actual.version() + 1, Map.copyOf(porId), Map.copyOf(porAreaId)));
+        logger.info("Catálogo de áreas cargado: {} áreas (versión {})", porId.size(), nuevo.version());
+    }
+
+    /**
+     * Invalida el catálogo tras una escritura de áreas.
+     */
+    public void invalidar() {
+        recargar();
+    }
+
+    public Optional<AreaInfo> findById(Long id) {
+        return Optional.ofNullable(snapshot.get().porId().get(id));
+    }
+
+    public Optional<AreaInfo> findByAreaId(String areaId) {
+        return Optional.ofNullable(snapshot.get().porAreaId().get(areaId));
+    }
+
+    public long getVersion() {
+        return snapshot.get().version();
+    }
+}
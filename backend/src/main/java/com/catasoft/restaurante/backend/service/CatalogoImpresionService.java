@@ -0,0 +1,199 @@
+package com.catasoft.restaurante.backend.service;
+
+import com.catasoft.restaurante.backend.dto.TicketTemplateDTO;
+import com.catasoft.restaurante.backend.model.PrinterConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Catálogo en memoria de impresoras y plantillas de ticket.
+ * Resuelve área o rol -> (impresora, plantilla) sin consultar la base de datos; las
+ * resoluciones se memorizan dentro de cada versión del catálogo. TicketTemplateService y
+ * PrinterConfigurationService publican CambioConfiguracionImpresion al escribir y el
+ * catálogo se recarga cuando esa transacción confirma.
+ * Las plantillas devueltas son compartidas: no deben modificarse.
+ */
+@Service
+public class CatalogoImpresionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogoImpresionService.class);
+
+    private static final String TIPO_POR_DEFECTO = "COCINA";
+    private static final String DESTINO_POR_DEFECTO = "default";
+
+    private final TicketTemplateService ticketTemplateService;
+    private final PrinterConfigurationService printerConfigurationService;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(
+            new Snapshot(0L, Map.of(), Map.of(), Map.of(), Map.of(), Map.of(), Map.of(), new ConcurrentHashMap<>()));
+
+    public CatalogoImpresionService(TicketTemplateService ticketTemplateService,
+                                    PrinterConfigurationService printerConfigurationService) {
+        this.ticketTemplateService = ticketTemplateService;
+        this.printerConfigurationService = printerConfigurationService;
+    }
+
+    /**
+     * Evento que publican los servicios que escriben plantillas o configuraciones de impresora.
+     */
+    public record CambioConfiguracionImpresion() {
+    }
+
+    /**
+     * Impresora y plantilla con las que se arma un trabajo de impresión.
+     */
+    public record ImpresoraResuelta(String printerType, String printerTarget, TicketTemplateDTO template) {
+    }
+
+    private record Snapshot(long version,
+                            Map<String, PrinterConfiguration> porRol,
+                            Map<String, PrinterConfiguration> porArea,
+                            Map<String, String> respaldos,
+                            Map<String, Integer> ajustesPrioridad,
+                            Map<Long, TicketTemplateDTO> plantillasPorId,
+                            Map<String, TicketTemplateDTO> plantillasPorArea,
+                            Map<String, ImpresoraResuelta> resueltas) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        recargar();
+    }
+
+    @EventListener
+    public void onCambio(CambioConfiguracionImpresion cambio) {
+        TransaccionUtils.ejecutarTrasCommit(this::recargar);
+    }
+
+    /**
+     * Vuelve a leer impresoras y plantillas y reemplaza el catálogo de forma atómica.
+     */
+    public void recargar() {
+        Map<String, PrinterConfiguration> porRol = new HashMap<>();
+        Map<String, PrinterConfiguration> porArea = new HashMap<>();
+        Map<String, String> respaldos = new HashMap<>();
+        Map<String, Integer> ajustesPrioridad = new HashMap<>();
+        for (PrinterConfiguration config : printerConfigurationService.getAllConfigurations()) {
+            if (config.getBackupTarget() != null && !config.getBackupTarget().isBlank()
+                    && !config.getBackupTarget().equals(config.getPrinterTarget())) {
+                respaldos.putIfAbsent(config.getPrinterTarget(), config.getBackupTarget().trim());
+            }
+            if (config.getAjustePrioridad() != null && config.getPrinterTarget() != null) {
+                ajustesPrioridad.putIfAbsent(config.getPrinterTarget(), config.getAjustePrioridad());
+            }
+            if (config.getRole() != null) {
+                porRol.putIfAbsent(config.getRole().toUpperCase(Locale.ROOT), config);
+            }
+            if (config.getAreaId() != null) {
+                porArea.putIfAbsent(config.getAreaId(), config);
+            }
+        }
+
+        Map<Long, TicketTemplateDTO> plantillasPorId = new HashMap<>();
+        Map<String, TicketTemplateDTO> plantillasPorArea = new HashMap<>();
+        for (TicketTemplateDTO plantilla : ticketTemplateService.getAllTemplates()) {
+            plantillasPorId.put(plantilla.getId(), plantilla);
+            if (plantilla.getArea() != null) {
+                // Misma elección que getTemplateByArea: la por defecto o, si no hay, la más reciente
+                plantillasPorArea.merge(clave(plantilla.getArea()), plantilla, CatalogoImpresionService::preferida);
+            }
+        }
+
+        Snapshot nuevo = snapshot.updateAndGet(actual -> new Snapshot(actual.version() + 1,
+                Map.copyOf(porRol), Map.copyOf(porArea), Map.copyOf(respaldos), Map.copyOf(ajustesPrioridad), Map.copyOf(plantillasPorId), Map.copyOf(plantillasPorArea),
+                new ConcurrentHashMap<>()));
+        logger.info("Catálogo de impresión cargado: {} impresoras, {} plantillas (versión {})",
+                porRol.size(), plantillasPorId.size(), nuevo.version());
+    }
+
+    /**
+     * Impresora y plantilla de un área de preparación. Sin configuración para el área se usa
+     * la impresora por defecto y la plantilla del área.
+     */
+    public ImpresoraResuelta resolverArea(String areaId) {
+        Snapshot actual = snapshot.get();
+        return actual.resueltas().computeIfAbsent("area:" + areaId, k -> {
+            PrinterConfiguration config = areaId != null ? actual.porArea().get(areaId) : null;
+            if (config == null) {
+                return new ImpresoraResuelta(TIPO_POR_DEFECTO, DESTINO_POR_DEFECTO, plantillaDeArea(actual, areaId));
+            }
+            return resolver(actual, config, areaId);
+        });
+    }
+
+    /**
+     * Impresora y plantilla de un rol (CAJA, ...). Vacío si el rol no tiene configuración.
+     */
+    public Optional<ImpresoraResuelta> resolverRol(String rol, String area) {
+        Snapshot actual = snapshot.get();
+        PrinterConfiguration config = actual.porRol().get(rol.toUpperCase(Locale.ROOT));
+        if (config == null) {
+            return Optional.empty();
+        }
+        return Optional.of(actual.resueltas().computeIfAbsent("rol:" + rol.toUpperCase(Locale.ROOT) + ":" + area,
+                k -> resolver(actual, config, area)));
+    }
+
+    /**
+     * Plantilla por defecto (o la más reciente) de un área.
+     */
+    public TicketTemplateDTO getPlantillaDeArea(String areaId) {
+        return plantillaDeArea(snapshot.get(), areaId);
+    }
+
+    /**
+     * Ajuste de prioridad configurado en el rol de una impresora (printerTarget), 0 si no tiene.
+     */
+    public int getAjustePrioridad(String impresora) {
+        return impresora != null ? snapshot.get().ajustesPrioridad().getOrDefault(impresora, 0) : 0;
+    }
+
+    /**
+     * Destino de respaldo configurado para una impresora (printerTarget), o null si no tiene.
+     */
+    public String getRespaldo(String impresora) {
+        return impresora != null ? snapshot.get().respaldos().get(impresora) : null;
+    }
+
+    public long getVersion() {
+        return snapshot.get().version();
+    }
+
+    // La plantilla asignada a la impresora, o la por defecto del área si no tiene o ya no existe
+    private static ImpresoraResuelta resolver(Snapshot actual, PrinterConfiguration config, String area) {
+        TicketTemplateDTO plantilla = config.getTemplateId() != null ? actual.plantillasPorId().get(config.getTemplateId()) : null;
+        if (plantilla == null) {
+            plantilla = plantillaDeArea(actual, area);
+        }
+        return new ImpresoraResuelta(config.getPrinterType(), config.getPrinterTarget(), plantilla);
+    }
+
+    private static TicketTemplateDTO plantillaDeArea(Snapshot actual, String areaId) {
+        return areaId != null ? actual.plantillasPorArea().get(clave(areaId)) : null;
+    }
+
+    private static String clave(String area) {
+        return area.toUpperCase(Locale.ROOT);
+    }
+
+    private static TicketTemplateDTO preferida(TicketTemplateDTO a, TicketTemplateDTO b) {
+        boolean defectoA = Boolean.TRUE.equals(a.getIsDefault());
+        boolean defectoB = Boolean.TRUE.equals(b.getIsDefault());
+        if (defectoA != defectoB) {
+            return defectoA ? a : b;
+        }
+        LocalDateTime fechaA = a.getCreatedAt() != null ? a.getCreatedAt() : LocalDateTime.MIN;
+        LocalDateTime fechaB = b.getCreatedAt() != null ? b.getCreatedAt() : LocalDateTime.MIN;
+        return fechaB.isAfter(fechaA) ? b : a;
+    }
+}
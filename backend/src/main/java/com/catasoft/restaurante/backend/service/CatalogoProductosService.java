@@ -0,0 +1,110 @@
+package com.catasoft.restaurante.backend.service;
+
+import com.catasoft.restaurante.backend.exception.ResourceNotFoundException;
+import com.catasoft.restaurante.backend.model.Producto;
+import com.catasoft.restaurante.backend.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Catálogo de productos en memoria, de solo lectura y versionado.
+ * Se carga al iniciar la aplicación y se invalida cada vez que ProductoController
+ * escribe un producto, de modo que la creación de comandas no consulte la base
+ * de datos por cada línea del pedido.
+ */
+@Service
+public class CatalogoProductosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogoProductosService.class);
+
+    private final ProductoRepository productoRepository;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(0L, Map.of()));
+
+    public CatalogoProductosService(ProductoRepository productoRepository) {
+        this.productoRepository = productoRepository;
+    }
+
+    /**
+     * Foto inmutable del catálogo. Cada recarga produce una versión nueva.
+     */
+    private record Snapshot(long version, Map<Long, Producto> productos) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        recargar();
+    }
+
+    /**
+     * Vuelve a leer todos los productos y reemplaza el catálogo de forma atómica.
+     */
+    public void recargar() {
+        Map<Long, Producto> productos = new HashMap<>();
+        for (Producto producto : productoRepository.findAll()) {
+            productos.put(producto.getId(), producto);
+        }
+        Snapshot nuevo = snapshot.updateAndGet(actual -> new Snapshot(actual.version() + 1, Map.copyOf(productos)));
+        logger.info("Catálogo de productos cargado: {} productos (versión {})", productos.size(), nuevo.version());
+    }
+
+    /**
+     * Invalida el catálogo tras una escritura de productos.
+     */
+    public void invalidar() {
+        recargar();
+    }
+
+    public long getVersion() {
+        return snapshot.get().version();
+    }
+
+    public Optional<Producto> findById(Long id) {
+        return Optional.ofNullable(snapshot.get().productos().get(id));
+    }
+
+    /**
+     * Resuelve en una sola pasada todos los productos pedidos.
+     * Los que no estén en memoria se buscan con un único findAllById.
+     * Lanza ResourceNotFoundException si alguno no existe.
+     */
+    public Map<Long, Producto> resolver(Collection<Long> ids) {
+        Map<Long, Producto> catalogo = snapshot.get().productos();
+        Map<Long, Producto> resultado = new HashMap<>();
+        Set<Long> faltantes = new LinkedHashSet<>();
+
+        for (Long id : ids) {
+            Producto producto = catalogo.get(id);
+            if (producto != null) {
+                resultado.put(id, producto);
+            } else {
+                faltantes.add(id);
+            }
+        }
+
+        if (!faltantes.isEmpty()) {
+            logger.debug("Productos no encontrados en catálogo, consultando base de datos: {}", faltantes);
+            List<Producto> encontrados = productoRepository.findAllById(faltantes);
+            for (Producto producto : encontrados) {
+                resultado.put(producto.getId(), producto);
+                faltantes.remove(producto.getId());
+            }
+            if (!faltantes.isEmpty()) {
+                throw new ResourceNotFoundException("Producto no encontrado con id: " + faltantes.iterator().next());
+            }
+        }
+
+        return resultado;
+    }
+}
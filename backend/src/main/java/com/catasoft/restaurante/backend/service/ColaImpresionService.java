@@ -0,0 +1,503 @@
+package com.catasoft.restaurante.backend.service;
+
+import com.catasoft.restaurante.backend.dto.BacklogImpresoraDTO;
+import com.catasoft.restaurante.backend.dto.ConfirmacionImpresionDTO;
+import com.catasoft.restaurante.backend.exception.ResourceNotFoundException;
+import com.catasoft.restaurante.backend.model.TrabajoImpresion;
+import com.catasoft.restaurante.backend.model.TrabajoImpresion.EstadoTrabajoImpresion;
+import com.catasoft.restaurante.backend.model.dto.PrintJobDTO;
+import com.catasoft.restaurante.backend.model.dto.TicketDTO;
+import com.catasoft.restaurante.backend.model.dto.CocinaTicketDTO;
+import com.catasoft.restaurante.backend.model.dto.TrabajoEscPosDTO;
+import com.catasoft.restaurante.backend.model.enums.TipoTrabajoImpresion;
+import com.catasoft.restaurante.backend.repository.TrabajoImpresionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cola persistente de trabajos de impresión.
+ * Cada trabajo se guarda en trabajos_impresion antes de enviarse y se entrega solo al destino
+ * de su impresora (/topic/impresora/{clave}). El puente confirma cada trabajo en
+ * /app/impresion/confirmar; los que no se confirman se reenvían cuando el puente se reconecta
+ * y periódicamente, así un puente desconectado no hace perder tickets. Cada envío consulta
+ * SaludImpresorasService y, si la impresora no está sana, el trabajo pasa a su respaldo.
+ * Los trabajos esperan ENCOLADO en la base y se despachan por prioridad: cada impresora tiene
+ * a lo sumo MAX_EN_VUELO trabajos enviados sin confirmar y el siguiente hueco lo ocupa el de
+ * menor prioridad efectiva (la del tipo más el ajuste del rol, menos un punto por cada
+ * SEGUNDOS_POR_PUNTO de espera, para que ningún trabajo quede relegado indefinidamente).
+ * Todo el despacho corre en el hilo del programador, así no se envía dos veces el mismo hueco.
+ * Los tickets de cocina se guardan PREPARANDO en la transacción del pedido y se renderizan
+ * después del commit (ver DespachoImpresionService); si el renderizado no llega, el barrido
+ * los libera tal cual para que el puente los interprete.
+ */
+@Service
+public class ColaImpresionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColaImpresionService.class);
+
+    public static final String PREFIJO_DESTINO = "/topic/impresora/";
+    private static final int MAX_INTENTOS_CON_ERROR = 3;
+    // Espera antes de reintentar un trabajo con error: se duplica con cada error, hasta el máximo
+    private static final long BACKOFF_ERROR_MS = 2_000;
+    private static final long BACKOFF_ERROR_MAXIMO_MS = 60_000;
+    private static final long ESPERA_CONFIRMACION_S = 60;
+    private static final long INTERVALO_BARRIDO_S = 30;
+    private static final int DIAS_RETENCION_CONFIRMADOS = 7;
+    private static final int LARGO_MAXIMO_ERROR = 500;
+    private static final int MAX_EN_VUELO = 2;
+    private static final int SEGUNDOS_POR_PUNTO = 3;
+    private static final long ESPERA_PREPARACION_S = 30;
+
+    private static final String SQL_MARCAR_ENVIADO =
+            "UPDATE trabajos_impresion SET estado = 'ENVIADO', fecha_envio = ? " +
+            "WHERE id = ? AND estado IN ('ENCOLADO', 'ENVIADO')";
+    private static final String SQL_CONFIRMAR =
+            "UPDATE trabajos_impresion SET estado = 'CONFIRMADO', fecha_confirmacion = ?, error = NULL " +
+            "WHERE id = ? AND estado <> 'CONFIRMADO'";
+    private static final String SQL_REGISTRAR_ERROR =
+            "UPDATE trabajos_impresion SET estado = CASE WHEN intentos + 1 >= ? THEN 'FALLIDO' ELSE 'ENCOLADO' END, " +
+            "intentos = intentos + 1, error = ? " +
+            "WHERE id = ? AND estado = 'ENVIADO'";
+    private static final String SQL_REINTENTAR =
+            "UPDATE trabajos_impresion SET estado = 'ENCOLADO', intentos = 0, error = NULL WHERE id = ? AND estado = 'FALLIDO'";
+    private static final String SQL_CONSULTAR_ESTADO =
+            "SELECT estado, intentos FROM trabajos_impresion WHERE id = ?";
+    private static final String SQL_CONSULTAR_IMPRESORA =
+            "SELECT impresora FROM trabajos_impresion WHERE id = ?";
+    private static final String SQL_REASIGNAR =
+            "UPDATE trabajos_impresion SET impresora = ?, payload = ? WHERE id = ? AND estado IN ('ENCOLADO', 'ENVIADO')";
+    private static final String SQL_CONTAR_EN_VUELO =
+            "SELECT COUNT(*) FROM trabajos_impresion WHERE impresora = ? AND estado = 'ENVIADO'";
+    private static final String SQL_CONTAR_ENCOLADOS =
+            "SELECT COUNT(*) FROM trabajos_impresion WHERE impresora = ? AND estado = 'ENCOLADO'";
+    private static final String SQL_SIGUIENTES =
+            "SELECT id FROM trabajos_impresion WHERE impresora = ? AND estado = 'ENCOLADO' " +
+            "AND (intentos = 0 OR TIMESTAMPDIFF(SECOND, fecha_envio, ?) >= LEAST(" + BACKOFF_ERROR_MAXIMO_MS / 1000 +
+            ", " + BACKOFF_ERROR_MS / 1000 + " * POW(2, intentos - 1))) " +
+            "ORDER BY prioridad - FLOOR(TIMESTAMPDIFF(SECOND, fecha_creacion, ?) / " + SEGUNDOS_POR_PUNTO + "), id LIMIT ?";
+    private static final String SQL_IMPRESORAS_CON_ENCOLADOS =
+            "SELECT DISTINCT impresora FROM trabajos_impresion WHERE estado = 'ENCOLADO'";
+    private static final String SQL_PREPARADO =
+            "UPDATE trabajos_impresion SET estado = 'ENCOLADO', payload = COALESCE(?, payload) WHERE id = ? AND estado = 'PREPARANDO'";
+    private static final String SQL_LIBERAR_PREPARANDO =
+            "UPDATE trabajos_impresion SET estado = 'ENCOLADO' WHERE estado = 'PREPARANDO' AND fecha_creacion < ?";
+    private static final String SQL_PURGAR =
+            "DELETE FROM trabajos_impresion WHERE estado = 'CONFIRMADO' AND fecha_confirmacion < ?";
+
+    private static final EnumSet<EstadoTrabajoImpresion> EN_VUELO = EnumSet.of(EstadoTrabajoImpresion.ENVIADO);
+    private static final EnumSet<EstadoTrabajoImpresion> EN_ESPERA = EnumSet.of(EstadoTrabajoImpresion.ENCOLADO);
+
+    private final TrabajoImpresionRepository trabajoImpresionRepository;
+    private final WebSocketService webSocketService;
+    private final RenderizadorTicketService renderizadorTicket;
+    private final SaludImpresorasService saludImpresoras;
+    private final CatalogoImpresionService catalogoImpresion;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService programador = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cola-impresion");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ColaImpresionService(TrabajoImpresionRepository trabajoImpresionRepository, WebSocketService webSocketService,
+                                RenderizadorTicketService renderizadorTicket, SaludImpresorasService saludImpresoras,
+                                CatalogoImpresionService catalogoImpresion, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.trabajoImpresionRepository = trabajoImpresionRepository;
+        this.webSocketService = webSocketService;
+        this.renderizadorTicket = renderizadorTicket;
+        this.saludImpresoras = saludImpresoras;
+        this.catalogoImpresion = catalogoImpresion;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Destino STOMP de una impresora. La clave solo tiene [a-z0-9_-] para que el puente pueda
+     * suscribirse a una impresora concreta o a todas con /topic/impresora/*.
+     */
+    public static String destino(String impresora) {
+        String clave = impresora == null ? "" : impresora.toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z0-9_-]+", "-")
+                .replaceAll("^-+|-+$", "");
+        return PREFIJO_DESTINO + (clave.isEmpty() ? "default" : clave);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciarBarrido() {
+        programador.scheduleWithFixedDelay(this::barrer, INTERVALO_BARRIDO_S, INTERVALO_BARRIDO_S, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Renderiza el trabajo a ESC/POS, lo guarda con la prioridad de su tipo y despacha su impresora
+     * cuando la transacción actual confirma.
+     * Si no se puede renderizar se guarda el trabajo completo para que lo interprete el puente.
+     */
+    public TrabajoImpresion encolar(PrintJobDTO trabajo, String descripcion, TipoTrabajoImpresion tipo) {
+        PrintJobDTO completo = webSocketService.completarPlantilla(trabajo);
+        String impresora = impresora(completo);
+        int prioridad = tipo.getPrioridad() + catalogoImpresion.getAjustePrioridad(impresora);
+        TrabajoImpresion guardado = trabajoImpresionRepository.save(new TrabajoImpresion(impresora, descripcion,
+                serializar(renderizar(completo, descripcion), prioridad, descripcion), tipo, prioridad));
+        TransaccionUtils.ejecutarTrasCommit(() -> programarDespacho(impresora));
+        return guardado;
+    }
+
+    /**
+     * Trabajo guardado PREPARANDO, con lo necesario para renderizarlo después del commit.
+     */
+    public record Preparacion(Long id, String impresora, String descripcion, int prioridad, PrintJobDTO trabajo) {
+    }
+
+    /**
+     * Guarda el trabajo en la transacción actual sin renderizarlo (estado PREPARANDO). El payload
+     * es el trabajo completo, así aunque nunca se llegue a renderizar el puente puede imprimirlo.
+     */
+    public Preparacion registrar(PrintJobDTO trabajo, String descripcion, TipoTrabajoImpresion tipo) {
+        PrintJobDTO completo = webSocketService.completarPlantilla(trabajo);
+        String impresora = impresora(completo);
+        int prioridad = tipo.getPrioridad() + catalogoImpresion.getAjustePrioridad(impresora);
+        TrabajoImpresion nuevo = new TrabajoImpresion(impresora, descripcion, serializar(completo, prioridad, descripcion), tipo, prioridad);
+        nuevo.setEstado(EstadoTrabajoImpresion.PREPARANDO);
+        TrabajoImpresion guardado = trabajoImpresionRepository.save(nuevo);
+        return new Preparacion(guardado.getId(), impresora, descripcion, prioridad, completo);
+    }
+
+    /**
+     * Renderiza un trabajo PREPARANDO, lo deja ENCOLADO y despacha su impresora.
+     * Si el renderizado falla queda encolado con el trabajo completo.
+     */
+    public void completarPreparacion(Preparacion preparacion) {
+        String payload = null;
+        try {
+            Object renderizado = renderizar(preparacion.trabajo(), preparacion.descripcion());
+            if (renderizado != preparacion.trabajo()) {
+                payload = serializar(renderizado, preparacion.prioridad(), preparacion.descripcion());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo preparar {}, se encola sin renderizar: {}", preparacion.descripcion(), e.getMessage());
+        }
+        if (jdbcTemplate.update(SQL_PREPARADO, payload, preparacion.id()) > 0) {
+            programarDespacho(preparacion.impresora());
+        }
+    }
+
+    private static String impresora(PrintJobDTO trabajo) {
+        return trabajo.printerTarget() != null ? trabajo.printerTarget() : "default";
+    }
+
+    private String serializar(Object contenido, int prioridad, String descripcion) {
+        try {
+            ObjectNode mensaje = objectMapper.valueToTree(contenido);
+            mensaje.put("prioridad", prioridad);
+            return objectMapper.writeValueAsString(mensaje);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new IllegalStateException("No se pudo serializar el trabajo de impresión: " + descripcion, e);
+        }
+    }
+
+    /**
+     * Trabajos que agotaron los reintentos, del más reciente al más antiguo.
+     */
+    public List<TrabajoFallido> getFallidos() {
+        return trabajoImpresionRepository.findTop200ByEstadoOrderByIdDesc(EstadoTrabajoImpresion.FALLIDO).stream()
+                .map(t -> new TrabajoFallido(t.getId(), t.getImpresora(), t.getDescripcion(), t.getError(),
+                        t.getIntentos(), t.getFechaEnvio() != null ? t.getFechaEnvio() : t.getFechaCreacion()))
+                .toList();
+    }
+
+    /**
+     * Trabajo que el puente no pudo imprimir después de todos los intentos.
+     */
+    public record TrabajoFallido(Long id, String impresora, String descripcion, String error, Integer intentos, LocalDateTime fecha) {
+    }
+
+    private Object renderizar(PrintJobDTO trabajo, String descripcion) {
+        try {
+            return new TrabajoEscPosDTO(trabajo.printerType(), trabajo.printerTarget(), trabajo.ticketType(),
+                    nombreMesa(trabajo.ticketData()), renderizadorTicket.renderizar(trabajo));
+        } catch (RuntimeException e) {
+            logger.warn("No se pudo renderizar {} en el backend, se envía para el puente: {}", descripcion, e.getMessage());
+            return trabajo;
+        }
+    }
+
+    private static String nombreMesa(Object ticketData) {
+        if (ticketData instanceof TicketDTO ticket) {
+            return ticket.nombreMesa();
+        }
+        if (ticketData instanceof CocinaTicketDTO ticket) {
+            return ticket.nombreMesa();
+        }
+        if (ticketData instanceof Map<?, ?> ticket && ticket.get("nombreMesa") != null) {
+            return ticket.get("nombreMesa").toString();
+        }
+        return null;
+    }
+
+    /**
+     * Procesa la confirmación del puente. Un error vuelve a encolar el trabajo hasta agotar los intentos.
+     */
+    public void confirmar(ConfirmacionImpresionDTO confirmacion) {
+        if (confirmacion == null || confirmacion.trabajoId() == null) {
+            return;
+        }
+        Long id = confirmacion.trabajoId();
+        String impresora = jdbcTemplate.query(SQL_CONSULTAR_IMPRESORA, rs -> rs.next() ? rs.getString(1) : null, id);
+        if (impresora != null) {
+            saludImpresoras.registrarConfirmacion(impresora, id, confirmacion.ok());
+        }
+        if (confirmacion.ok()) {
+            if (jdbcTemplate.update(SQL_CONFIRMAR, Timestamp.valueOf(LocalDateTime.now()), id) > 0) {
+                logger.info("Trabajo de impresión {} confirmado por el puente", id);
+            }
+            if (impresora != null) {
+                programarDespacho(impresora); // Se liberó un hueco
+            }
+            return;
+        }
+
+        String error = recortar(confirmacion.error());
+        jdbcTemplate.update(SQL_REGISTRAR_ERROR, MAX_INTENTOS_CON_ERROR, error, id);
+        int[] errores = new int[1];
+        String estado = jdbcTemplate.query(SQL_CONSULTAR_ESTADO, rs -> {
+            if (!rs.next()) {
+                return null;
+            }
+            errores[0] = rs.getInt(2);
+            return rs.getString(1);
+        }, id);
+        if (impresora == null) {
+            return;
+        }
+        if (EstadoTrabajoImpresion.FALLIDO.name().equals(estado)) {
+            logger.error("Trabajo de impresión {} marcado como FALLIDO tras {} intentos: {}", id, MAX_INTENTOS_CON_ERROR, error);
+            programarDespacho(impresora);
+        } else if (EstadoTrabajoImpresion.ENCOLADO.name().equals(estado)) {
+            // Vuelve a competir por un hueco de su impresora después del backoff (SQL_SIGUIENTES no
+            // lo elige antes); el margen cubre el redondeo a segundos de la consulta
+            long espera = backoffError(errores[0]);
+            logger.warn("El puente no pudo imprimir el trabajo {} ({}), se reintenta en {} ms", id, error, espera);
+            programador.schedule(() -> despachar(impresora), espera + 1_000, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Reenvía los trabajos sin confirmar de las impresoras que atiende un puente que acaba de conectarse
+     * y despacha los que esperan. Sin impresoras, los de todas.
+     */
+    public void reenviarPendientes(Collection<String> impresoras) {
+        // Corre en el hilo del programador, como el resto del despacho
+        try {
+            programador.execute(() -> reenviar(impresoras));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Cola de impresión detenida, no se reenvían pendientes");
+        }
+    }
+
+    private void reenviar(Collection<String> impresoras) {
+        try {
+            boolean todas = impresoras == null || impresoras.isEmpty();
+            List<TrabajoImpresion> enVuelo = todas
+                    ? trabajoImpresionRepository.findByEstadoInOrderByIdAsc(EN_VUELO)
+                    : trabajoImpresionRepository.findByImpresoraInAndEstadoInOrderByIdAsc(impresoras, EN_VUELO);
+            if (!enVuelo.isEmpty()) {
+                logger.info("Puente conectado: reenviando {} trabajos de impresión sin confirmar", enVuelo.size());
+            }
+            for (TrabajoImpresion trabajo : enVuelo) {
+                enviar(trabajo);
+            }
+            Collection<String> aDespachar = todas
+                    ? jdbcTemplate.queryForList(SQL_IMPRESORAS_CON_ENCOLADOS, String.class)
+                    : impresoras;
+            aDespachar.forEach(this::despachar);
+        } catch (Exception e) {
+            logger.error("Error reenviando los trabajos de impresión pendientes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Vuelve a encolar un trabajo FALLIDO.
+     */
+    public void reintentar(Long id) {
+        if (jdbcTemplate.update(SQL_REINTENTAR, id) == 0) {
+            throw new ResourceNotFoundException("No hay un trabajo de impresión fallido con id: " + id);
+        }
+        String impresora = jdbcTemplate.query(SQL_CONSULTAR_IMPRESORA, rs -> rs.next() ? rs.getString(1) : null, id);
+        if (impresora != null) {
+            programarDespacho(impresora);
+        }
+    }
+
+    /**
+     * Trabajos sin confirmar agrupados por impresora.
+     */
+    public List<BacklogImpresoraDTO> getBacklog() {
+        Map<String, long[]> conteos = new TreeMap<>();
+        Map<String, LocalDateTime> masAntiguos = new TreeMap<>();
+        for (Object[] fila : trabajoImpresionRepository.contarPendientesPorImpresora(EstadoTrabajoImpresion.CONFIRMADO)) {
+            String impresora = (String) fila[0];
+            EstadoTrabajoImpresion estado = (EstadoTrabajoImpresion) fila[1];
+            long cantidad = (Long) fila[2];
+            LocalDateTime fecha = (LocalDateTime) fila[3];
+            int columna = switch (estado) {
+                case PREPARANDO, ENCOLADO -> 0;
+                case ENVIADO -> 1;
+                default -> 2;
+            };
+            conteos.computeIfAbsent(impresora, k -> new long[3])[columna] += cantidad;
+            masAntiguos.merge(impresora, fecha, (a, b) -> a.isBefore(b) ? a : b);
+        }
+        List<BacklogImpresoraDTO> backlog = new ArrayList<>(conteos.size());
+        conteos.forEach((impresora, c) -> backlog.add(new BacklogImpresoraDTO(
+                impresora, destino(impresora), c[0], c[1], c[2], masAntiguos.get(impresora))));
+        return backlog;
+    }
+
+    private void programarDespacho(String impresora) {
+        try {
+            programador.execute(() -> despachar(impresora));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Cola de impresión detenida, no se despacha {}", impresora);
+        }
+    }
+
+    // Llena los huecos libres de la impresora con los trabajos encolados de mayor prioridad efectiva.
+    // Sin huecos, si la impresora no está sana lo que espera pasa a su respaldo.
+    private void despachar(String impresora) {
+        try {
+            Integer enVuelo = jdbcTemplate.queryForObject(SQL_CONTAR_EN_VUELO, Integer.class, impresora);
+            Integer encolados = jdbcTemplate.queryForObject(SQL_CONTAR_ENCOLADOS, Integer.class, impresora);
+            int enviados = enVuelo != null ? enVuelo : 0;
+            saludImpresoras.registrarBacklog(impresora, encolados != null ? encolados : 0, enviados);
+            int huecos = MAX_EN_VUELO - enviados;
+            if (huecos <= 0) {
+                if (encolados != null && encolados > 0) {
+                    desviarEncolados(impresora);
+                }
+                return;
+            }
+            Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+            List<Long> siguientes = jdbcTemplate.queryForList(SQL_SIGUIENTES, Long.class, impresora, ahora, ahora, huecos);
+            for (Long id : siguientes) {
+                enviar(id);
+            }
+        } catch (Exception e) {
+            logger.error("Error despachando los trabajos de la impresora {}: {}", impresora, e.getMessage());
+        }
+    }
+
+    private void desviarEncolados(String impresora) throws JsonProcessingException {
+        String elegida = saludImpresoras.destinoPara(impresora);
+        if (elegida.equals(impresora)) {
+            return;
+        }
+        int desviados = 0;
+        for (TrabajoImpresion trabajo : trabajoImpresionRepository.findByImpresoraInAndEstadoInOrderByIdAsc(List.of(impresora), EN_ESPERA)) {
+            ObjectNode mensaje = (ObjectNode) objectMapper.readTree(trabajo.getPayload());
+            mensaje.put("printerTarget", elegida);
+            desviados += jdbcTemplate.update(SQL_REASIGNAR, elegida, objectMapper.writeValueAsString(mensaje), trabajo.getId());
+        }
+        if (desviados > 0) {
+            logger.warn("{} trabajos de impresión encolados desviados de {} a {}", desviados, impresora, elegida);
+            programarDespacho(elegida);
+        }
+    }
+
+    private void enviar(Long id) {
+        trabajoImpresionRepository.findById(id).ifPresent(this::enviar);
+    }
+
+    private void enviar(TrabajoImpresion trabajo) {
+        try {
+            ObjectNode mensaje = (ObjectNode) objectMapper.readTree(trabajo.getPayload());
+            String impresora = trabajo.getImpresora();
+            String elegida = saludImpresoras.destinoPara(impresora);
+            if (!elegida.equals(impresora)) {
+                // La impresora no está sana: el trabajo pasa a su respaldo
+                mensaje.put("printerTarget", elegida);
+                if (jdbcTemplate.update(SQL_REASIGNAR, elegida, objectMapper.writeValueAsString(mensaje), trabajo.getId()) == 0) {
+                    return; // Ya confirmado o fallido
+                }
+                saludImpresoras.registrarReasignacion(impresora, trabajo.getId());
+                logger.warn("Trabajo de impresión {} desviado de {} a {}", trabajo.getId(), impresora, elegida);
+                impresora = elegida;
+            }
+            if (jdbcTemplate.update(SQL_MARCAR_ENVIADO, Timestamp.valueOf(LocalDateTime.now()), trabajo.getId()) == 0) {
+                return; // Ya confirmado o fallido
+            }
+            mensaje.put("trabajoId", trabajo.getId());
+            saludImpresoras.registrarEnvio(impresora, trabajo.getId());
+            webSocketService.sendPrintJob(destino(impresora), mensaje);
+        } catch (Exception e) {
+            // Queda ENVIADO sin confirmar: el barrido lo vuelve a intentar
+            logger.error("Error enviando el trabajo de impresión {}: {}", trabajo.getId(), e.getMessage());
+        }
+    }
+
+    // Reenvía lo que lleva demasiado tiempo sin confirmar, libera lo que no se preparó, despacha lo que espera
+    // y purga los confirmados antiguos
+    private void barrer() {
+        try {
+            LocalDateTime limite = LocalDateTime.now().minusSeconds(ESPERA_CONFIRMACION_S);
+            List<TrabajoImpresion> sinConfirmar = trabajoImpresionRepository.findEnviadosAntesDe(
+                    limite, EstadoTrabajoImpresion.ENVIADO);
+            if (!sinConfirmar.isEmpty()) {
+                logger.warn("{} trabajos de impresión sin confirmar, se reenvían", sinConfirmar.size());
+            }
+            for (TrabajoImpresion trabajo : sinConfirmar) {
+                enviar(trabajo);
+            }
+            // Tickets guardados con su pedido que no se llegaron a renderizar (caída o error): salen tal cual
+            Timestamp limitePreparacion = Timestamp.valueOf(LocalDateTime.now().minusSeconds(ESPERA_PREPARACION_S));
+            int liberados = jdbcTemplate.update(SQL_LIBERAR_PREPARANDO, limitePreparacion);
+            if (liberados > 0) {
+                logger.warn("{} trabajos de impresión sin renderizar se encolan para el puente", liberados);
+            }
+            for (String impresora : jdbcTemplate.queryForList(SQL_IMPRESORAS_CON_ENCOLADOS, String.class)) {
+                despachar(impresora);
+            }
+            jdbcTemplate.update(SQL_PURGAR, Timestamp.valueOf(LocalDateTime.now().minusDays(DIAS_RETENCION_CONFIRMADOS)));
+        } catch (Exception e) {
+            logger.error("Error en el barrido de la cola de impresión: {}", e.getMessage());
+        }
+    }
+
+    private static long backoffError(int errores) {
+        return Math.min(BACKOFF_ERROR_MAXIMO_MS, BACKOFF_ERROR_MS << Math.min(Math.max(errores - 1, 0), 10));
+    }
+
+    private static String recortar(String error) {
+        if (error == null) {
+            return "Error desconocido";
+        }
+        return error.length() > LARGO_MAXIMO_ERROR ? error.substring(0, LARGO_MAXIMO_ERROR) : error;
+    }
+
+    @PreDestroy
+    public void detener() {
+        programador.shutdownNow();
+    }
+}
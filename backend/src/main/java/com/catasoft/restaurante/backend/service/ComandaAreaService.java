@@ -3,17 +3,17 @@ package com.catasoft.restaurante.backend.service;
 import com.catasoft.restaurante.backend.model.ComandaArea;
 import com.catasoft.restaurante.backend.model.ComandaAreaItem;
 import com.catasoft.restaurante.backend.model.ComandaArea.EstadoComandaArea;
-import com.catasoft.restaurante.backend.model.PreparationArea;
 import com.catasoft.restaurante.backend.repository.ComandaAreaRepository;
 import com.catasoft.restaurante.backend.repository.ComandaAreaItemRepository;
-import com.catasoft.restaurante.backend.repository.PreparationAreaRepository;
 import com.catasoft.restaurante.backend.model.Comanda;
 import com.catasoft.restaurante.backend.model.enums.EstadoComanda;
+import com.catasoft.restaurante.backend.model.enums.TipoTrabajoImpresion;
 import com.catasoft.restaurante.backend.repository.ComandaRepository;
 import com.catasoft.restaurante.backend.dto.ComandaResponseDTO;
+import com.catasoft.restaurante.backend.dto.ComandaAreaFilaDTO;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -22,39 +22,50 @@ import java.util.stream.Collectors;
 import com.catasoft.restaurante.backend.dto.ComandaAreaResponseDTO;
 import com.catasoft.restaurante.backend.dto.ComandaItemResponseDTO;
 import com.catasoft.restaurante.backend.model.dto.PrintJobDTO;
-import com.catasoft.restaurante.backend.service.WebSocketService;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.ArrayList;
 import java.util.Map;
-import com.catasoft.restaurante.backend.service.PrinterConfigurationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
-import com.catasoft.restaurante.backend.dto.TicketTemplateDTO;
-import com.catasoft.restaurante.backend.service.TicketTemplateService;
 
 @Service
 public class ComandaAreaService {
     private static final Logger log = LoggerFactory.getLogger(ComandaAreaService.class);
 
+    // Mesa fantasma usada para las ventas rápidas
+    private static final Long MESA_VENTA_RAPIDA = 9999L;
+
+    // Tipos de ticket de comanda de área (ticketData.tipoTicket)
+    public static final String TICKET_ORIGINAL = "ORIGINAL";
+    public static final String TICKET_ADICION = "ADICION";
+    public static final String TICKET_REIMPRESION = "REIMPRESION";
+
     @Autowired
     private ComandaAreaRepository comandaAreaRepository;
     @Autowired
     private ComandaAreaItemRepository comandaAreaItemRepository;
     @Autowired
-    private PreparationAreaRepository preparationAreaRepository;
+    private CatalogoAreasService catalogoAreasService;
+    @Autowired
+    private EventosAreaService eventosAreaService;
+    @Autowired
+    private SeguimientoComandasService seguimientoComandasService;
+    @Autowired
+    private MetricasCocinaService metricasCocinaService;
     @Autowired
     private ComandaRepository comandaRepository;
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private NotificacionOutboxService notificacionOutbox;
     @Autowired
-    private WebSocketService webSocketService;
+    private DespachoImpresionService despachoImpresionService;
     @Autowired
-    private PrinterConfigurationService printerConfigService;
+    private CatalogoImpresionService catalogoImpresion;
     @Autowired
-    private TicketTemplateService ticketTemplateService;
+    private RondasImpresionService rondasImpresionService;
 
     public List<ComandaArea> findAll() {
         return comandaAreaRepository.findAll();
@@ -68,12 +79,42 @@ public class ComandaAreaService {
         return comandaAreaRepository.findByAreaIdAndStatus(areaId, status);
     }
 
+    // Las altas, ediciones y bajas manuales también mantienen comandas.areas_pendientes
+    @Transactional
     public ComandaArea save(ComandaArea ca) {
-        return comandaAreaRepository.save(ca);
+        ComandaArea guardada = comandaAreaRepository.save(ca);
+        aplicarTransicion(guardada.getComanda(), null, guardada.getStatus());
+        return guardada;
+    }
+
+    @Transactional
+    public Optional<ComandaArea> update(Long id, ComandaArea ca) {
+        return comandaAreaRepository.findById(id).map(existente -> {
+            EstadoComandaArea anterior = existente.getStatus();
+            Comanda comandaAnterior = existente.getComanda();
+            ca.setId(id);
+            ComandaArea guardada = comandaAreaRepository.save(ca);
+            if (!comandaAnterior.getId().equals(guardada.getComanda().getId())) {
+                // El área cambió de comanda: sale de la anterior y entra en la nueva
+                aplicarTransicion(comandaAnterior, anterior, EstadoComandaArea.DELIVERED);
+                aplicarTransicion(guardada.getComanda(), null, guardada.getStatus());
+            } else if (anterior != guardada.getStatus()) {
+                aplicarTransicion(guardada.getComanda(), anterior, guardada.getStatus());
+                eventosAreaService.estadoCambiado(guardada);
+            }
+            return guardada;
+        });
     }
 
+    @Transactional
     public void delete(Long id) {
-        comandaAreaRepository.deleteById(id);
+        comandaAreaRepository.findById(id).ifPresent(existente -> {
+            Comanda comanda = existente.getComanda();
+            EstadoComandaArea anterior = existente.getStatus();
+            comandaAreaRepository.delete(existente);
+            // Un área pendiente que se borra deja de contar, igual que si se hubiera terminado
+            aplicarTransicion(comanda, anterior, EstadoComandaArea.DELIVERED);
+        });
     }
 
     // --- Items ---
@@ -89,63 +130,81 @@ public class ComandaAreaService {
         comandaAreaItemRepository.deleteById(id);
     }
 
+    /**
+     * Payload completo de la pantalla de cocina de un área.
+     * Comandas de área e items salen de una sola consulta con proyección por constructor;
+     * el nombre del área se toma del catálogo en memoria.
+     */
     public List<ComandaAreaResponseDTO> getComandasPorArea(Long areaId) {
-        log.debug("Buscando comandas para área ID: {}", areaId);
-        
-        // Primero, obtener el areaId string correspondiente al ID numérico
-        Optional<PreparationArea> area = preparationAreaRepository.findById(areaId);
-        if (!area.isPresent()) {
+        return getPantallaCocina(areaId).comandas();
+    }
+
+    /**
+     * Foto de la pantalla de un área junto con la secuencia de /topic/area/{areaId} vigente
+     * antes de consultarla. El cliente aplica encima los eventos con secuencia mayor.
+     */
+    public record PantallaCocina(String areaId, long secuencia, List<ComandaAreaResponseDTO> comandas) {
+    }
+
+    public PantallaCocina getPantallaCocina(Long areaId) {
+        Optional<CatalogoAreasService.AreaInfo> area = catalogoAreasService.findById(areaId);
+        if (area.isEmpty()) {
             log.warn("Área no encontrada para ID: {}", areaId);
-            return List.of();
+            return new PantallaCocina(null, 0L, List.of());
         }
-        
-        String areaIdString = area.get().getAreaId();
-        log.debug("Buscando comandas para área string: {}", areaIdString);
-        
+        // Leer la secuencia antes de la consulta: un evento repetido es inocuo, uno perdido no
+        long secuencia = eventosAreaService.getSecuencia(area.get().areaId());
+
         // Filtrar comandas que no están entregadas, listas, y que no son ventas rápidas (mesa fantasma)
-        List<ComandaArea> comandas = comandaAreaRepository.findByAreaIdAndStatusNotIn(areaIdString, List.of(EstadoComandaArea.DELIVERED, EstadoComandaArea.READY))
-            .stream()
-            .filter(ca -> {
-                // Excluir ventas rápidas (mesa fantasma - mesaId 9999 o null)
-                Long mesaId = ca.getComanda().getMesa().getId();
-                return mesaId != null && mesaId != 9999;
-            })
-            .collect(Collectors.toList());
-        
-        System.out.println("Comandas encontradas para área " + areaIdString + " (excluyendo ventas rápidas): " + comandas.size());
-        
-        for (ComandaArea ca : comandas) {
-            System.out.println("Comanda encontrada - ID: " + ca.getId() + 
-                             ", AreaId: " + ca.getAreaId() + 
-                             ", Status: " + ca.getStatus() +
-                             ", MesaId: " + ca.getComanda().getMesa().getId());
+        List<ComandaAreaFilaDTO> filas = comandaAreaRepository.findFilasPantallaCocina(
+            area.get().areaId(), List.of(EstadoComandaArea.DELIVERED, EstadoComandaArea.READY), MESA_VENTA_RAPIDA);
+
+        Map<Long, ComandaAreaResponseDTO> porComandaArea = new LinkedHashMap<>();
+        for (ComandaAreaFilaDTO fila : filas) {
+            ComandaAreaResponseDTO dto = porComandaArea.computeIfAbsent(fila.comandaAreaId(), id -> {
+                ComandaAreaResponseDTO cabecera = new ComandaAreaResponseDTO();
+                cabecera.setId(fila.comandaAreaId());
+                cabecera.setComandaId(fila.comandaId());
+                cabecera.setAreaId(area.get().id());
+                cabecera.setAreaNombre(area.get().nombre());
+                cabecera.setMesaId(fila.mesaId());
+                cabecera.setEstado(fila.estado().name());
+                cabecera.setFechaCreacion(fila.fechaCreacion().toString());
+                cabecera.setItems(new ArrayList<>());
+                return cabecera;
+            });
+            if (fila.itemId() != null) {
+                ComandaAreaResponseDTO.ComandaAreaItemDTO item = new ComandaAreaResponseDTO.ComandaAreaItemDTO();
+                item.setId(fila.itemId());
+                item.setProductoId(fila.productoId());
+                item.setProductoNombre(fila.productoNombre());
+                item.setCantidad(fila.cantidad());
+                item.setObservaciones(fila.notas());
+                item.setEsNuevo(esItemNuevo(fila.fechaCreacionItem(), fila.fechaCreacionComanda()));
+                dto.getItems().add(item);
+            }
         }
-        
-        List<ComandaAreaResponseDTO> result = comandas.stream()
-            .map(this::convertToResponseDTO)
-            .collect(Collectors.toList());
-        
-        System.out.println("DTOs convertidos: " + result.size());
-        return result;
+
+        if (log.isDebugEnabled()) {
+            log.debug("Pantalla de cocina área {}: {} comandas, {} filas", area.get().areaId(), porComandaArea.size(), filas.size());
+        }
+        return new PantallaCocina(area.get().areaId(), secuencia, new ArrayList<>(porComandaArea.values()));
     }
 
     public ComandaAreaResponseDTO convertToResponseDTO(ComandaArea comandaArea) {
-        System.out.println("Convirtiendo ComandaArea ID: " + comandaArea.getId());
-        
         ComandaAreaResponseDTO dto = new ComandaAreaResponseDTO();
         dto.setId(comandaArea.getId());
         dto.setComandaId(comandaArea.getComanda().getId());
         
-        // Buscar el área por areaId string para obtener el ID numérico
-        Optional<PreparationArea> area = preparationAreaRepository.findByAreaId(comandaArea.getAreaId());
+        // Resolver el ID numérico y el nombre del área desde el catálogo en memoria
+        Optional<CatalogoAreasService.AreaInfo> area = catalogoAreasService.findByAreaId(comandaArea.getAreaId());
         if (area.isPresent()) {
-            dto.setAreaId(area.get().getId());
-            dto.setAreaNombre(area.get().getName());
-            System.out.println("Nombre de área encontrado: " + area.get().getName());
+            dto.setAreaId(area.get().id());
+            dto.setAreaNombre(area.get().nombre());
         } else {
             dto.setAreaId(0L); // Valor por defecto
             dto.setAreaNombre("Área " + comandaArea.getAreaId());
-            System.out.println("Área no encontrada para areaId: " + comandaArea.getAreaId());
+            log.debug("Área no encontrada para areaId: {}", comandaArea.getAreaId());
         }
         
         dto.setMesaId(comandaArea.getComanda().getMesa().getId());
@@ -154,93 +213,110 @@ public class ComandaAreaService {
         
         // Convertir items
         List<ComandaAreaItem> items = comandaAreaItemRepository.findByComandaAreaId(comandaArea.getId());
-        System.out.println("Items encontrados para ComandaArea " + comandaArea.getId() + ": " + items.size());
-        
+        LocalDateTime fechaCreacionComanda = comandaArea.getComanda().getFechaHoraCreacion();
         dto.setItems(items.stream()
-            .map(this::convertItemToDTO)
+            .map(item -> convertItemToDTO(item, fechaCreacionComanda))
             .collect(Collectors.toList()));
         
-        System.out.println("DTO convertido exitosamente para ComandaArea ID: " + comandaArea.getId());
         return dto;
     }
 
-    private ComandaAreaResponseDTO.ComandaAreaItemDTO convertItemToDTO(ComandaAreaItem item) {
+    private ComandaAreaResponseDTO.ComandaAreaItemDTO convertItemToDTO(ComandaAreaItem item, LocalDateTime fechaCreacionComanda) {
         ComandaAreaResponseDTO.ComandaAreaItemDTO dto = new ComandaAreaResponseDTO.ComandaAreaItemDTO();
         dto.setId(item.getId());
         dto.setProductoId(item.getProducto().getId());
         dto.setProductoNombre(item.getProducto().getNombre());
         dto.setCantidad(item.getQuantity());
         dto.setObservaciones(item.getNotes());
-        
-        // Marcar como nuevo si el item fue creado después de la fecha de creación de la comanda
-        Comanda comanda = item.getComandaArea().getComanda();
-        LocalDateTime fechaCreacionComanda = comanda.getFechaHoraCreacion();
-        
-        System.out.println("=== DEBUG ITEM NUEVO ===");
-        System.out.println("Item: " + item.getProducto().getNombre());
-        System.out.println("Fecha creación item: " + item.getCreatedAt());
-        System.out.println("Fecha creación comanda: " + fechaCreacionComanda);
-        
-        // Un item es nuevo si fue creado más de 1 minuto después de la creación de la comanda
-        if (item.getCreatedAt() != null && fechaCreacionComanda != null && 
-            item.getCreatedAt().isAfter(fechaCreacionComanda.plusMinutes(1))) {
-            dto.setEsNuevo(true);
-            System.out.println("Item marcado como NUEVO: " + item.getProducto().getNombre());
-        } else {
-            dto.setEsNuevo(false);
-            System.out.println("Item NO marcado como nuevo: " + item.getProducto().getNombre());
-        }
-        
+        dto.setEsNuevo(esItemNuevo(item.getCreatedAt(), fechaCreacionComanda));
         return dto;
     }
 
+    // Un item es nuevo si fue creado más de 1 minuto después de la creación de la comanda
+    static boolean esItemNuevo(LocalDateTime fechaCreacionItem, LocalDateTime fechaCreacionComanda) {
+        return fechaCreacionItem != null && fechaCreacionComanda != null
+            && fechaCreacionItem.isAfter(fechaCreacionComanda.plusMinutes(1));
+    }
+
     // --- Métodos para cambio de estado ---
+    // El estado del área y el contador de áreas pendientes de la comanda se actualizan en la misma transacción
+    @Transactional
     public ComandaArea startPreparation(Long comandaAreaId) {
         ComandaArea comandaArea = comandaAreaRepository.findById(comandaAreaId)
             .orElseThrow(() -> new RuntimeException("ComandaArea no encontrada"));
         
+        EstadoComandaArea anterior = comandaArea.getStatus();
         comandaArea.startPreparation();
-        return comandaAreaRepository.save(comandaArea);
+        ComandaArea guardada = comandaAreaRepository.save(comandaArea);
+        seguimientoComandasService.registrarTransicion(comandaArea.getComanda().getId(), anterior, guardada.getStatus());
+        if (anterior != guardada.getStatus()) {
+            metricasCocinaService.registrarInicio(guardada);
+        }
+        eventosAreaService.estadoCambiado(guardada);
+        return guardada;
     }
 
+    @Transactional
     public ComandaArea markAsReady(Long comandaAreaId) {
-        ComandaArea comandaArea = comandaAreaRepository.findById(comandaAreaId)
+        // Los items vienen en la misma consulta: las métricas por producto no agregan otra
+        ComandaArea comandaArea = comandaAreaRepository.findByIdWithItems(comandaAreaId)
             .orElseThrow(() -> new RuntimeException("ComandaArea no encontrada"));
         
+        EstadoComandaArea anterior = comandaArea.getStatus();
         comandaArea.markAsReady();
         comandaAreaRepository.save(comandaArea);
+        if (anterior != comandaArea.getStatus()) {
+            metricasCocinaService.registrarLista(comandaArea, comandaArea.getItems());
+        }
+        eventosAreaService.estadoCambiado(comandaArea);
         
-        // Verificar si todas las áreas de la comanda están listas
+        // El contador de áreas pendientes indica si esta era la última área de la comanda
         Long comandaId = comandaArea.getComanda().getId();
-        List<ComandaArea> areas = comandaAreaRepository.findByComandaId(comandaId);
-        boolean todasListas = areas.stream().allMatch(a -> a.getStatus() == EstadoComandaArea.READY);
-        
-        System.out.println("Comanda ID: " + comandaId + ", Total áreas: " + areas.size() + ", Todas listas: " + todasListas);
+        boolean todasListas = seguimientoComandasService.registrarTransicion(comandaId, anterior, comandaArea.getStatus());
+        log.debug("Comanda ID: {}, área {} lista, todas listas: {}", comandaId, comandaArea.getAreaId(), todasListas);
         
         if (todasListas) {
-            // Marcar la comanda principal como LISTA y notificar a caja
-            Comanda comanda = comandaArea.getComanda();
-            comanda.setEstado(EstadoComanda.LISTA);
-            comanda.setFechaUltimaLista(LocalDateTime.now());
-            comandaRepository.save(comanda);
-            
-            // Notificar a caja vía WebSocket
-            ComandaResponseDTO dto = mapToComandaResponseDTO(comanda);
-            messagingTemplate.convertAndSend("/topic/caja", dto);
-            messagingTemplate.convertAndSend("/topic/general", dto);
-            
-            System.out.println("Comanda principal marcada como LISTA y notificada a caja");
+            marcarComandaLista(comandaArea.getComanda());
         }
         
         return comandaArea;
     }
 
+    // Registra la transición en el contador y, si era la última área pendiente, marca la comanda lista
+    private void aplicarTransicion(Comanda comanda, EstadoComandaArea anterior, EstadoComandaArea nuevo) {
+        if (seguimientoComandasService.registrarTransicion(comanda.getId(), anterior, nuevo)) {
+            marcarComandaLista(comanda);
+        }
+    }
+
+    // Marcar la comanda principal como LISTA y notificar a caja
+    private void marcarComandaLista(Comanda comanda) {
+        comanda.setEstado(EstadoComanda.LISTA);
+        comanda.setFechaUltimaLista(LocalDateTime.now());
+        comandaRepository.save(comanda);
+        
+        // Notificar a caja vía WebSocket
+        ComandaResponseDTO dto = mapToComandaResponseDTO(comanda);
+        notificacionOutbox.publicar("/topic/caja", "comanda-" + comanda.getId(), dto);
+        notificacionOutbox.publicar("/topic/general", "comanda-" + comanda.getId(), dto);
+        
+        log.info("Comanda {} marcada como LISTA y notificada a caja", comanda.getId());
+    }
+
+    @Transactional
     public ComandaArea markAsDelivered(Long comandaAreaId) {
         ComandaArea comandaArea = comandaAreaRepository.findById(comandaAreaId)
             .orElseThrow(() -> new RuntimeException("ComandaArea no encontrada"));
         
+        EstadoComandaArea anterior = comandaArea.getStatus();
         comandaArea.markAsDelivered();
-        return comandaAreaRepository.save(comandaArea);
+        ComandaArea guardada = comandaAreaRepository.save(comandaArea);
+        seguimientoComandasService.registrarTransicion(comandaArea.getComanda().getId(), anterior, guardada.getStatus());
+        if (anterior != guardada.getStatus()) {
+            metricasCocinaService.registrarEntrega(guardada);
+        }
+        eventosAreaService.estadoCambiado(guardada);
+        return guardada;
     }
 
     private ComandaResponseDTO mapToComandaResponseDTO(Comanda comanda) {
@@ -267,34 +343,62 @@ public class ComandaAreaService {
     public void imprimirComandaArea(Long comandaAreaId) {
         ComandaArea comandaArea = comandaAreaRepository.findById(comandaAreaId)
             .orElseThrow(() -> new RuntimeException("Comanda de área no encontrada"));
-        PrintJobDTO printJob = construirPrintJobDesdeComandaArea(comandaArea);
-        webSocketService.sendPrintJob(printJob);
+        imprimirComandaArea(comandaArea);
     }
 
-    private PrintJobDTO construirPrintJobDesdeComandaArea(ComandaArea comandaArea) {
-        String area = comandaArea.getAreaId();
-        String printerType = "COCINA";
-        String printerTarget = "default";
-        Long templateId = null;
-        if (area != null) {
-            Optional<com.catasoft.restaurante.backend.model.PrinterConfiguration> configOpt = printerConfigService.getConfigurationByArea(area);
-            if (configOpt.isPresent()) {
-                var config = configOpt.get();
-                printerType = config.getPrinterType();
-                printerTarget = config.getPrinterTarget();
-                templateId = config.getTemplateId();
-            }
+    /**
+     * Encola la impresión del ticket completo de una comanda de área en el pipeline de impresión.
+     * El primero es el ticket original; los siguientes salen marcados como reimpresión.
+     * El ticket se guarda con la transacción actual y se renderiza y envía después del commit.
+     */
+    public void imprimirComandaArea(ComandaArea comandaArea) {
+        Long comandaAreaId = comandaArea.getId();
+        int ronda = rondasImpresionService.abrirRonda(comandaAreaId);
+        String tipo = ronda <= 1 ? TICKET_ORIGINAL : TICKET_REIMPRESION;
+        TipoTrabajoImpresion prioridad = ronda <= 1 ? TipoTrabajoImpresion.COMANDA : TipoTrabajoImpresion.REIMPRESION;
+        despachoImpresionService.encolar("comanda-area " + comandaAreaId, prioridad, () -> {
+            ComandaArea actual = comandaAreaRepository.findById(comandaAreaId)
+                .orElseThrow(() -> new RuntimeException("Comanda de área no encontrada"));
+            return construirPrintJobDesdeComandaArea(actual, comandaAreaItemRepository.findByComandaAreaId(comandaAreaId), tipo, ronda);
+        });
+    }
+
+    /**
+     * Encola un ticket de adición con solo los ítems de la comanda de área que todavía no se imprimieron.
+     * No hace nada si no hay ítems nuevos.
+     */
+    public void imprimirAdicionComandaArea(ComandaArea comandaArea) {
+        Long comandaAreaId = comandaArea.getId();
+        int ronda = rondasImpresionService.abrirRondaAdicion(comandaAreaId);
+        if (ronda == 0) {
+            log.debug("Comanda de área {} sin ítems nuevos para imprimir", comandaAreaId);
+            return;
         }
+        despachoImpresionService.encolar("comanda-area " + comandaAreaId + " adicion " + ronda,
+                TipoTrabajoImpresion.ADICION, () -> {
+            ComandaArea actual = comandaAreaRepository.findById(comandaAreaId)
+                .orElseThrow(() -> new RuntimeException("Comanda de área no encontrada"));
+            List<ComandaAreaItem> items = comandaAreaItemRepository.findByComandaAreaIdAndRondaImpresion(comandaAreaId, ronda);
+            return construirPrintJobDesdeComandaArea(actual, items, TICKET_ADICION, ronda);
+        });
+    }
+
+    private PrintJobDTO construirPrintJobDesdeComandaArea(ComandaArea comandaArea, List<ComandaAreaItem> items, String tipo, int ronda) {
+        String area = comandaArea.getAreaId();
+        // Impresora y plantilla salen del catálogo en memoria, sin consultar la base de datos
+        CatalogoImpresionService.ImpresoraResuelta impresora = catalogoImpresion.resolverArea(area);
         String ticketType = "COCINA";
         Map<String, Object> ticketData = new HashMap<>();
         ticketData.put("comandaId", comandaArea.getComanda().getId());
         ticketData.put("nombreMesa", comandaArea.getComanda().getMesa().getNumero());
         ticketData.put("fechaHora", comandaArea.getComanda().getFechaHoraCreacion());
         ticketData.put("area", area); // Agregar el área a los datos del ticket
+        // Las adiciones referencian al ticket original de la comanda de área
+        ticketData.put("tipoTicket", tipo);
+        ticketData.put("ronda", ronda);
+        ticketData.put("ticketOriginal", comandaArea.getId());
         
-        // Cargar los items explícitamente usando el repositorio
-        List<ComandaAreaItem> items = comandaAreaItemRepository.findByComandaAreaId(comandaArea.getId());
-        System.out.println("Items encontrados para impresión en área " + area + ": " + items.size());
+        log.debug("Items encontrados para impresión en área {}: {}", area, items.size());
         
         List<Map<String, Object>> itemsList = new ArrayList<>();
         BigDecimal total = BigDecimal.ZERO;
@@ -311,29 +415,15 @@ public class ComandaAreaService {
             total = total.add(precioTotal);
             
             itemsList.add(itemMap);
-            System.out.println("Item agregado: " + item.getQuantity() + "x " + item.getProducto().getNombre() + " - $" + precioTotal);
         }
         
         ticketData.put("items", itemsList);
         ticketData.put("total", total);
         
-        System.out.println("Datos del ticket para impresión: " + ticketData);
-        System.out.println("Área: " + area + ", Total: $" + total);
-        
-        // Buscar la plantilla asignada a la impresora, o la por defecto del área
-        TicketTemplateDTO template = null;
-        if (templateId != null) {
-            template = ticketTemplateService.getTemplateById(templateId);
-            if (template != null) {
-                System.out.println("Plantilla personalizada encontrada para impresora: " + template.getName());
-            } else {
-                System.out.println("No se encontró la plantilla personalizada, usando la por defecto del área");
-                template = ticketTemplateService.getTemplateByArea(area);
-            }
-        } else {
-            template = ticketTemplateService.getTemplateByArea(area);
+        if (log.isDebugEnabled()) {
+            log.debug("Ticket de área {} para comanda {}: {} items, total {}", area, comandaArea.getComanda().getId(), itemsList.size(), total);
         }
         
-        return new PrintJobDTO(printerType, printerTarget, ticketType, ticketData, area, template);
+        return new PrintJobDTO(impresora.printerType(), impresora.printerTarget(), ticketType, ticketData, area, impresora.template());
     }
 } 
\ No newline at end of file
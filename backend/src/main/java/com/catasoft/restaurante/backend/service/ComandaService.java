@@ -19,13 +19,13 @@ import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -41,52 +41,67 @@ public class ComandaService {
 
     private final ComandaRepository comandaRepository;
     private final MesaRepository mesaRepository;
-    private final ProductoRepository productoRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final CatalogoProductosService catalogoProductosService;
+    private final NotificacionOutboxService notificacionOutbox;
     private final FacturaRepository facturaRepository;
     private final InventarioService inventarioService;
     private final WebSocketService webSocketService;
     private final PrinterConfigurationService printerConfigService;
     private final UsuarioRepository usuarioRepository;
     private final SystemConfigService systemConfigService;
-    private final ProductAreaRepository productAreaRepository;
+    private final EnrutamientoAreasService enrutamientoAreasService;
     private final ComandaAreaRepository comandaAreaRepository;
     private final ComandaAreaItemRepository comandaAreaItemRepository;
         private final ComandaAreaService comandaAreaService;
     private final DolarRateService dolarRateService;
+    private final EventosAreaService eventosAreaService;
+    private final SeguimientoComandasService seguimientoComandasService;
+    private final EstadoMesasService estadoMesasService;
+    private final VentasDiariasService ventasDiariasService;
+    private final CuboVentasService cuboVentasService;
     
     @Autowired
     public ComandaService(
             ComandaRepository comandaRepository,
             MesaRepository mesaRepository,
-            ProductoRepository productoRepository,
-            SimpMessagingTemplate messagingTemplate,
+            CatalogoProductosService catalogoProductosService,
+            NotificacionOutboxService notificacionOutbox,
             FacturaRepository facturaRepository,
             InventarioService inventarioService,
             WebSocketService webSocketService,
             PrinterConfigurationService printerConfigService,
             UsuarioRepository usuarioRepository,
             SystemConfigService systemConfigService,
-            ProductAreaRepository productAreaRepository,
+            EnrutamientoAreasService enrutamientoAreasService,
             ComandaAreaRepository comandaAreaRepository,
             ComandaAreaItemRepository comandaAreaItemRepository,
             ComandaAreaService comandaAreaService,
-            DolarRateService dolarRateService) {
+            DolarRateService dolarRateService,
+            EventosAreaService eventosAreaService,
+            SeguimientoComandasService seguimientoComandasService,
+            EstadoMesasService estadoMesasService,
+            VentasDiariasService ventasDiariasService,
+            CuboVentasService cuboVentasService) {
         this.comandaRepository = comandaRepository;
         this.mesaRepository = mesaRepository;
-        this.productoRepository = productoRepository;
-        this.messagingTemplate = messagingTemplate;
+        this.catalogoProductosService = catalogoProductosService;
+        this.notificacionOutbox = notificacionOutbox;
         this.facturaRepository = facturaRepository;
         this.inventarioService = inventarioService;
         this.webSocketService = webSocketService;
         this.printerConfigService = printerConfigService;
         this.usuarioRepository = usuarioRepository;
         this.systemConfigService = systemConfigService;
-        this.productAreaRepository = productAreaRepository;
+        this.enrutamientoAreasService = enrutamientoAreasService;
         this.comandaAreaRepository = comandaAreaRepository;
         this.comandaAreaItemRepository = comandaAreaItemRepository;
         this.comandaAreaService = comandaAreaService;
         this.dolarRateService = dolarRateService;
+        this.eventosAreaService = eventosAreaService;
+        this.seguimientoComandasService = seguimientoComandasService;
+        this.estadoMesasService = estadoMesasService;
+        this.ventasDiariasService = ventasDiariasService;
+        this.cuboVentasService = cuboVentasService;
     }
 
     // --- MÉTODO MAPPER RESTAURADO A SU FORMA ORIGINAL Y CORRECTA ---
@@ -129,6 +144,22 @@ public class ComandaService {
         return dto;
     }
 
+    // Clave de deduplicación del outbox: un único mensaje por comanda y transacción
+    private String claveComanda(Comanda comanda) {
+        return "comanda-" + comanda.getId();
+    }
+
+    // Cantidades del pedido agrupadas por producto, para descontar el stock de una sola vez
+    private Map<Long, Integer> cantidadesPorProducto(List<ItemRequestDTO> items) {
+        return items.stream().collect(Collectors.toMap(
+                ItemRequestDTO::getProductoId, ItemRequestDTO::getCantidad, Integer::sum));
+    }
+
+    private Map<Long, Integer> cantidadesPorProductoDeItems(List<ComandaItem> items) {
+        return items.stream().collect(Collectors.toMap(
+                item -> item.getProducto().getId(), ComandaItem::getCantidad, Integer::sum));
+    }
+
     // --- RESTO DE LA CLASE (SIN CAMBIOS) ---
 
     @Transactional
@@ -154,12 +185,15 @@ public class ComandaService {
         comanda.setEstado(EstadoComanda.EN_PROCESO);
         BigDecimal totalComanda = BigDecimal.ZERO;
 
-        for (ItemRequestDTO itemDTO : request.getItems()) {
-            Producto producto = productoRepository.findById(itemDTO.getProductoId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con id: " + itemDTO.getProductoId()));
+        // Resolver todos los productos del pedido en una sola pasada
+        Map<Long, Producto> productos = catalogoProductosService.resolver(
+                request.getItems().stream().map(ItemRequestDTO::getProductoId).collect(Collectors.toList()));
 
-            inventarioService.validarStockIngredientes(producto, itemDTO.getCantidad());
-            inventarioService.descontarStockIngredientes(producto, itemDTO.getCantidad());
+        // Descontar el stock de todo el pedido en un solo batch
+        inventarioService.descontarStockPedido(cantidadesPorProducto(request.getItems()));
+
+        for (ItemRequestDTO itemDTO : request.getItems()) {
+            Producto producto = productos.get(itemDTO.getProductoId());
 
             ComandaItem comandaItem = new ComandaItem();
             comandaItem.setProducto(producto);
@@ -178,21 +212,12 @@ public class ComandaService {
         if (mesa.getId() != 9999) {
             mesa.setEstado(EstadoMesa.OCUPADA);
             mesaRepository.save(mesa);
-            messagingTemplate.convertAndSend("/topic/mesas", mesa);
+            estadoMesasService.mesaCambiada(mesa);
         } else {
             logger.info("Venta rápida creada - manteniendo mesa 9999 en estado LIBRE");
         }
 
-        // --- ELIMINAR impresión automática de cocina aquí ---
-        // Solo notificar a cocina si no es una venta rápida
-        if (request.getMesaId() == null || request.getMesaId() != 9999) {
-            logger.info("Enviando notificación a /topic/cocina para nueva comanda ID: {}", comandaGuardada.getId());
-            messagingTemplate.convertAndSend("/topic/cocina", mapToComandaResponseDTO(comandaGuardada));
-        } else {
-            logger.info("Venta rápida detectada, saltando notificaciones a cocina");
-        }
-        logger.info("Enviando notificación a /topic/mesas para actualizar estado de mesa: {}", mesa.getNumero());
-        messagingTemplate.convertAndSend("/topic/mesas", "Mesa " + mesa.getNumero() + " actualizada a OCUPADA");
+        // Las pantallas de cocina se notifican por área (/topic/area/{areaId}) al dividir la comanda
         return mapToComandaResponseDTO(comandaGuardada);
     }
 
@@ -200,35 +225,29 @@ public class ComandaService {
      * Divide una comanda por áreas de preparación y crea comandas específicas por área
      */
     @Transactional
-    public void dividirComandaPorAreas(Long comandaId) {
+    public List<ComandaArea> dividirComandaPorAreas(Long comandaId) {
         Comanda comanda = comandaRepository.findById(comandaId)
                 .orElseThrow(() -> new ResourceNotFoundException("Comanda no encontrada con id: " + comandaId));
 
         logger.info("Iniciando división de comanda ID: {} con {} items", comandaId, comanda.getItems().size());
 
-        // Agrupar items por área de preparación
+        // Agrupar items por área de preparación usando la tabla de enrutamiento en memoria
         Map<String, List<ComandaItem>> itemsPorArea = comanda.getItems().stream()
                 .collect(Collectors.groupingBy(item -> {
-                    // Buscar la asignación producto-área
-                    List<ProductArea> asignaciones = productAreaRepository.findByProductoId(item.getProducto().getId());
-                    
-                    String areaId = asignaciones.stream()
-                            .findFirst()
-                            .map(productArea -> productArea.getAreaId())
-                            .orElse("sin-asignar");
-                    
+                    String areaId = enrutamientoAreasService.getAreaId(item.getProducto().getId());
                     logger.debug("Producto {} asignado a área: {}", item.getProducto().getNombre(), areaId);
                     return areaId;
                 }));
 
         logger.info("Items agrupados por área: {}", itemsPorArea.keySet());
+        List<ComandaArea> areasCreadas = new ArrayList<>();
 
         // Crear comandas por área
         for (Map.Entry<String, List<ComandaItem>> entry : itemsPorArea.entrySet()) {
             String areaId = entry.getKey();
             List<ComandaItem> items = entry.getValue();
 
-            if ("sin-asignar".equals(areaId)) {
+            if (EnrutamientoAreasService.SIN_ASIGNAR.equals(areaId)) {
                 logger.warn("Items sin asignación de área encontrados para comanda ID: {}", comandaId);
                 continue;
             }
@@ -244,9 +263,12 @@ public class ComandaService {
             comandaArea.setUpdatedAt(LocalDateTime.now());
 
             ComandaArea comandaAreaGuardada = comandaAreaRepository.save(comandaArea);
+            seguimientoComandasService.registrarAreaNueva(comandaId);
+            areasCreadas.add(comandaAreaGuardada);
             logger.info("Comanda por área creada con ID: {}", comandaAreaGuardada.getId());
 
             // Crear items de comanda por área
+            List<ComandaAreaItem> itemsGuardados = new ArrayList<>();
             for (ComandaItem item : items) {
                 ComandaAreaItem areaItem = new ComandaAreaItem();
                 areaItem.setComandaArea(comandaAreaGuardada);
@@ -258,13 +280,16 @@ public class ComandaService {
                 areaItem.setUpdatedAt(LocalDateTime.now());
 
                 ComandaAreaItem itemGuardado = comandaAreaItemRepository.save(areaItem);
+                itemsGuardados.add(itemGuardado);
                 logger.info("Item de comanda por área creado: Producto: {}, Cantidad: {}, ID: {}", 
                         item.getProducto().getNombre(), item.getCantidad(), itemGuardado.getId());
             }
+            eventosAreaService.ticketAgregado(comandaAreaGuardada, itemsGuardados);
 
             logger.info("Comanda por área completada: Comanda ID: {}, Área: {}, Items: {}", 
                     comandaId, areaId, items.size());
         }
+        return areasCreadas;
     }
 
     /**
@@ -276,15 +301,10 @@ public class ComandaService {
         ComandaResponseDTO comandaResponse = crearComanda(request);
         // Solo dividir por áreas si no es una venta rápida (mesa fantasma)
         if (request.getMesaId() != null && request.getMesaId() != 9999) {
-            dividirComandaPorAreas(comandaResponse.getId());
-            // --- NUEVO: Imprimir un ticket por cada área creada ---
-            List<ComandaArea> areas = comandaAreaRepository.findByComandaId(comandaResponse.getId());
+            List<ComandaArea> areas = dividirComandaPorAreas(comandaResponse.getId());
+            // Encolar un ticket por cada área creada; se imprimen después del commit
             for (ComandaArea area : areas) {
-                try {
-                    comandaAreaService.imprimirComandaArea(area.getId());
-                } catch (Exception e) {
-                    logger.error("Error imprimiendo ticket para área {} de comanda {}: {}", area.getAreaId(), area.getComanda().getId(), e.getMessage());
-                }
+                comandaAreaService.imprimirComandaArea(area);
             }
         } else {
             logger.info("Venta rápida detectada (mesaId: {}), saltando división por áreas", request.getMesaId());
@@ -298,9 +318,7 @@ public class ComandaService {
                 .orElseThrow(() -> new ResourceNotFoundException("Comanda no encontrada con id: " + comandaId));
         if (comanda.getItems().isEmpty()) return;
 
-        for (ComandaItem item : comanda.getItems()) {
-            inventarioService.restaurarStockIngredientes(item.getProducto(), item.getCantidad());
-        }
+        inventarioService.restaurarStockPedido(cantidadesPorProductoDeItems(comanda.getItems()));
 
         comanda.getItems().clear();
         comanda.setTotal(BigDecimal.ZERO);
@@ -414,7 +432,8 @@ public class ComandaService {
 
     @Transactional
     public ComandaResponseDTO updateEstadoComanda(Long id, Map<String, String> payload) {
-        Comanda comanda = comandaRepository.findById(id)
+        // Con la fila bloqueada, un segundo cobro simultáneo ve la comanda ya PAGADA y se rechaza
+        Comanda comanda = comandaRepository.findByIdParaActualizar(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Comanda no encontrada con id: " + id));
 
         String nuevoEstadoStr = payload.get("estado");
@@ -432,15 +451,13 @@ public class ComandaService {
             if (comanda.getEstado() == EstadoComanda.CANCELADA || comanda.getEstado() == EstadoComanda.PAGADA) {
                 throw new IllegalStateException("No se puede cancelar una comanda que ya está cancelada o pagada.");
             }
-            for (ComandaItem item : comanda.getItems()) {
-                inventarioService.restaurarStockIngredientes(item.getProducto(), item.getCantidad());
-            }
+            inventarioService.restaurarStockPedido(cantidadesPorProductoDeItems(comanda.getItems()));
             Mesa mesa = comanda.getMesa();
             // Solo cambiar el estado de la mesa si no es la mesa de venta rápida (9999)
             if (mesa.getId() != 9999) {
                 mesa.setEstado(EstadoMesa.LIBRE);
                 mesaRepository.save(mesa);
-                messagingTemplate.convertAndSend("/topic/mesas", mesa);
+                estadoMesasService.mesaCambiada(mesa);
             } else {
                 logger.info("Venta rápida cancelada - manteniendo mesa 9999 en estado LIBRE");
             }
@@ -456,7 +473,7 @@ public class ComandaService {
             if (mesa.getId() != 9999) {
                 mesa.setEstado(EstadoMesa.LIBRE);
                 mesaRepository.save(mesa);
-                messagingTemplate.convertAndSend("/topic/mesas", mesa);
+                estadoMesasService.mesaCambiada(mesa);
             } else {
                 logger.info("Venta rápida pagada - manteniendo mesa 9999 en estado LIBRE");
             }
@@ -479,26 +496,31 @@ public class ComandaService {
             Mesa mesa = comanda.getMesa();
             mesa.setEstado(EstadoMesa.LISTA_PARA_PAGAR);
             mesaRepository.save(mesa);
-            messagingTemplate.convertAndSend("/topic/mesas", mesa);
+            estadoMesasService.mesaCambiada(mesa);
         }
 
+        EstadoComanda estadoAnterior = comanda.getEstado();
         comanda.setEstado(nuevoEstado);
         Comanda comandaActualizada = comandaRepository.save(comanda);
-        ComandaResponseDTO dto = mapToComandaResponseDTO(comandaActualizada);
 
-        messagingTemplate.convertAndSend("/topic/general", dto);
-        if (nuevoEstado == EstadoComanda.LISTA || nuevoEstado == EstadoComanda.ENTREGADA) {
-            messagingTemplate.convertAndSend("/topic/caja", dto);
-        }
-        if (nuevoEstado == EstadoComanda.PAGADA || nuevoEstado == EstadoComanda.CANCELADA ||
-                nuevoEstado == EstadoComanda.LISTA || nuevoEstado == EstadoComanda.ENTREGADA) {
-            Mesa mesaActualizada = mesaRepository.findById(comanda.getMesa().getId()).orElseThrow();
-            messagingTemplate.convertAndSend("/topic/mesas", mesaActualizada);
+        // Resúmenes diarios de ventas, en la misma transacción que el cambio de estado y solo si
+        // el estado realmente pasó a PAGADA o dejó de serlo
+        // (el cubo de analítica lee la comanda, así que se actualiza recién tras el commit)
+        if (nuevoEstado == EstadoComanda.PAGADA && estadoAnterior != EstadoComanda.PAGADA) {
+            ventasDiariasService.registrarPago(comanda.getId(), comanda.getFechaHoraCreacion(), comanda.getTotal());
+            Long comandaId = comanda.getId();
+            TransaccionUtils.ejecutarTrasCommit(() -> cuboVentasService.registrarPago(comandaId));
+        } else if (estadoAnterior == EstadoComanda.PAGADA && nuevoEstado != EstadoComanda.PAGADA) {
+            ventasDiariasService.revertirPago(comanda.getId(), comanda.getFechaHoraCreacion(), comanda.getTotal());
+            LocalDate fecha = comanda.getFechaHoraCreacion().toLocalDate();
+            TransaccionUtils.ejecutarTrasCommit(() -> cuboVentasService.recargarDia(fecha));
         }
 
-        // Solo enviar a cocina si la comanda está EN_PROCESO
-        if (dto.getEstado().equals("EN_PROCESO")) {
-            messagingTemplate.convertAndSend("/topic/cocina", dto);
+        ComandaResponseDTO dto = mapToComandaResponseDTO(comandaActualizada);
+
+        notificacionOutbox.publicar("/topic/general", claveComanda(comandaActualizada), dto);
+        if (nuevoEstado == EstadoComanda.LISTA || nuevoEstado == EstadoComanda.ENTREGADA) {
+            notificacionOutbox.publicar("/topic/caja", claveComanda(comandaActualizada), dto);
         }
 
         return dto;
@@ -524,7 +546,7 @@ public class ComandaService {
             if (mesa.getId() != 9999) {
                 mesa.setEstado(EstadoMesa.OCUPADA);
                 mesaRepository.save(mesa);
-                messagingTemplate.convertAndSend("/topic/mesas", mesa);
+                estadoMesasService.mesaCambiada(mesa);
             } else {
                 logger.info("Agregando items a venta rápida - manteniendo mesa 9999 en estado LIBRE");
             }
@@ -533,12 +555,15 @@ public class ComandaService {
         // Lista para almacenar los nuevos items agregados
         List<ComandaItem> nuevosItems = new ArrayList<>();
 
-        for (ItemRequestDTO itemDTO : itemsRequest) {
-            Producto producto = productoRepository.findById(itemDTO.getProductoId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con id: " + itemDTO.getProductoId()));
+        // Resolver todos los productos a agregar en una sola pasada
+        Map<Long, Producto> productos = catalogoProductosService.resolver(
+                itemsRequest.stream().map(ItemRequestDTO::getProductoId).collect(Collectors.toList()));
+
+        // Descontar el stock de los items nuevos en un solo batch
+        inventarioService.descontarStockPedido(cantidadesPorProducto(itemsRequest));
 
-            inventarioService.validarStockIngredientes(producto, itemDTO.getCantidad());
-            inventarioService.descontarStockIngredientes(producto, itemDTO.getCantidad());
+        for (ItemRequestDTO itemDTO : itemsRequest) {
+            Producto producto = productos.get(itemDTO.getProductoId());
 
             ComandaItem comandaItem = new ComandaItem();
             comandaItem.setProducto(producto);
@@ -573,8 +598,6 @@ public class ComandaService {
             // No lanzar excepción para no afectar la operación principal
         }
 
-        messagingTemplate.convertAndSend("/topic/cocina", dto);
-
         return dto;
     }
 
@@ -584,16 +607,10 @@ public class ComandaService {
     private void actualizarComandasPorAreaConNuevosItems(Comanda comanda, List<ComandaItem> nuevosItems) {
         logger.info("Actualizando comandas por área para comanda {} con {} nuevos items", comanda.getId(), nuevosItems.size());
 
-        // Agrupar nuevos items por área de preparación
+        // Agrupar nuevos items por área de preparación usando la tabla de enrutamiento en memoria
         Map<String, List<ComandaItem>> nuevosItemsPorArea = nuevosItems.stream()
                 .collect(Collectors.groupingBy(item -> {
-                    // Buscar la asignación producto-área
-                    List<ProductArea> asignaciones = productAreaRepository.findByProductoId(item.getProducto().getId());
-                    String areaId = asignaciones.stream()
-                            .findFirst()
-                            .map(productArea -> productArea.getAreaId())
-                            .orElse("sin-asignar");
-                    
+                    String areaId = enrutamientoAreasService.getAreaId(item.getProducto().getId());
                     logger.debug("Nuevo item {} asignado a área: {}", item.getProducto().getNombre(), areaId);
                     return areaId;
                 }));
@@ -603,7 +620,7 @@ public class ComandaService {
             String areaId = entry.getKey();
             List<ComandaItem> items = entry.getValue();
 
-            if ("sin-asignar".equals(areaId)) {
+            if (EnrutamientoAreasService.SIN_ASIGNAR.equals(areaId)) {
                 logger.warn("Items sin asignación de área encontrados para comanda ID: {}", comanda.getId());
                 continue;
             }
@@ -617,6 +634,7 @@ public class ComandaService {
                 logger.info("Actualizando comanda por área existente ID: {} para área: {}", comandaArea.getId(), areaId);
 
                 // Agregar nuevos items a la comanda por área
+                List<ComandaAreaItem> itemsGuardados = new ArrayList<>();
                 for (ComandaItem item : items) {
                     ComandaAreaItem areaItem = new ComandaAreaItem();
                     areaItem.setComandaArea(comandaArea);
@@ -628,17 +646,15 @@ public class ComandaService {
                     areaItem.setUpdatedAt(LocalDateTime.now());
 
                     ComandaAreaItem itemGuardado = comandaAreaItemRepository.save(areaItem);
+                    itemsGuardados.add(itemGuardado);
                     logger.info("Nuevo item agregado a comanda por área: Producto: {}, Cantidad: {}, ID: {}", 
                             item.getProducto().getNombre(), item.getCantidad(), itemGuardado.getId());
                 }
+                eventosAreaService.itemsAgregados(comandaArea, itemsGuardados);
 
-                // Imprimir ticket actualizado para esta área
-                try {
-                    comandaAreaService.imprimirComandaArea(comandaArea.getId());
-                    logger.info("Ticket actualizado impreso para área: {}", areaId);
-                } catch (Exception e) {
-                    logger.error("Error imprimiendo ticket actualizado para área {}: {}", areaId, e.getMessage());
-                }
+                // Encolar ticket de adición solo con los items nuevos de esta área
+                comandaAreaService.imprimirAdicionComandaArea(comandaArea);
+                logger.info("Ticket de adición encolado para área: {}", areaId);
             } else {
                 // Crear nueva comanda por área
                 logger.info("Creando nueva comanda por área para comanda ID: {} y área: {}", comanda.getId(), areaId);
@@ -651,9 +667,11 @@ public class ComandaService {
                 comandaArea.setUpdatedAt(LocalDateTime.now());
 
                 ComandaArea comandaAreaGuardada = comandaAreaRepository.save(comandaArea);
+                seguimientoComandasService.registrarAreaNueva(comanda.getId());
                 logger.info("Nueva comanda por área creada con ID: {}", comandaAreaGuardada.getId());
 
                 // Crear items de comanda por área
+                List<ComandaAreaItem> itemsGuardados = new ArrayList<>();
                 for (ComandaItem item : items) {
                     ComandaAreaItem areaItem = new ComandaAreaItem();
                     areaItem.setComandaArea(comandaAreaGuardada);
@@ -665,17 +683,15 @@ public class ComandaService {
                     areaItem.setUpdatedAt(LocalDateTime.now());
 
                     ComandaAreaItem itemGuardado = comandaAreaItemRepository.save(areaItem);
+                    itemsGuardados.add(itemGuardado);
                     logger.info("Item de comanda por área creado: Producto: {}, Cantidad: {}, ID: {}", 
                             item.getProducto().getNombre(), item.getCantidad(), itemGuardado.getId());
                 }
+                eventosAreaService.ticketAgregado(comandaAreaGuardada, itemsGuardados);
 
-                // Imprimir ticket para la nueva área
-                try {
-                    comandaAreaService.imprimirComandaArea(comandaAreaGuardada.getId());
-                    logger.info("Ticket impreso para nueva área: {}", areaId);
-                } catch (Exception e) {
-                    logger.error("Error imprimiendo ticket para nueva área {}: {}", areaId, e.getMessage());
-                }
+                // Encolar ticket para la nueva área
+                comandaAreaService.imprimirComandaArea(comandaAreaGuardada);
+                logger.info("Ticket encolado para nueva área: {}", areaId);
             }
         }
 
@@ -0,0 +1,502 @@
+package com.catasoft.restaurante.backend.service;
+
+import com.catasoft.restaurante.backend.dto.HorasPicoVentasDTO;
+import com.catasoft.restaurante.backend.dto.MapaCalorVentasDTO;
+import com.catasoft.restaurante.backend.dto.RankingVentasDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Cubo en memoria de ventas pagadas por hora x producto x área x mesero.
+ * Cada día es una partición inmutable guardada por columnas (arreglos primitivos con las
+ * dimensiones codificadas), así el mapa de calor, las horas pico y los rankings recorren unos
+ * pocos miles de filas en memoria en lugar de agrupar comandas con SQL. El día y la hora son
+ * los de la creación de la comanda, igual que en los reportes de ventas; el área es la de la
+ * ComandaArea que llevó el producto (o la de enrutamiento si la comanda no pasó por áreas) y
+ * el mesero es el Usuario de la comanda.
+ * Al iniciar (o con reconstruir) se cargan los últimos dias-retenidos días en paralelo con
+ * fork/join, de a DIAS_POR_TAREA días por consulta; después cada pago suma su comanda a la
+ * partición de su día y cada pago revertido vuelve a leer ese día. Todas las escrituras pasan
+ * por un único hilo y publican un cubo nuevo de forma atómica, las consultas no bloquean.
+ */
+@Service
+public class CuboVentasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CuboVentasService.class);
+
+    private static final int DIAS_POR_TAREA = 7;
+    private static final int HORAS = 24;
+    private static final int DIAS_SEMANA = 7;
+    private static final int CUALQUIERA = -1;
+    private static final int NINGUNO = -2;
+
+    private static final String SQL_FILAS =
+            "SELECT c.id, c.fecha_creacion, i.producto_id, p.nombre, c.usuario_id, TRIM(CONCAT(u.nombre, ' ', u.apellido)), " +
+            "(SELECT MIN(ca.area_id) FROM comanda_areas ca JOIN comanda_area_items cai ON cai.comanda_area_id = ca.id " +
+            "WHERE ca.comanda_id = c.id AND cai.product_id = i.producto_id), " +
+            "i.cantidad, i.precio_unitario * i.cantidad " +
+            "FROM comanda_items i JOIN comandas c ON c.id = i.comanda_id " +
+            "JOIN productos p ON p.id = i.producto_id JOIN usuarios u ON u.id = c.usuario_id " +
+            "WHERE c.estado = 'PAGADA' ";
+    private static final String SQL_FILAS_RANGO = SQL_FILAS + "AND c.fecha_creacion >= ? AND c.fecha_creacion < ?";
+    private static final String SQL_FILAS_COMANDA = SQL_FILAS + "AND c.id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EnrutamientoAreasService enrutamientoAreasService;
+    private final CatalogoAreasService catalogoAreasService;
+    private final int diasRetenidos;
+    private final Dimension productos = new Dimension();
+    private final Dimension areas = new Dimension();
+    private final Dimension meseros = new Dimension();
+    private final AtomicReference<Cubo> cubo = new AtomicReference<>(new Cubo(0L, Collections.emptyNavigableMap()));
+    private final ForkJoinPool carga;
+    private final ExecutorService escrituras = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cubo-ventas");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CuboVentasService(JdbcTemplate jdbcTemplate, EnrutamientoAreasService enrutamientoAreasService,
+                             CatalogoAreasService catalogoAreasService,
+                             @Value("${analitica.dias-retenidos:730}") int diasRetenidos,
+                             @Value("${analitica.paralelismo:4}") int paralelismo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enrutamientoAreasService = enrutamientoAreasService;
+        this.catalogoAreasService = catalogoAreasService;
+        this.diasRetenidos = diasRetenidos;
+        // Pocos hilos de baja prioridad: la carga no debe quitarle conexiones ni CPU a los pedidos
+        this.carga = new ForkJoinPool(paralelismo, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("cubo-ventas-carga-" + thread.getPoolIndex());
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }, null, false);
+    }
+
+    public enum DimensionVentas {
+        PRODUCTO, AREA, MESERO
+    }
+
+    public enum MetricaVentas {
+        IMPORTE, UNIDADES
+    }
+
+    // Ventas de un día por columnas: una fila por combinación hora/producto/área/mesero.
+    // comandas son las comandas ya sumadas, para no contar dos veces un pago.
+    private record Particion(LocalDate fecha, Set<Long> comandas, byte[] hora, int[] producto, int[] area,
+                             int[] mesero, long[] unidades, long[] centavos) {
+        int filas() {
+            return hora.length;
+        }
+    }
+
+    private record Cubo(long version, NavigableMap<LocalDate, Particion> particiones) {
+    }
+
+    private record Celda(int hora, int producto, int area, int mesero) {
+    }
+
+    // Códigos de dimensión a aplicar como filtro (CUALQUIERA o NINGUNO si no hay que filtrar o no hay datos)
+    private record Filtro(int producto, int area, int mesero) {
+        boolean acepta(Particion particion, int fila) {
+            return (producto == CUALQUIERA || particion.producto()[fila] == producto)
+                    && (area == CUALQUIERA || particion.area()[fila] == area)
+                    && (mesero == CUALQUIERA || particion.mesero()[fila] == mesero);
+        }
+    }
+
+    /**
+     * Diccionario de una dimensión: clave (id o areaId) a código denso y su nombre más reciente.
+     * Solo crece, así los códigos de las particiones ya publicadas no cambian nunca.
+     */
+    private static final class Dimension {
+        private final Map<String, Integer> codigos = new HashMap<>();
+        private final List<String> claves = new ArrayList<>();
+        private final List<String> nombres = new ArrayList<>();
+
+        synchronized int codigo(String clave, String nombre) {
+            Integer codigo = codigos.get(clave);
+            if (codigo == null) {
+                codigo = claves.size();
+                codigos.put(clave, codigo);
+                claves.add(clave);
+                nombres.add(nombre);
+            } else if (nombre != null) {
+                nombres.set(codigo, nombre);
+            }
+            return codigo;
+        }
+
+        synchronized int buscar(String clave) {
+            if (clave == null) {
+                return CUALQUIERA;
+            }
+            Integer codigo = codigos.get(clave);
+            return codigo != null ? codigo : NINGUNO;
+        }
+
+        synchronized String clave(int codigo) {
+            return claves.get(codigo);
+        }
+
+        synchronized String nombre(int codigo) {
+            return nombres.get(codigo);
+        }
+
+        synchronized int tamanio() {
+            return claves.size();
+        }
+    }
+
+    // Acumula las filas de un día agrupando por celda antes de pasarlas a columnas
+    private static final class ConstructorParticion {
+        private final LocalDate fecha;
+        private final Set<Long> comandas = new HashSet<>();
+        private final Map<Celda, long[]> celdas = new HashMap<>();
+
+        ConstructorParticion(LocalDate fecha) {
+            this.fecha = fecha;
+        }
+
+        static ConstructorParticion desde(Particion particion) {
+            ConstructorParticion constructor = new ConstructorParticion(particion.fecha());
+            constructor.comandas.addAll(particion.comandas());
+            for (int i = 0; i < particion.filas(); i++) {
+                constructor.sumar(new Celda(particion.hora()[i], particion.producto()[i], particion.area()[i],
+                        particion.mesero()[i]), particion.unidades()[i], particion.centavos()[i]);
+            }
+            return constructor;
+        }
+
+        void agregar(long comandaId, Celda celda, long unidades, long centavos) {
+            comandas.add(comandaId);
+            sumar(celda, unidades, centavos);
+        }
+
+        void agregarTodo(ConstructorParticion otro) {
+            comandas.addAll(otro.comandas);
+            otro.celdas.forEach((celda, valores) -> sumar(celda, valores[0], valores[1]));
+        }
+
+        private void sumar(Celda celda, long unidades, long centavos) {
+            long[] valores = celdas.computeIfAbsent(celda, c -> new long[2]);
+            valores[0] += unidades;
+            valores[1] += centavos;
+        }
+
+        Particion construir() {
+            int filas = celdas.size();
+            byte[] hora = new byte[filas];
+            int[] producto = new int[filas];
+            int[] area = new int[filas];
+            int[] mesero = new int[filas];
+            long[] unidades = new long[filas];
+            long[] centavos = new long[filas];
+            int i = 0;
+            for (Map.Entry<Celda, long[]> entrada : celdas.entrySet()) {
+                Celda celda = entrada.getKey();
+                hora[i] = (byte) celda.hora();
+                producto[i] = celda.producto();
+                area[i] = celda.area();
+                mesero[i] = celda.mesero();
+                unidades[i] = entrada.getValue()[0];
+                centavos[i] = entrada.getValue()[1];
+                i++;
+            }
+            return new Particion(fecha, Set.copyOf(comandas), hora, producto, area, mesero, unidades, centavos);
+        }
+    }
+
+    // Carga un rango de días dividiéndolo en tareas de a lo sumo DIAS_POR_TAREA días
+    private final class CargaDias extends RecursiveTask<List<Particion>> {
+        private final LocalDate desde;
+        private final LocalDate hasta;
+
+        CargaDias(LocalDate desde, LocalDate hasta) {
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected List<Particion> compute() {
+            long dias = ChronoUnit.DAYS.between(desde, hasta) + 1;
+            if (dias <= DIAS_POR_TAREA) {
+                return cargar(desde, hasta);
+            }
+            LocalDate mitad = desde.plusDays(dias / 2);
+            CargaDias primera = new CargaDias(desde, mitad.minusDays(1));
+            primera.fork();
+            List<Particion> particiones = new ArrayList<>(new CargaDias(mitad, hasta).compute());
+            particiones.addAll(primera.join());
+            return particiones;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        reconstruir();
+    }
+
+    /**
+     * Vuelve a cargar el cubo completo desde las comandas pagadas, en segundo plano.
+     */
+    public void reconstruir() {
+        escrituras.execute(() -> {
+            try {
+                long inicio = System.currentTimeMillis();
+                LocalDate hasta = LocalDate.now();
+                List<Particion> cargadas = carga.invoke(new CargaDias(inicioVentana(), hasta));
+                NavigableMap<LocalDate, Particion> particiones = new TreeMap<>();
+                long filas = 0;
+                for (Particion particion : cargadas) {
+                    particiones.put(particion.fecha(), particion);
+                    filas += particion.filas();
+                }
+                Cubo nuevo = publicar(particiones);
+                logger.info("Cubo de ventas cargado: {} días, {} filas en {} ms (versión {})",
+                        particiones.size(), filas, System.currentTimeMillis() - inicio, nuevo.version());
+            } catch (Exception e) {
+                logger.error("Error cargando el cubo de ventas: {}", e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Suma al cubo una comanda recién pagada. Llamar después del commit del pago.
+     */
+    public void registrarPago(Long comandaId) {
+        escrituras.execute(() -> {
+            try {
+                Map<LocalDate, ConstructorParticion> nuevas = new HashMap<>();
+                jdbcTemplate.query(SQL_FILAS_COMANDA, (RowCallbackHandler) rs -> agregarFila(rs, nuevas), comandaId);
+                NavigableMap<LocalDate, Particion> particiones = new TreeMap<>(cubo.get().particiones());
+                for (ConstructorParticion nueva : nuevas.values()) {
+                    Particion actual = particiones.get(nueva.fecha);
+                    if (nueva.fecha.isBefore(inicioVentana()) || (actual != null && actual.comandas().contains(comandaId))) {
+                        continue;
+                    }
+                    ConstructorParticion constructor = actual != null ? ConstructorParticion.desde(actual) : new ConstructorParticion(nueva.fecha);
+                    constructor.agregarTodo(nueva);
+                    particiones.put(nueva.fecha, constructor.construir());
+                }
+                publicar(particiones);
+            } catch (Exception e) {
+                logger.error("Error sumando la comanda {} al cubo de ventas: {}", comandaId, e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Vuelve a leer un día del cubo, por ejemplo cuando una comanda de ese día deja de estar pagada.
+     */
+    public void recargarDia(LocalDate fecha) {
+        escrituras.execute(() -> {
+            try {
+                NavigableMap<LocalDate, Particion> particiones = new TreeMap<>(cubo.get().particiones());
+                particiones.remove(fecha);
+                for (Particion particion : cargar(fecha, fecha)) {
+                    particiones.put(particion.fecha(), particion);
+                }
+                publicar(particiones);
+            } catch (Exception e) {
+                logger.error("Error recargando el día {} del cubo de ventas: {}", fecha, e.getMessage(), e);
+            }
+        });
+    }
+
+    public MapaCalorVentasDTO mapaDeCalor(LocalDate desde, LocalDate hasta, Long productoId, String areaId, Long usuarioId) {
+        long[][] unidades = new long[DIAS_SEMANA][HORAS];
+        long[][] centavos = new long[DIAS_SEMANA][HORAS];
+        Filtro filtro = filtro(productoId, areaId, usuarioId);
+        for (Particion particion : particiones(desde, hasta)) {
+            int dia = particion.fecha().getDayOfWeek().getValue() - 1;
+            for (int i = 0; i < particion.filas(); i++) {
+                if (filtro.acepta(particion, i)) {
+                    unidades[dia][particion.hora()[i]] += particion.unidades()[i];
+                    centavos[dia][particion.hora()[i]] += particion.centavos()[i];
+                }
+            }
+        }
+        BigDecimal[][] importes = new BigDecimal[DIAS_SEMANA][HORAS];
+        for (int dia = 0; dia < DIAS_SEMANA; dia++) {
+            for (int hora = 0; hora < HORAS; hora++) {
+                importes[dia][hora] = importe(centavos[dia][hora]);
+            }
+        }
+        return new MapaCalorVentasDTO(desde, hasta, unidades, importes);
+    }
+
+    public HorasPicoVentasDTO horasPico(LocalDate desde, LocalDate hasta, int limite,
+                                        Long productoId, String areaId, Long usuarioId) {
+        long[] unidades = new long[HORAS];
+        long[] centavos = new long[HORAS];
+        Filtro filtro = filtro(productoId, areaId, usuarioId);
+        for (Particion particion : particiones(desde, hasta)) {
+            for (int i = 0; i < particion.filas(); i++) {
+                if (filtro.acepta(particion, i)) {
+                    unidades[particion.hora()[i]] += particion.unidades()[i];
+                    centavos[particion.hora()[i]] += particion.centavos()[i];
+                }
+            }
+        }
+        long dias = ChronoUnit.DAYS.between(desde, hasta) + 1;
+        List<HorasPicoVentasDTO.Hora> horas = new ArrayList<>();
+        for (int hora = 0; hora < HORAS; hora++) {
+            if (unidades[hora] != 0 || centavos[hora] != 0) {
+                BigDecimal importe = importe(centavos[hora]);
+                horas.add(new HorasPicoVentasDTO.Hora(hora, unidades[hora], importe,
+                        importe.divide(BigDecimal.valueOf(dias), 2, RoundingMode.HALF_UP)));
+            }
+        }
+        horas.sort(Comparator.comparing(HorasPicoVentasDTO.Hora::importe).reversed());
+        return new HorasPicoVentasDTO(desde, hasta, dias, horas.size() > limite ? horas.subList(0, limite) : horas);
+    }
+
+    public RankingVentasDTO ranking(LocalDate desde, LocalDate hasta, DimensionVentas dimension, MetricaVentas metrica,
+                                    int k, Long productoId, String areaId, Long usuarioId) {
+        Filtro filtro = filtro(productoId, areaId, usuarioId);
+        List<Particion> particiones = particiones(desde, hasta);
+        // Los códigos de las particiones ya publicadas son menores que el tamaño leído después
+        Dimension diccionario = switch (dimension) {
+            case PRODUCTO -> productos;
+            case AREA -> areas;
+            case MESERO -> meseros;
+        };
+        int tamanio = diccionario.tamanio();
+        long[] unidades = new long[tamanio];
+        long[] centavos = new long[tamanio];
+        for (Particion particion : particiones) {
+            int[] columna = switch (dimension) {
+                case PRODUCTO -> particion.producto();
+                case AREA -> particion.area();
+                case MESERO -> particion.mesero();
+            };
+            for (int i = 0; i < particion.filas(); i++) {
+                if (filtro.acepta(particion, i)) {
+                    unidades[columna[i]] += particion.unidades()[i];
+                    centavos[columna[i]] += particion.centavos()[i];
+                }
+            }
+        }
+
+        // Los K mayores con un montículo de tamaño K
+        long[] valores = metrica == MetricaVentas.UNIDADES ? unidades : centavos;
+        PriorityQueue<Integer> mayores = new PriorityQueue<>(Comparator.comparingLong(codigo -> valores[codigo]));
+        for (int codigo = 0; codigo < tamanio; codigo++) {
+            if (unidades[codigo] == 0 && centavos[codigo] == 0) {
+                continue;
+            }
+            mayores.add(codigo);
+            if (mayores.size() > k) {
+                mayores.poll();
+            }
+        }
+        List<RankingVentasDTO.Entrada> entradas = new ArrayList<>(mayores.size());
+        while (!mayores.isEmpty()) {
+            int codigo = mayores.poll();
+            String clave = diccionario.clave(codigo);
+            String nombre = dimension == DimensionVentas.AREA
+                    ? catalogoAreasService.findByAreaId(clave).map(CatalogoAreasService.AreaInfo::nombre).orElse(clave)
+                    : diccionario.nombre(codigo);
+            entradas.add(new RankingVentasDTO.Entrada(clave, nombre, unidades[codigo], importe(centavos[codigo])));
+        }
+        Collections.reverse(entradas);
+        return new RankingVentasDTO(desde, hasta, dimension.name(), metrica.name(), entradas);
+    }
+
+    public long getVersion() {
+        return cubo.get().version();
+    }
+
+    private List<Particion> cargar(LocalDate desde, LocalDate hasta) {
+        Map<LocalDate, ConstructorParticion> constructores = new HashMap<>();
+        jdbcTemplate.query(SQL_FILAS_RANGO, (RowCallbackHandler) rs -> agregarFila(rs, constructores),
+                Timestamp.valueOf(desde.atStartOfDay()), Timestamp.valueOf(hasta.plusDays(1).atStartOfDay()));
+        List<Particion> particiones = new ArrayList<>(constructores.size());
+        for (ConstructorParticion constructor : constructores.values()) {
+            particiones.add(constructor.construir());
+        }
+        return particiones;
+    }
+
+    private void agregarFila(ResultSet rs, Map<LocalDate, ConstructorParticion> constructores) throws SQLException {
+        LocalDateTime creada = rs.getTimestamp(2).toLocalDateTime();
+        long productoId = rs.getLong(3);
+        String areaId = rs.getString(7);
+        if (areaId == null) {
+            areaId = enrutamientoAreasService.getAreaId(productoId);
+        }
+        Celda celda = new Celda(creada.getHour(),
+                productos.codigo(String.valueOf(productoId), rs.getString(4)),
+                areas.codigo(areaId, null),
+                meseros.codigo(String.valueOf(rs.getLong(5)), rs.getString(6)));
+        BigDecimal importe = rs.getBigDecimal(9);
+        long centavos = importe != null ? importe.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue() : 0L;
+        constructores.computeIfAbsent(creada.toLocalDate(), ConstructorParticion::new)
+                .agregar(rs.getLong(1), celda, rs.getLong(8), centavos);
+    }
+
+    private Cubo publicar(NavigableMap<LocalDate, Particion> particiones) {
+        particiones.headMap(inicioVentana(), false).clear();
+        NavigableMap<LocalDate, Particion> inmutable = Collections.unmodifiableNavigableMap(particiones);
+        return cubo.updateAndGet(actual -> new Cubo(actual.version() + 1, inmutable));
+    }
+
+    private List<Particion> particiones(LocalDate desde, LocalDate hasta) {
+        return new ArrayList<>(cubo.get().particiones().subMap(desde, true, hasta, true).values());
+    }
+
+    private Filtro filtro(Long productoId, String areaId, Long usuarioId) {
+        return new Filtro(
+                productos.buscar(productoId != null ? String.valueOf(productoId) : null),
+                areas.buscar(areaId),
+                meseros.buscar(usuarioId != null ? String.valueOf(usuarioId) : null));
+    }
+
+    private LocalDate inicioVentana() {
+        return LocalDate.now().minusDays(diasRetenidos - 1L);
+    }
+
+    private static BigDecimal importe(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    @PreDestroy
+    public void detener() {
+        escrituras.shutdownNow();
+        carga.shutdownNow();
+    }
+}
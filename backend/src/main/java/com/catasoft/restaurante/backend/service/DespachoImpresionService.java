@@ -0,0 +1,82 @@
+package com.catasoft.restaurante.backend.service;
+
+import com.catasoft.restaurante.backend.model.dto.PrintJobDTO;
+import com.catasoft.restaurante.backend.model.enums.TipoTrabajoImpresion;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Pipeline de impresión de los tickets de cocina.
+ * El trabajo se construye y se guarda en trabajos_impresion (estado PREPARANDO) dentro de la
+ * transacción del pedido, así un ticket confirmado nunca se pierde. Después del commit se
+ * renderiza a ESC/POS sobre hilos virtuales y se libera a la cola persistente
+ * (ColaImpresionService), que lo entrega y espera la confirmación del puente. Cada impresora
+ * tiene su propio carril secuencial, así los tickets de una misma impresora salen en orden.
+ * Si el renderizado no llega a ejecutarse, el barrido de la cola libera el trabajo sin renderizar.
+ */
+@Service
+public class DespachoImpresionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DespachoImpresionService.class);
+
+    private final ColaImpresionService colaImpresion;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, ExecutorService> carriles = new ConcurrentHashMap<>();
+
+    public DespachoImpresionService(ColaImpresionService colaImpresion, PlatformTransactionManager transactionManager) {
+        this.colaImpresion = colaImpresion;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Guarda el trabajo en la transacción actual (o en una propia si no hay ninguna) y lo
+     * renderiza en el carril de su impresora cuando esa transacción confirma.
+     * Si la construcción falla, falla la operación que pidió el ticket.
+     */
+    public void encolar(String descripcion, TipoTrabajoImpresion tipo, Supplier<PrintJobDTO> constructor) {
+        transactionTemplate.executeWithoutResult(status -> {
+            ColaImpresionService.Preparacion preparacion = colaImpresion.registrar(constructor.get(), descripcion, tipo);
+            TransaccionUtils.ejecutarTrasCommit(() -> preparar(preparacion));
+        });
+    }
+
+    private void preparar(ColaImpresionService.Preparacion preparacion) {
+        try {
+            carril(preparacion.impresora()).execute(() -> colaImpresion.completarPreparacion(preparacion));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Pipeline de impresión detenido, {} queda para el barrido de la cola", preparacion.descripcion());
+        }
+    }
+
+    private ExecutorService carril(String clave) {
+        return carriles.computeIfAbsent(clave, k ->
+                Executors.newSingleThreadExecutor(Thread.ofVirtual().name("impresion-" + k + "-", 0).factory()));
+    }
+
+    @PreDestroy
+    public void detener() {
+        for (ExecutorService carril : carriles.values()) {
+            carril.shutdown();
+        }
+        for (ExecutorService carril : carriles.values()) {
+            try {
+                carril.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.catasoft.restaurante.backend.service;
+
+import com.catasoft.restaurante.backend.dto.DisponibilidadMenuDTO;
+import com.catasoft.restaurante.backend.repository.IngredienteRepository;
+import com.catasoft.restaurante.backend.repository.RecetaIngredienteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Disponibilidad del menú calculada sobre una matriz producto x ingrediente en memoria.
+ * La matriz se carga al iniciar y cuando cambian las recetas. Cuando cambia el stock de
+ * un ingrediente solo se recalculan los productos que lo usan, y los cambios se publican
+ * en /topic/disponibilidad para que las tablets no tengan que consultar producto por producto.
+ */
+@Service
+public class DisponibilidadMenuService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DisponibilidadMenuService.class);
+
+    public static final String TOPIC = "/topic/disponibilidad";
+
+    private final RecetaIngredienteRepository recetaIngredienteRepository;
+    private final IngredienteRepository ingredienteRepository;
+    private final NotificacionOutboxService notificacionOutbox;
+
+    // Estado mutable, protegido por el monitor de la instancia
+    private Map<Long, List<Componente>> recetas = Map.of();
+    private Map<Long, Set<Long>> productosPorIngrediente = Map.of();
+    private final Map<Long, Long> stockMilli = new HashMap<>();
+    private final Map<Long, Integer> unidades = new HashMap<>();
+    private long version;
+
+    private final AtomicReference<DisponibilidadMenuDTO> snapshot =
+            new AtomicReference<>(new DisponibilidadMenuDTO(0L, Map.of()));
+
+    public DisponibilidadMenuService(RecetaIngredienteRepository recetaIngredienteRepository,
+                                     IngredienteRepository ingredienteRepository,
+                                     NotificacionOutboxService notificacionOutbox) {
+        this.recetaIngredienteRepository = recetaIngredienteRepository;
+        this.ingredienteRepository = ingredienteRepository;
+        this.notificacionOutbox = notificacionOutbox;
+    }
+
+    /**
+     * Una fila de la matriz: cuánto de un ingrediente necesita una unidad del producto.
+     */
+    private record Componente(Long ingredienteId, long requeridoMilli) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        recargar();
+    }
+
+    /**
+     * Reconstruye la matriz de recetas y el stock desde la base de datos y recalcula todo el menú.
+     */
+    public synchronized void recargar() {
+        Map<Long, List<Componente>> nuevasRecetas = new HashMap<>();
+        Map<Long, Set<Long>> nuevoIndice = new HashMap<>();
+        for (Object[] fila : recetaIngredienteRepository.findMatrizRecetas()) {
+            Long productoId = (Long) fila[0];
+            Long ingredienteId = (Long) fila[1];
+            Double cantidad = (Double) fila[2];
+            long requeridoMilli = cantidad != null ? Math.round(cantidad * 1000) : 0;
+            if (requeridoMilli <= 0) {
+                continue;
+            }
+            nuevasRecetas.computeIfAbsent(productoId, k -> new ArrayList<>()).add(new Componente(ingredienteId, requeridoMilli));
+            nuevoIndice.computeIfAbsent(ingredienteId, k -> new HashSet<>()).add(productoId);
+        }
+
+        stockMilli.clear();
+        for (Object[] fila : ingredienteRepository.findAllStockMilli()) {
+            stockMilli.put((Long) fila[0], fila[1] != null ? (Long) fila[1] : 0L);
+        }
+
+        recetas = nuevasRecetas;
+        productosPorIngrediente = nuevoIndice;
+        Map<Long, Integer> anteriores = new HashMap<>(unidades);
+        unidades.clear();
+        Map<Long, Integer> cambios = new HashMap<>();
+        for (Long productoId : recetas.keySet()) {
+            int calculadas = calcular(productoId);
+            unidades.put(productoId, calculadas);
+            if (!Integer.valueOf(calculadas).equals(anteriores.remove(productoId))) {
+                cambios.put(productoId, calculadas);
+            }
+        }
+        // Productos que se quedaron sin receta pasan a 0
+        anteriores.forEach((productoId, previas) -> {
+            if (previas != 0) {
+                cambios.put(productoId, 0);
+            }
+        });
+
+        publicarCambios(cambios);
+        logger.info("Matriz de recetas cargada: {} productos, {} ingredientes (versión {})",
+                recetas.size(), stockMilli.size(), version);
+    }
+
+    /**
+     * Vuelve a leer de la base el stock de ingredientes cuyo movimiento ya se confirmó y
+     * recalcula solo los productos afectados. Se lee el valor confirmado en lugar de sumar
+     * el delta del movimiento: así no importa si recargar ya había visto ese commit ni en qué
+     * orden llegan los avisos, el resultado siempre coincide con stock_milli.
+     */
+    public synchronized void refrescarStock(Collection<Long> ingredienteIds) {
+        if (ingredienteIds.isEmpty()) {
+            return;
+        }
+        Set<Long> afectados = new HashSet<>();
+        Set<Long> sinFila = new HashSet<>(ingredienteIds);
+        for (Object[] fila : ingredienteRepository.findStockMilliByIds(ingredienteIds)) {
+            Long ingredienteId = (Long) fila[0];
+            stockMilli.put(ingredienteId, fila[1] != null ? (Long) fila[1] : 0L);
+            sinFila.remove(ingredienteId);
+        }
+        sinFila.forEach(stockMilli::remove);
+        for (Long ingredienteId : ingredienteIds) {
+            afectados.addAll(productosPorIngrediente.getOrDefault(ingredienteId, Set.of()));
+        }
+        recalcular(afectados);
+    }
+
+    /**
+     * Disponibilidad de todo el menú. Los productos sin receta no aparecen y valen 0.
+     */
+    public DisponibilidadMenuDTO getDisponibilidad() {
+        return snapshot.get();
+    }
+
+    public int getUnidades(Long productoId) {
+        return snapshot.get().productos().getOrDefault(productoId, 0);
+    }
+
+    private void recalcular(Set<Long> productos) {
+        Map<Long, Integer> cambios = new HashMap<>();
+        for (Long productoId : productos) {
+            int calculadas = calcular(productoId);
+            Integer previas = unidades.put(productoId, calculadas);
+            if (previas == null || previas != calculadas) {
+                cambios.put(productoId, calculadas);
+            }
+        }
+        publicarCambios(cambios);
+    }
+
+    private int calcular(Long productoId) {
+        List<Componente> receta = recetas.get(productoId);
+        if (receta == null || receta.isEmpty()) {
+            return 0;
+        }
+        long maxUnidades = Long.MAX_VALUE;
+        for (Componente componente : receta) {
+            long disponible = Math.max(0L, stockMilli.getOrDefault(componente.ingredienteId(), 0L));
+            maxUnidades = Math.min(maxUnidades, disponible / componente.requeridoMilli());
+        }
+        return (int) Math.min(maxUnidades, Integer.MAX_VALUE);
+    }
+
+    private void publicarCambios(Map<Long, Integer> cambios) {
+        if (cambios.isEmpty()) {
+            return;
+        }
+        version++;
+        snapshot.set(new DisponibilidadMenuDTO(version, Map.copyOf(unidades)));
+        notificacionOutbox.publicar(TOPIC, new DisponibilidadMenuDTO(version, Map.copyOf(cambios)));
+    }
+}
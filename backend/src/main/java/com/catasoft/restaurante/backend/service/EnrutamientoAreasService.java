@@ -0,0 +1,77 @@
+package com.catasoft.restaurante.backend.service;
+
+import com.catasoft.restaurante.backend.repository.ProductAreaRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tabla de enrutamiento producto -> área de preparación precompilada desde ProductArea.
+ * La tabla es inmutable y se reemplaza de forma atómica cada vez que cambian las
+ * asignaciones, así dividir una comanda por áreas no requiere consultas.
+ */
+@Service
+public class EnrutamientoAreasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrutamientoAreasService.class);
+
+    public static final String SIN_ASIGNAR = "sin-asignar";
+
+    private final ProductAreaRepository productAreaRepository;
+    private final AtomicReference<TablaEnrutamiento> tabla = new AtomicReference<>(new TablaEnrutamiento(0L, Map.of()));
+
+    public EnrutamientoAreasService(ProductAreaRepository productAreaRepository) {
+        this.productAreaRepository = productAreaRepository;
+    }
+
+    /**
+     * Destino de un producto: área que lo prepara y tiempo estimado en minutos.
+     */
+    public record Ruta(String areaId, Integer preparationTime) {
+    }
+
+    private record TablaEnrutamiento(long version, Map<Long, Ruta> rutas) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        recargar();
+    }
+
+    /**
+     * Reconstruye la tabla desde product_areas y la publica de forma atómica.
+     * Si un producto tiene varias asignaciones se usa la primera, igual que antes.
+     */
+    public void recargar() {
+        Map<Long, Ruta> rutas = new HashMap<>();
+        for (Object[] fila : productAreaRepository.findAllRutas()) {
+            Long productoId = (Long) fila[0];
+            rutas.putIfAbsent(productoId, new Ruta((String) fila[1], (Integer) fila[2]));
+        }
+        TablaEnrutamiento nueva = tabla.updateAndGet(actual -> new TablaEnrutamiento(actual.version() + 1, Map.copyOf(rutas)));
+        logger.info("Tabla de enrutamiento producto-área cargada: {} productos (versión {})", rutas.size(), nueva.version());
+    }
+
+    public Optional<Ruta> getRuta(Long productoId) {
+        return Optional.ofNullable(tabla.get().rutas().get(productoId));
+    }
+
+    /**
+     * Devuelve el areaId asignado al producto o SIN_ASIGNAR si no tiene área.
+     */
+    public String getAreaId(Long productoId) {
+        Ruta ruta = tabla.get().rutas().get(productoId);
+        return ruta != null ? ruta.areaId() : SIN_ASIGNAR;
+    }
+
+    public long getVersion() {
+        return tabla.get().version();
+    }
+}
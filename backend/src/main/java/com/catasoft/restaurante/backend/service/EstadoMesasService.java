@@ -0,0 +1,100 @@
+package com.catasoft.restaurante.backend.service;
+
+import com.catasoft.restaurante.backend.dto.MesaMapaDTO;
+import com.catasoft.restaurante.backend.dto.MesasCambiosDTO;
+import com.catasoft.restaurante.backend.model.Mesa;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publicador del estado del plano de mesas.
+ * Los cambios de mesa confirmados se acumulan durante una ventana corta y se publican en
+ * /topic/mesas como un único mensaje versionado con el último estado de cada mesa. Un pago
+ * que toca la misma mesa varias veces, o un cambio de turno que libera decenas de mesas,
+ * produce un solo mensaje en lugar de uno por cambio.
+ */
+@Service
+public class EstadoMesasService {
+
+    public static final String TOPIC = "/topic/mesas";
+    static final long VENTANA_MS = 100;
+
+    private final NotificacionOutboxService notificacionOutbox;
+    private final ScheduledExecutorService programador = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "estado-mesas");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Estado mutable, protegido por el monitor de la instancia. Un valor null marca una mesa eliminada.
+    private final Map<Long, MesaMapaDTO> cambios = new LinkedHashMap<>();
+    private boolean emisionProgramada;
+    private long version;
+
+    public EstadoMesasService(NotificacionOutboxService notificacionOutbox) {
+        this.notificacionOutbox = notificacionOutbox;
+    }
+
+    /**
+     * Registra el cambio de una mesa. Se toma su estado cuando la transacción confirma.
+     */
+    public void mesaCambiada(Mesa mesa) {
+        TransaccionUtils.ejecutarTrasCommit(() -> registrar(mesa.getId(), Boolean.FALSE.equals(mesa.getActivo()) ? null : aDTO(mesa)));
+    }
+
+    /**
+     * Registra la eliminación (desactivación) de una mesa.
+     */
+    public void mesaEliminada(Long mesaId) {
+        TransaccionUtils.ejecutarTrasCommit(() -> registrar(mesaId, null));
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    private synchronized void registrar(Long mesaId, MesaMapaDTO estado) {
+        cambios.put(mesaId, estado);
+        if (!emisionProgramada) {
+            emisionProgramada = true;
+            programador.schedule(this::emitir, VENTANA_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void emitir() {
+        emisionProgramada = false;
+        if (cambios.isEmpty()) {
+            return;
+        }
+        List<MesaMapaDTO> mesas = new ArrayList<>();
+        List<Long> eliminadas = new ArrayList<>();
+        cambios.forEach((mesaId, estado) -> {
+            if (estado != null) {
+                mesas.add(estado);
+            } else {
+                eliminadas.add(mesaId);
+            }
+        });
+        cambios.clear();
+        version++;
+        notificacionOutbox.publicar(TOPIC, new MesasCambiosDTO(version, mesas, eliminadas));
+    }
+
+    private static MesaMapaDTO aDTO(Mesa mesa) {
+        return new MesaMapaDTO(mesa.getId(), mesa.getNumero(), mesa.getCapacidad(), mesa.getEstado(),
+                mesa.getPosicionX(), mesa.getPosicionY(), mesa.getNombre());
+    }
+
+    @PreDestroy
+    public void detener() {
+        programador.shutdown();
+    }
+}
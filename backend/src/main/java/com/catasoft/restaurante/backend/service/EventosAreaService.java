@@ -0,0 +1,96 @@
+package com.catasoft.restaurante.backend.service;
+
+import com.catasoft.restaurante.backend.dto.ComandaAreaResponseDTO;
+import com.catasoft.restaurante.backend.dto.EventoAreaDTO;
+import com.catasoft.restaurante.backend.model.ComandaArea;
+import com.catasoft.restaurante.backend.model.ComandaAreaItem;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Stream incremental de la pantalla de cocina por área.
+ * Cada área tiene su propio destino /topic/area/{areaId} y recibe solo eventos compactos
+ * de sus comandas. El número de secuencia se asigna en el hilo del outbox, de modo que
+ * es estrictamente creciente en el orden en que los clientes reciben los eventos.
+ */
+@Service
+public class EventosAreaService {
+
+    public static final String PREFIJO_TOPIC = "/topic/area/";
+
+    private final NotificacionOutboxService notificacionOutbox;
+    private final Map<String, AtomicLong> secuencias = new ConcurrentHashMap<>();
+
+    public EventosAreaService(NotificacionOutboxService notificacionOutbox) {
+        this.notificacionOutbox = notificacionOutbox;
+    }
+
+    /**
+     * Nueva comanda de área con todos sus items.
+     */
+    public void ticketAgregado(ComandaArea comandaArea, List<ComandaAreaItem> items) {
+        EventoAreaDTO evento = new EventoAreaDTO(0L, EventoAreaDTO.TICKET_AGREGADO,
+                comandaArea.getId(),
+                comandaArea.getComanda().getId(),
+                comandaArea.getComanda().getMesa().getId(),
+                comandaArea.getStatus().name(),
+                comandaArea.getCreatedAt().toString(),
+                convertirItems(items, comandaArea.getComanda().getFechaHoraCreacion()));
+        publicar(comandaArea.getAreaId(), evento);
+    }
+
+    /**
+     * Items agregados a una comanda de área que ya estaba en pantalla.
+     */
+    public void itemsAgregados(ComandaArea comandaArea, List<ComandaAreaItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        EventoAreaDTO evento = new EventoAreaDTO(0L, EventoAreaDTO.ITEMS_AGREGADOS,
+                comandaArea.getId(), comandaArea.getComanda().getId(), null, null, null,
+                convertirItems(items, comandaArea.getComanda().getFechaHoraCreacion()));
+        publicar(comandaArea.getAreaId(), evento);
+    }
+
+    /**
+     * Cambio de estado de una comanda de área (PENDING, IN_PROGRESS, READY, DELIVERED).
+     */
+    public void estadoCambiado(ComandaArea comandaArea) {
+        EventoAreaDTO evento = new EventoAreaDTO(0L, EventoAreaDTO.ESTADO_CAMBIADO,
+                comandaArea.getId(), comandaArea.getComanda().getId(), null,
+                comandaArea.getStatus().name(), null, null);
+        publicar(comandaArea.getAreaId(), evento);
+    }
+
+    /**
+     * Última secuencia publicada para el área; 0 si todavía no hubo eventos.
+     */
+    public long getSecuencia(String areaId) {
+        AtomicLong secuencia = secuencias.get(areaId);
+        return secuencia != null ? secuencia.get() : 0L;
+    }
+
+    private void publicar(String areaId, EventoAreaDTO evento) {
+        notificacionOutbox.publicarDiferido(PREFIJO_TOPIC + areaId,
+                () -> evento.conSecuencia(secuencias.computeIfAbsent(areaId, k -> new AtomicLong()).incrementAndGet()));
+    }
+
+    private List<ComandaAreaResponseDTO.ComandaAreaItemDTO> convertirItems(List<ComandaAreaItem> items, LocalDateTime fechaCreacionComanda) {
+        return items.stream().map(item -> {
+            ComandaAreaResponseDTO.ComandaAreaItemDTO dto = new ComandaAreaResponseDTO.ComandaAreaItemDTO();
+            dto.setId(item.getId());
+            dto.setProductoId(item.getProducto().getId());
+            dto.setProductoNombre(item.getProducto().getNombre());
+            dto.setCantidad(item.getQuantity());
+            dto.setObservaciones(item.getNotes());
+            dto.setEsNuevo(ComandaAreaService.esItemNuevo(item.getCreatedAt(), fechaCreacionComanda));
+            return dto;
+        }).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,87 @@
+package com.catasoft.restaurante.backend.service;
+
+import com.catasoft.restaurante.backend.dto.ReanudacionEventosDTO;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Historial en memoria de los eventos publicados por el outbox.
+ * Cada evento recibe una secuencia global y queda en un buffer circular acotado. Un cliente
+ * que se reconecta pide los eventos posteriores a la última secuencia que vio y solo recarga
+ * el estado completo si alguno de los eventos de sus destinos ya salió del buffer.
+ * Las secuencias vuelven a empezar en cada arranque, por eso viajan junto con la época (el
+ * momento de arranque): una secuencia de otra época nunca se reanuda.
+ */
+@Service
+public class HistorialEventosService {
+
+    public static final String CABECERA_SECUENCIA = "x-secuencia";
+    public static final String CABECERA_EPOCA = "x-epoca";
+    static final int CAPACIDAD = 4096;
+
+    // Estado mutable, protegido por el monitor de la instancia
+    private final ReanudacionEventosDTO.Evento[] buffer = new ReanudacionEventosDTO.Evento[CAPACIDAD];
+    // Secuencia del último evento de cada destino que salió del buffer
+    private final Map<String, Long> ultimaDescartadaPorDestino = new HashMap<>();
+    private long secuencia;
+    private final long epoca = System.currentTimeMillis();
+
+    /**
+     * Registra un evento publicado y devuelve su secuencia.
+     */
+    public synchronized long registrar(String destino, Object payload) {
+        secuencia++;
+        int posicion = (int) (secuencia % CAPACIDAD);
+        ReanudacionEventosDTO.Evento descartado = buffer[posicion];
+        if (descartado != null) {
+            ultimaDescartadaPorDestino.put(descartado.destino(), descartado.secuencia());
+        }
+        buffer[posicion] = new ReanudacionEventosDTO.Evento(secuencia, destino, payload);
+        return secuencia;
+    }
+
+    public synchronized long getSecuenciaActual() {
+        return secuencia;
+    }
+
+    public long getEpoca() {
+        return epoca;
+    }
+
+    /**
+     * Eventos de los destinos indicados con secuencia mayor a desde, en orden.
+     * Si desde es null solo se informa la secuencia actual. Si la época no es la de esta
+     * ejecución (o falta), el historial no sirve y la respuesta no es completa.
+     */
+    public synchronized ReanudacionEventosDTO desde(Long desde, Long epocaCliente, Collection<String> destinos) {
+        if (desde == null) {
+            return new ReanudacionEventosDTO(epoca, secuencia, true, List.of());
+        }
+        // Secuencia de otra ejecución del servidor: el historial no sirve
+        if (epocaCliente == null || epocaCliente != epoca || desde > secuencia) {
+            return new ReanudacionEventosDTO(epoca, secuencia, false, List.of());
+        }
+        Set<String> filtro = Set.copyOf(destinos);
+        for (String destino : filtro) {
+            if (ultimaDescartadaPorDestino.getOrDefault(destino, 0L) > desde) {
+                return new ReanudacionEventosDTO(epoca, secuencia, false, List.of());
+            }
+        }
+
+        List<ReanudacionEventosDTO.Evento> eventos = new ArrayList<>();
+        long inicio = Math.max(desde + 1, secuencia - CAPACIDAD + 1);
+        for (long s = inicio; s <= secuencia; s++) {
+            ReanudacionEventosDTO.Evento evento = buffer[(int) (s % CAPACIDAD)];
+            if (evento != null && filtro.contains(evento.destino())) {
+                eventos.add(evento);
+            }
+        }
+        return new ReanudacionEventosDTO(epoca, secuencia, true, eventos);
+    }
+}
@@ -1,8 +1,10 @@
 package com.catasoft.restaurante.backend.service;
 
+import com.catasoft.restaurante.backend.exception.ResourceNotFoundException;
 import com.catasoft.restaurante.backend.model.Ingrediente;
 import com.catasoft.restaurante.backend.repository.IngredienteRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -10,9 +12,14 @@ import java.util.Optional;
 @Service
 public class IngredienteService {
     private final IngredienteRepository ingredienteRepository;
+    private final DisponibilidadMenuService disponibilidadMenuService;
+    private final InventarioService inventarioService;
 
-    public IngredienteService(IngredienteRepository ingredienteRepository) {
+    public IngredienteService(IngredienteRepository ingredienteRepository, DisponibilidadMenuService disponibilidadMenuService,
+                              InventarioService inventarioService) {
         this.ingredienteRepository = ingredienteRepository;
+        this.disponibilidadMenuService = disponibilidadMenuService;
+        this.inventarioService = inventarioService;
     }
 
     public List<Ingrediente> findAll() {
@@ -23,12 +30,53 @@ public class IngredienteService {
         return ingredienteRepository.findById(id);
     }
 
+    // Alta de un ingrediente con su stock inicial
     public Ingrediente save(Ingrediente ingrediente) {
-        return ingredienteRepository.save(ingrediente);
+        Ingrediente guardado = ingredienteRepository.save(ingrediente);
+        TransaccionUtils.ejecutarTrasCommit(() -> disponibilidadMenuService.refrescarStock(List.of(guardado.getId())));
+        return guardado;
+    }
+
+    /**
+     * Actualiza los datos de un ingrediente. El stock no viaja con la entidad: si cambió se fija
+     * de forma condicional sobre el stock que el cliente tenía a la vista (stockAnterior), así no
+     * se pisan los descuentos hechos mientras se editaba (ver InventarioService.ajustarStock).
+     */
+    @Transactional
+    public Optional<Ingrediente> update(Long id, Ingrediente datos) {
+        return ingredienteRepository.findById(id).map(existing -> {
+            existing.setNombre(datos.getNombre());
+            existing.setUnidad(datos.getUnidad());
+            existing.setDescripcion(datos.getDescripcion());
+            Ingrediente guardado = ingredienteRepository.save(existing);
+            Long nuevoStock = datos.getStockMilli();
+            Long anterior = datos.getStockAnteriorMilli();
+            if (anterior == null) {
+                if (!nuevoStock.equals(existing.getStockMilli())) {
+                    throw new IllegalArgumentException("Para modificar el stock se requiere el campo 'stockAnterior'.");
+                }
+            } else if (!nuevoStock.equals(anterior)) {
+                inventarioService.ajustarStock(id, anterior, nuevoStock);
+                guardado.setStockMilli(nuevoStock);
+            }
+            return guardado;
+        });
+    }
+
+    /**
+     * Ingresa stock (en milésimas) y devuelve el ingrediente con el stock ya confirmado.
+     */
+    @Transactional
+    public Ingrediente ingresarStock(Long id, long cantidadMilli) {
+        inventarioService.ingresarStock(id, cantidadMilli);
+        // Se lee después del UPDATE, así devuelve el stock resultante
+        return ingredienteRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Ingrediente no encontrado con id: " + id));
     }
 
     public void deleteById(Long id) {
         ingredienteRepository.deleteById(id);
+        TransaccionUtils.ejecutarTrasCommit(disponibilidadMenuService::recargar);
     }
 
     public boolean existsByNombre(String nombre) {
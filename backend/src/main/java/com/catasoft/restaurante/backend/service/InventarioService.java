@@ -1,70 +1,158 @@
 package com.catasoft.restaurante.backend.service;
 
-import com.catasoft.restaurante.backend.model.Producto;
-import com.catasoft.restaurante.backend.model.RecetaIngrediente;
-import com.catasoft.restaurante.backend.model.Ingrediente;
+import com.catasoft.restaurante.backend.exception.ResourceNotFoundException;
 import com.catasoft.restaurante.backend.repository.RecetaIngredienteRepository;
 import com.catasoft.restaurante.backend.repository.IngredienteRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+/**
+ * Motor de inventario por pedido.
+ * Suma los requerimientos de receta de todo el pedido en un único vector por ingrediente
+ * (en milésimas de unidad) y lo aplica con UPDATE condicionales en un solo batch, así
+ * dos pedidos concurrentes no pueden pisarse el stock ni dejarlo negativo.
+ */
 @Service
 public class InventarioService {
     public final RecetaIngredienteRepository recetaIngredienteRepository;
     public final IngredienteRepository ingredienteRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final DisponibilidadMenuService disponibilidadMenuService;
 
-    public InventarioService(RecetaIngredienteRepository recetaIngredienteRepository, IngredienteRepository ingredienteRepository) {
+    private static final String SQL_DESCONTAR =
+            "UPDATE ingredientes SET stock_milli = stock_milli - ? WHERE id = ? AND stock_milli >= ?";
+    private static final String SQL_RESTAURAR =
+            "UPDATE ingredientes SET stock_milli = stock_milli + ? WHERE id = ?";
+    private static final String SQL_AJUSTAR =
+            "UPDATE ingredientes SET stock_milli = ? WHERE id = ? AND stock_milli = ?";
+
+    public InventarioService(RecetaIngredienteRepository recetaIngredienteRepository, IngredienteRepository ingredienteRepository,
+                             JdbcTemplate jdbcTemplate, DisponibilidadMenuService disponibilidadMenuService) {
         this.recetaIngredienteRepository = recetaIngredienteRepository;
         this.ingredienteRepository = ingredienteRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.disponibilidadMenuService = disponibilidadMenuService;
     }
 
     /**
-     * Verifica si hay suficiente stock de ingredientes para preparar una cantidad de un producto.
-     * Lanza IllegalStateException si falta stock de algún ingrediente.
+     * Cantidad requerida de un ingrediente para el pedido completo.
      */
-    public void validarStockIngredientes(Producto producto, int cantidad) {
-        List<RecetaIngrediente> receta = recetaIngredienteRepository.findByProducto(producto);
-        for (RecetaIngrediente ri : receta) {
-            Ingrediente ing = ri.getIngrediente();
-            double requerido = ri.getCantidad() * cantidad;
-            if (ing.getStock() == null || ing.getStock() < requerido) {
-                throw new IllegalStateException("Stock insuficiente para el ingrediente: " + ing.getNombre());
-            }
+    private record Requerimiento(Long ingredienteId, String nombre, long cantidadMilli) {
+    }
+
+    /**
+     * Ingresa stock a un ingrediente con un UPDATE atómico sobre stock_milli, así no pisa
+     * los descuentos de pedidos que se confirmen al mismo tiempo.
+     */
+    @Transactional
+    public void ingresarStock(Long ingredienteId, long cantidadMilli) {
+        if (jdbcTemplate.update(SQL_RESTAURAR, cantidadMilli, ingredienteId) == 0) {
+            throw new ResourceNotFoundException("Ingrediente no encontrado con id: " + ingredienteId);
+        }
+        TransaccionUtils.ejecutarTrasCommit(() -> disponibilidadMenuService.refrescarStock(List.of(ingredienteId)));
+    }
+
+    /**
+     * Fija el stock de un ingrediente (corrección manual) solo si sigue valiendo lo que se leyó.
+     * Si un pedido lo cambió en el medio se lanza IllegalStateException en lugar de pisarlo.
+     */
+    @Transactional
+    public void ajustarStock(Long ingredienteId, long esperadoMilli, long nuevoMilli) {
+        if (jdbcTemplate.update(SQL_AJUSTAR, nuevoMilli, ingredienteId, esperadoMilli) == 0) {
+            throw new IllegalStateException("El stock del ingrediente cambió mientras se editaba, vuelva a intentarlo.");
         }
+        TransaccionUtils.ejecutarTrasCommit(() -> disponibilidadMenuService.refrescarStock(List.of(ingredienteId)));
     }
 
     /**
-     * Descuenta del stock los ingredientes usados para preparar una cantidad de un producto.
-     * Lanza IllegalStateException si falta stock de algún ingrediente.
+     * Descuenta de una vez el stock de todo un pedido (productoId -> cantidad).
+     * Cada UPDATE solo se aplica si el stock alcanza; si alguno no afecta filas se lanza
+     * IllegalStateException y la transacción del pedido hace rollback completo.
      */
     @Transactional
-    public void descontarStockIngredientes(Producto producto, int cantidad) {
-        List<RecetaIngrediente> receta = recetaIngredienteRepository.findByProducto(producto);
-        for (RecetaIngrediente ri : receta) {
-            Ingrediente ing = ri.getIngrediente();
-            double requerido = ri.getCantidad() * cantidad;
-            if (ing.getStock() == null || ing.getStock() < requerido) {
-                throw new IllegalStateException("Stock insuficiente para el ingrediente: " + ing.getNombre());
+    public void descontarStockPedido(Map<Long, Integer> cantidadesPorProducto) {
+        List<Requerimiento> requerimientos = calcularRequerimientos(cantidadesPorProducto);
+        if (requerimientos.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> parametros = new ArrayList<>(requerimientos.size());
+        for (Requerimiento requerimiento : requerimientos) {
+            parametros.add(new Object[]{requerimiento.cantidadMilli(), requerimiento.ingredienteId(), requerimiento.cantidadMilli()});
+        }
+
+        int[] resultados = jdbcTemplate.batchUpdate(SQL_DESCONTAR, parametros);
+        for (int i = 0; i < resultados.length; i++) {
+            // 0 filas afectadas: la condición stock_milli >= requerido no se cumplió
+            if (resultados[i] == 0) {
+                throw new IllegalStateException("Stock insuficiente para el ingrediente: " + requerimientos.get(i).nombre());
             }
-            ing.setStock(ing.getStock() - requerido);
-            ingredienteRepository.save(ing);
         }
+        notificarMovimientos(requerimientos);
     }
 
     /**
-     * Restaura el stock de ingredientes cuando se cancela una comanda.
-     * Añade de vuelta al stock los ingredientes que se habían descontado.
+     * Devuelve al stock de una vez los ingredientes de todo un pedido (productoId -> cantidad).
      */
     @Transactional
-    public void restaurarStockIngredientes(Producto producto, int cantidad) {
-        List<RecetaIngrediente> receta = recetaIngredienteRepository.findByProducto(producto);
-        for (RecetaIngrediente ri : receta) {
-            Ingrediente ing = ri.getIngrediente();
-            double devolver = ri.getCantidad() * cantidad;
-            ing.setStock(ing.getStock() + devolver);
-            ingredienteRepository.save(ing);
+    public void restaurarStockPedido(Map<Long, Integer> cantidadesPorProducto) {
+        List<Requerimiento> requerimientos = calcularRequerimientos(cantidadesPorProducto);
+        if (requerimientos.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> parametros = new ArrayList<>(requerimientos.size());
+        for (Requerimiento requerimiento : requerimientos) {
+            parametros.add(new Object[]{requerimiento.cantidadMilli(), requerimiento.ingredienteId()});
         }
+        jdbcTemplate.batchUpdate(SQL_RESTAURAR, parametros);
+        notificarMovimientos(requerimientos);
+    }
+
+    // La disponibilidad del menú se actualiza solo cuando el movimiento queda confirmado
+    private void notificarMovimientos(List<Requerimiento> requerimientos) {
+        List<Long> ingredienteIds = requerimientos.stream().map(Requerimiento::ingredienteId).toList();
+        TransaccionUtils.ejecutarTrasCommit(() -> disponibilidadMenuService.refrescarStock(ingredienteIds));
+    }
+
+    /**
+     * Agrega las recetas de todos los productos del pedido en un vector por ingrediente.
+     * Se ordena por id de ingrediente para que los bloqueos de fila se tomen siempre
+     * en el mismo orden y dos pedidos concurrentes no se bloqueen mutuamente.
+     */
+    private List<Requerimiento> calcularRequerimientos(Map<Long, Integer> cantidadesPorProducto) {
+        if (cantidadesPorProducto.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Long> totales = new TreeMap<>();
+        Map<Long, String> nombres = new HashMap<>();
+        for (Object[] fila : recetaIngredienteRepository.findRecetasByProductoIds(cantidadesPorProducto.keySet())) {
+            Long productoId = (Long) fila[0];
+            Long ingredienteId = (Long) fila[1];
+            Double cantidadReceta = (Double) fila[3];
+            Integer cantidad = cantidadesPorProducto.get(productoId);
+            if (cantidadReceta == null || cantidad == null || cantidad <= 0) {
+                continue;
+            }
+            long requeridoMilli = Math.round(cantidadReceta * 1000) * cantidad;
+            totales.merge(ingredienteId, requeridoMilli, Long::sum);
+            nombres.put(ingredienteId, (String) fila[2]);
+        }
+
+        List<Requerimiento> requerimientos = new ArrayList<>(totales.size());
+        totales.forEach((ingredienteId, cantidadMilli) -> {
+            if (cantidadMilli > 0) {
+                requerimientos.add(new Requerimiento(ingredienteId, nombres.get(ingredienteId), cantidadMilli));
+            }
+        });
+        return requerimientos;
     }
 }
@@ -0,0 +1,226 @@
+package com.catasoft.restaurante.backend.service;
+
+import com.catasoft.restaurante.backend.dto.MetricasCocinaDTO;
+import com.catasoft.restaurante.backend.model.ComandaArea;
+import com.catasoft.restaurante.backend.model.ComandaAreaItem;
+import com.catasoft.restaurante.backend.model.Producto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Métricas de rendimiento de cocina por área y por producto.
+ * Se alimentan de las transiciones de ComandaArea (inicio, lista, entregada) después del commit
+ * y se registran como Timers de Micrometer con percentiles p50/p95/p99 sobre una ventana
+ * deslizante, de modo que se pueden consultar en /actuator/metrics o en /api/v1/cocina/metricas
+ * sin recorrer comanda_areas con SQL. El count y la media del Timer son acumulados desde el
+ * arranque, así que el resumen los calcula aparte sobre la misma ventana que los percentiles.
+ */
+@Service
+public class MetricasCocinaService {
+
+    public static final int VENTANA_MINUTOS = 15;
+    private static final int BUFFERS_VENTANA = 5;
+
+    private static final String METRICA_ESPERA = "cocina.espera";
+    private static final String METRICA_PREPARACION = "cocina.preparacion";
+    private static final String METRICA_ENTREGA = "cocina.entrega";
+    private static final String METRICA_PREPARACION_PRODUCTO = "cocina.preparacion.producto";
+
+    private final MeterRegistry meterRegistry;
+    private final CatalogoAreasService catalogoAreasService;
+    private final CatalogoProductosService catalogoProductosService;
+    private final Map<String, Medidor> medidores = new ConcurrentHashMap<>();
+    private final Set<String> areas = ConcurrentHashMap.newKeySet();
+    private final Set<Long> productos = ConcurrentHashMap.newKeySet();
+
+    public MetricasCocinaService(MeterRegistry meterRegistry, CatalogoAreasService catalogoAreasService,
+                                 CatalogoProductosService catalogoProductosService) {
+        this.meterRegistry = meterRegistry;
+        this.catalogoAreasService = catalogoAreasService;
+        this.catalogoProductosService = catalogoProductosService;
+    }
+
+    /**
+     * La comanda de área pasó a preparación: registra el tiempo en cola.
+     */
+    public void registrarInicio(ComandaArea comandaArea) {
+        String areaId = comandaArea.getAreaId();
+        Duration espera = duracion(comandaArea.getCreatedAt(), comandaArea.getStartedAt());
+        TransaccionUtils.ejecutarTrasCommit(() -> registrar(timerArea(METRICA_ESPERA, areaId), espera));
+    }
+
+    /**
+     * La comanda de área quedó lista: registra el tiempo de preparación del área y de cada producto.
+     * Los items los pasa quien ya los cargó, así este método no dispara consultas.
+     */
+    public void registrarLista(ComandaArea comandaArea, List<ComandaAreaItem> items) {
+        String areaId = comandaArea.getAreaId();
+        Duration preparacion = duracion(comandaArea.getStartedAt(), comandaArea.getCompletedAt());
+        if (preparacion == null) {
+            return;
+        }
+        List<Long> productoIds = items.stream()
+                .map(ComandaAreaItem::getProducto)
+                .filter(Objects::nonNull)
+                .map(Producto::getId)
+                .distinct()
+                .collect(Collectors.toList());
+        TransaccionUtils.ejecutarTrasCommit(() -> {
+            registrar(timerArea(METRICA_PREPARACION, areaId), preparacion);
+            for (Long productoId : productoIds) {
+                registrar(timerProducto(productoId), preparacion);
+            }
+        });
+    }
+
+    /**
+     * La comanda de área se entregó: registra el tiempo desde que estuvo lista.
+     */
+    public void registrarEntrega(ComandaArea comandaArea) {
+        String areaId = comandaArea.getAreaId();
+        Duration entrega = duracion(comandaArea.getCompletedAt(), LocalDateTime.now());
+        TransaccionUtils.ejecutarTrasCommit(() -> registrar(timerArea(METRICA_ENTREGA, areaId), entrega));
+    }
+
+    /**
+     * Resumen de todas las áreas y productos con datos, ordenado por p95 de preparación descendente
+     * para que el cuello de botella aparezca primero.
+     */
+    public MetricasCocinaDTO getMetricas() {
+        List<MetricasCocinaDTO.Area> resumenAreas = new ArrayList<>();
+        for (String areaId : new TreeSet<>(areas)) {
+            String nombre = catalogoAreasService.findByAreaId(areaId)
+                    .map(CatalogoAreasService.AreaInfo::nombre)
+                    .orElse(areaId);
+            resumenAreas.add(new MetricasCocinaDTO.Area(areaId, nombre,
+                    resumir(timerArea(METRICA_ESPERA, areaId)),
+                    resumir(timerArea(METRICA_PREPARACION, areaId)),
+                    resumir(timerArea(METRICA_ENTREGA, areaId))));
+        }
+        resumenAreas.sort(Comparator.comparingDouble((MetricasCocinaDTO.Area a) -> a.preparacion().p95Ms()).reversed());
+
+        List<MetricasCocinaDTO.Producto> resumenProductos = new ArrayList<>();
+        for (Long productoId : productos) {
+            String nombre = catalogoProductosService.findById(productoId)
+                    .map(Producto::getNombre)
+                    .orElse("Producto " + productoId);
+            resumenProductos.add(new MetricasCocinaDTO.Producto(productoId, nombre, resumir(timerProducto(productoId))));
+        }
+        resumenProductos.sort(Comparator.comparingDouble((MetricasCocinaDTO.Producto p) -> p.preparacion().p95Ms()).reversed());
+
+        return new MetricasCocinaDTO(VENTANA_MINUTOS, resumenAreas, resumenProductos);
+    }
+
+    /**
+     * Timer de Micrometer más el conteo y la suma de la misma ventana.
+     */
+    private record Medidor(Timer timer, Ventana ventana) {
+    }
+
+    /**
+     * Conteo y suma de duraciones en BUFFERS_VENTANA tramos que rotan, como los percentiles
+     * del Timer: cada tramo cubre VENTANA_MINUTOS / BUFFERS_VENTANA y se descarta al vencer.
+     */
+    private static final class Ventana {
+        private static final long TRAMO_MS = TimeUnit.MINUTES.toMillis(VENTANA_MINUTOS) / BUFFERS_VENTANA;
+
+        private final long[] inicios = new long[BUFFERS_VENTANA];
+        private final long[] cantidades = new long[BUFFERS_VENTANA];
+        private final long[] totalesNanos = new long[BUFFERS_VENTANA];
+
+        synchronized void registrar(Duration duracion, long ahoraMs) {
+            long inicio = ahoraMs - ahoraMs % TRAMO_MS;
+            int posicion = (int) ((inicio / TRAMO_MS) % BUFFERS_VENTANA);
+            if (inicios[posicion] != inicio) {
+                inicios[posicion] = inicio;
+                cantidades[posicion] = 0;
+                totalesNanos[posicion] = 0;
+            }
+            cantidades[posicion]++;
+            totalesNanos[posicion] += duracion.toNanos();
+        }
+
+        // {cantidad, suma en nanos} de los tramos que siguen dentro de la ventana
+        synchronized long[] totales(long ahoraMs) {
+            long desde = ahoraMs - ahoraMs % TRAMO_MS - (BUFFERS_VENTANA - 1) * TRAMO_MS;
+            long cantidad = 0;
+            long nanos = 0;
+            for (int i = 0; i < BUFFERS_VENTANA; i++) {
+                if (inicios[i] >= desde) {
+                    cantidad += cantidades[i];
+                    nanos += totalesNanos[i];
+                }
+            }
+            return new long[]{cantidad, nanos};
+        }
+    }
+
+    private Medidor timerArea(String nombre, String areaId) {
+        areas.add(areaId);
+        return medidores.computeIfAbsent(nombre + "|" + areaId, k -> construir(nombre, "area", areaId));
+    }
+
+    private Medidor timerProducto(Long productoId) {
+        productos.add(productoId);
+        return medidores.computeIfAbsent(METRICA_PREPARACION_PRODUCTO + "|" + productoId,
+                k -> construir(METRICA_PREPARACION_PRODUCTO, "producto", String.valueOf(productoId)));
+    }
+
+    private Medidor construir(String nombre, String tag, String valor) {
+        Timer timer = Timer.builder(nombre)
+                .tag(tag, valor)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .distributionStatisticExpiry(Duration.ofMinutes(VENTANA_MINUTOS))
+                .distributionStatisticBufferLength(BUFFERS_VENTANA)
+                .register(meterRegistry);
+        return new Medidor(timer, new Ventana());
+    }
+
+    private static void registrar(Medidor medidor, Duration duracion) {
+        if (duracion != null) {
+            medidor.timer().record(duracion);
+            medidor.ventana().registrar(duracion, System.currentTimeMillis());
+        }
+    }
+
+    private static Duration duracion(LocalDateTime desde, LocalDateTime hasta) {
+        if (desde == null || hasta == null || hasta.isBefore(desde)) {
+            return null;
+        }
+        return Duration.between(desde, hasta);
+    }
+
+    private static MetricasCocinaDTO.Resumen resumir(Medidor medidor) {
+        HistogramSnapshot snapshot = medidor.timer().takeSnapshot();
+        double p50 = 0, p95 = 0, p99 = 0;
+        for (ValueAtPercentile percentil : snapshot.percentileValues()) {
+            double valor = percentil.value(TimeUnit.MILLISECONDS);
+            if (percentil.percentile() == 0.5) {
+                p50 = valor;
+            } else if (percentil.percentile() == 0.95) {
+                p95 = valor;
+            } else if (percentil.percentile() == 0.99) {
+                p99 = valor;
+            }
+        }
+        long[] ventana = medidor.ventana().totales(System.currentTimeMillis());
+        double mediaMs = ventana[0] > 0 ? (double) ventana[1] / ventana[0] / 1_000_000.0 : 0;
+        return new MetricasCocinaDTO.Resumen(ventana[0], mediaMs, p50, p95, p99, snapshot.max(TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,223 @@
+package com.catasoft.restaurante.backend.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Outbox de notificaciones STOMP.
+ * Los eventos emitidos dentro de una transacción se acumulan y se publican
+ * después del commit en un ejecutor dedicado; si hay rollback se descartan.
+ * Eventos con el mismo destino y clave dentro de una transacción se colapsan
+ * y solo se publica el último. Cada evento publicado se guarda en el historial con una
+ * secuencia global, que viaja en la cabecera x-secuencia (junto con la época del servidor en
+ * x-epoca) para que el cliente pueda reanudar.
+ */
+@Service
+public class NotificacionOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificacionOutboxService.class);
+
+    private static final int CAPACIDAD_COLA = 10_000;
+    // Cuánto espera quien publica si la cola está llena antes de rechazar el evento
+    private static final long ESPERA_COLA_LLENA_MS = 5_000;
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final HistorialEventosService historialEventos;
+    private final ThreadPoolExecutor executor;
+    private final Timer latenciaPublicacion;
+    private final Counter colapsados;
+    private final Counter descartadosPorRollback;
+    private final Counter rechazados;
+    private final AtomicLong secuenciaSinClave = new AtomicLong();
+    private final AtomicInteger pendientes = new AtomicInteger();
+
+    public NotificacionOutboxService(SimpMessagingTemplate messagingTemplate, HistorialEventosService historialEventos,
+                                     MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.historialEventos = historialEventos;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(CAPACIDAD_COLA),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "outbox-notificaciones");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                this::esperarLugarEnCola);
+
+        Gauge.builder("outbox.notificaciones.pendientes", pendientes, AtomicInteger::get)
+                .description("Eventos STOMP esperando ser publicados")
+                .register(meterRegistry);
+        this.latenciaPublicacion = Timer.builder("outbox.notificaciones.latencia")
+                .description("Tiempo desde el commit hasta la publicación del evento")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.colapsados = Counter.builder("outbox.notificaciones.colapsados")
+                .description("Eventos duplicados colapsados dentro de una transacción")
+                .register(meterRegistry);
+        this.descartadosPorRollback = Counter.builder("outbox.notificaciones.descartados")
+                .description("Eventos descartados por rollback de la transacción")
+                .register(meterRegistry);
+        this.rechazados = Counter.builder("outbox.notificaciones.rechazados")
+                .description("Eventos rechazados porque la cola del outbox siguió llena")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Con la cola llena, quien publica espera lugar en lugar de publicar en su propio hilo:
+     * todo sale del hilo del outbox y la secuencia llega a los clientes en orden. Si la cola
+     * sigue llena pasado el tiempo de espera el evento se rechaza con error.
+     */
+    private void esperarLugarEnCola(Runnable tarea, ThreadPoolExecutor ejecutor) {
+        if (ejecutor.isShutdown()) {
+            throw new RejectedExecutionException("Outbox de notificaciones detenido");
+        }
+        try {
+            if (ejecutor.getQueue().offer(tarea, ESPERA_COLA_LLENA_MS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rechazados.increment();
+        logger.error("Cola del outbox de notificaciones llena ({} eventos): se rechaza la publicación", CAPACIDAD_COLA);
+        throw new RejectedExecutionException("Cola del outbox de notificaciones llena");
+    }
+
+    private record Evento(String destino, Supplier<?> payload) {
+    }
+
+    /**
+     * Publica un evento sin deduplicación.
+     */
+    public void publicar(String destino, Object payload) {
+        publicar(destino, "#" + secuenciaSinClave.incrementAndGet(), payload);
+    }
+
+    /**
+     * Publica un evento. Dentro de una transacción, un evento posterior con el mismo
+     * destino y clave reemplaza al anterior.
+     */
+    public void publicar(String destino, String clave, Object payload) {
+        publicarDiferido(destino, clave, () -> payload);
+    }
+
+    /**
+     * Igual que publicarDiferido con clave, pero sin deduplicación.
+     */
+    public void publicarDiferido(String destino, Supplier<?> payload) {
+        publicarDiferido(destino, "#" + secuenciaSinClave.incrementAndGet(), payload);
+    }
+
+    /**
+     * Publica un evento cuyo payload se construye en el hilo del outbox, justo antes de enviarlo.
+     * Como ese hilo es único, lo que el constructor asigne (por ejemplo un número de secuencia)
+     * sigue el mismo orden en que los clientes reciben los mensajes.
+     */
+    public void publicarDiferido(String destino, String clave, Supplier<?> payload) {
+        Evento evento = new Evento(destino, payload);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            encolar(List.of(evento));
+            return;
+        }
+
+        Map<String, Evento> buffer = obtenerBufferTransaccional();
+        String claveCompleta = destino + "|" + clave;
+        if (buffer.remove(claveCompleta) != null) {
+            colapsados.increment();
+        }
+        buffer.put(claveCompleta, evento);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Evento> obtenerBufferTransaccional() {
+        Map<String, Evento> buffer = (Map<String, Evento>) TransactionSynchronizationManager.getResource(this);
+        if (buffer != null) {
+            return buffer;
+        }
+
+        Map<String, Evento> nuevo = new LinkedHashMap<>();
+        TransactionSynchronizationManager.bindResource(this, nuevo);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(NotificacionOutboxService.this);
+                if (status == STATUS_COMMITTED) {
+                    encolar(new ArrayList<>(nuevo.values()));
+                } else {
+                    descartadosPorRollback.increment(nuevo.size());
+                    logger.debug("Transacción no confirmada, se descartan {} notificaciones", nuevo.size());
+                }
+            }
+        });
+        return nuevo;
+    }
+
+    private void encolar(List<Evento> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        long encoladoEn = System.nanoTime();
+        pendientes.addAndGet(eventos.size());
+        try {
+            executor.execute(() -> publicarEnOrden(eventos, encoladoEn));
+        } catch (RejectedExecutionException e) {
+            pendientes.addAndGet(-eventos.size());
+            throw e;
+        }
+    }
+
+    private void publicarEnOrden(List<Evento> eventos, long encoladoEn) {
+        for (Evento evento : eventos) {
+            try {
+                Object payload = evento.payload().get();
+                long secuencia = historialEventos.registrar(evento.destino(), payload);
+                messagingTemplate.convertAndSend(evento.destino(), payload,
+                        Map.of(HistorialEventosService.CABECERA_SECUENCIA, String.valueOf(secuencia),
+                                HistorialEventosService.CABECERA_EPOCA, String.valueOf(historialEventos.getEpoca())));
+            } catch (Exception e) {
+                logger.error("Error publicando notificación en {}: {}", evento.destino(), e.getMessage());
+            } finally {
+                pendientes.decrementAndGet();
+            }
+            latenciaPublicacion.record(System.nanoTime() - encoladoEn, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public int getPendientes() {
+        return pendientes.get();
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -18,6 +18,8 @@ public class PreparationAreaService {
     private PreparationAreaRepository preparationAreaRepository;
     @Autowired
     private AreaRepository areaRepository;
+    @Autowired
+    private CatalogoAreasService catalogoAreasService;
 
     public List<PreparationArea> findAll() {
         List<PreparationArea> areas = new ArrayList<>(preparationAreaRepository.findAll());
@@ -69,10 +71,12 @@ public class PreparationAreaService {
         areaEntity.setUpdatedAt(saved.getUpdatedAt());
         areaRepository.save(areaEntity);
 
+        TransaccionUtils.ejecutarTrasCommit(catalogoAreasService::invalidar);
         return saved;
     }
 
     public void delete(Long id) {
         preparationAreaRepository.deleteById(id);
+        TransaccionUtils.ejecutarTrasCommit(catalogoAreasService::invalidar);
     }
 } 
\ No newline at end of file
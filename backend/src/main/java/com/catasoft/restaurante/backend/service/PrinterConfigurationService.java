@@ -4,6 +4,7 @@ import com.catasoft.restaurante.backend.exception.ResourceNotFoundException;
 import com.catasoft.restaurante.backend.model.PrinterConfiguration;
 import com.catasoft.restaurante.backend.repository.PrinterConfigurationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,10 +15,12 @@ import java.util.Optional;
 public class PrinterConfigurationService {
 
     private final PrinterConfigurationRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public PrinterConfigurationService(PrinterConfigurationRepository repository) {
+    public PrinterConfigurationService(PrinterConfigurationRepository repository, ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional(readOnly = true)
@@ -61,6 +64,9 @@ public class PrinterConfigurationService {
             existingConfig.setPrinterTarget(configuration.getPrinterTarget());
             existingConfig.setAreaId(configuration.getAreaId()); // NUEVO: actualizar área
             existingConfig.setTemplateId(configuration.getTemplateId()); // NUEVO: actualizar plantilla
+            existingConfig.setBackupTarget(configuration.getBackupTarget());
+            existingConfig.setAjustePrioridad(configuration.getAjustePrioridad());
+            notificarCambio();
             return repository.save(existingConfig);
 
         } else {
@@ -69,6 +75,7 @@ public class PrinterConfigurationService {
             repository.findByRole(configuration.getRole()).ifPresent(c -> {
                 throw new IllegalStateException("El rol '" + configuration.getRole() + "' ya existe. Por favor, edítelo.");
             });
+            notificarCambio();
             return repository.save(configuration);
         }
     }
@@ -79,6 +86,7 @@ public class PrinterConfigurationService {
             throw new ResourceNotFoundException("No se encontró una configuración de impresora con el ID: " + id);
         }
         repository.deleteById(id);
+        notificarCambio();
     }
 
     /**
@@ -101,6 +109,12 @@ public class PrinterConfigurationService {
         defaultConfig.setPrinterTarget("\\\\127.0.0.1\\ticketera");
         defaultConfig.setAreaId(role.toLowerCase());
 
+        notificarCambio();
         return repository.save(defaultConfig);
     }
+
+    // El catálogo de impresión se recarga cuando la transacción confirma
+    private void notificarCambio() {
+        eventPublisher.publishEvent(new CatalogoImpresionService.CambioConfiguracionImpresion());
+    }
 }
\ No newline at end of file
@@ -18,6 +18,9 @@ public class ProductAreaService {
     @Autowired
     private ProductoRepository productoRepository;
 
+    @Autowired
+    private EnrutamientoAreasService enrutamientoAreasService;
+
     public List<ProductArea> findAll() {
         return productAreaRepository.findAll();
     }
@@ -42,10 +45,13 @@ public class ProductAreaService {
                 pa.setProducto(productoOpt.get());
             }
         }
-        return productAreaRepository.save(pa);
+        ProductArea guardado = productAreaRepository.save(pa);
+        enrutamientoAreasService.recargar();
+        return guardado;
     }
 
     public void delete(Long id) {
         productAreaRepository.deleteById(id);
+        enrutamientoAreasService.recargar();
     }
 } 
\ No newline at end of file
@@ -12,9 +12,12 @@ import java.util.Optional;
 @Service
 public class RecetaIngredienteService {
     private final RecetaIngredienteRepository recetaIngredienteRepository;
+    private final DisponibilidadMenuService disponibilidadMenuService;
 
-    public RecetaIngredienteService(RecetaIngredienteRepository recetaIngredienteRepository) {
+    public RecetaIngredienteService(RecetaIngredienteRepository recetaIngredienteRepository,
+                                    DisponibilidadMenuService disponibilidadMenuService) {
         this.recetaIngredienteRepository = recetaIngredienteRepository;
+        this.disponibilidadMenuService = disponibilidadMenuService;
     }
 
     public List<RecetaIngrediente> findByProducto(Producto producto) {
@@ -26,15 +29,19 @@ public class RecetaIngredienteService {
     }
 
     public RecetaIngrediente save(RecetaIngrediente recetaIngrediente) {
-        return recetaIngredienteRepository.save(recetaIngrediente);
+        RecetaIngrediente guardada = recetaIngredienteRepository.save(recetaIngrediente);
+        recargarMatrizTrasCommit();
+        return guardada;
     }
 
     public void deleteById(Long id) {
         recetaIngredienteRepository.deleteById(id);
+        recargarMatrizTrasCommit();
     }
 
     public void deleteByProductoId(Long productoId) {
         recetaIngredienteRepository.deleteByProductoId(productoId);
+        recargarMatrizTrasCommit();
     }
 
     public Optional<RecetaIngrediente> findById(Long id) {
@@ -44,11 +51,15 @@ public class RecetaIngredienteService {
     @Transactional
     public void actualizarRecetaProducto(Long productoId, List<RecetaIngrediente> nuevasRecetas) {
         // Eliminar recetas existentes
-        deleteByProductoId(productoId);
+        recetaIngredienteRepository.deleteByProductoId(productoId);
         
         // Guardar nuevas recetas
-        for (RecetaIngrediente receta : nuevasRecetas) {
-            save(receta);
-        }
+        recetaIngredienteRepository.saveAll(nuevasRecetas);
+        recargarMatrizTrasCommit();
+    }
+
+    // La matriz de disponibilidad se reconstruye cuando la receta queda confirmada
+    private void recargarMatrizTrasCommit() {
+        TransaccionUtils.ejecutarTrasCommit(disponibilidadMenuService::recargar);
     }
 }
@@ -0,0 +1,394 @@
+package com.catasoft.restaurante.backend.service;
+
+import com.catasoft.restaurante.backend.dto.TicketBlockDTO;
+import com.catasoft.restaurante.backend.dto.TicketTemplateDTO;
+import com.catasoft.restaurante.backend.model.dto.CocinaItemDTO;
+import com.catasoft.restaurante.backend.model.dto.CocinaTicketDTO;
+import com.catasoft.restaurante.backend.model.dto.PrintJobDTO;
+import com.catasoft.restaurante.backend.model.dto.TicketDTO;
+import com.catasoft.restaurante.backend.model.dto.TicketItemDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Motor de renderizado ESC/POS.
+ * Cada plantilla se compila una vez en un plan de pasos: los textos fijos, separadores y
+ * encabezados quedan ya codificados en bytes y solo las partes que dependen del ticket
+ * (fecha, ítems, total) se generan al imprimir. Los planes se guardan por id de plantilla
+ * y versión (updatedAt), así una plantilla editada se recompila en el siguiente ticket.
+ */
+@Service
+public class RenderizadorTicketService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenderizadorTicketService.class);
+
+    static final int ANCHO = 32; // Columnas del papel de 58 mm (fuente A)
+    private static final Charset CODIFICACION = Charset.isSupported("IBM850") ? Charset.forName("IBM850") : StandardCharsets.US_ASCII;
+    private static final DateTimeFormatter FORMATO_FECHA_DEFECTO = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    // Comandos ESC/POS
+    private static final byte[] INICIALIZAR = {0x1B, 0x40, 0x1B, 0x74, 0x02}; // ESC @ + tabla PC850
+    private static final byte[] NEGRITA_SI = {0x1B, 0x45, 0x01};
+    private static final byte[] NEGRITA_NO = {0x1B, 0x45, 0x00};
+    private static final byte[] ALINEAR_IZQUIERDA = {0x1B, 0x61, 0x00};
+    private static final byte[] ALINEAR_CENTRO = {0x1B, 0x61, 0x01};
+    private static final byte[] ALINEAR_DERECHA = {0x1B, 0x61, 0x02};
+    private static final byte[] CORTAR = {0x0A, 0x0A, 0x0A, 0x1D, 0x56, 0x42, 0x00};
+    private static final byte SALTO = 0x0A;
+
+    private static final String SEPARADOR = "-".repeat(ANCHO);
+    private static final String SEPARADOR_DOBLE = "=".repeat(ANCHO);
+
+    // Planes por defecto para trabajos sin plantilla (mismo formato que imprimía el puente)
+    private static final PlanTicket PLAN_COCINA = planCocinaPorDefecto();
+    private static final PlanTicket PLAN_CAJA = planCajaPorDefecto();
+
+    private final Map<Long, PlanTicket> planes = new ConcurrentHashMap<>();
+
+    /**
+     * Datos del ticket normalizados, sean de caja o de cocina.
+     */
+    private record DatosTicket(Long comandaId, String nombreMesa, LocalDateTime fechaHora, List<Linea> items, BigDecimal total,
+                               List<String> marca) {
+    }
+
+    private record Linea(int cantidad, String producto, BigDecimal precioUnitario, BigDecimal precioTotal, String notas) {
+    }
+
+    /**
+     * Un paso del plan: escribe en la salida a partir de los datos del ticket.
+     */
+    @FunctionalInterface
+    private interface Paso {
+        void escribir(ByteArrayOutputStream salida, DatosTicket datos);
+    }
+
+    /**
+     * Plantilla compilada. La versión es el updatedAt de la plantilla al compilarla.
+     */
+    private record PlanTicket(LocalDateTime version, List<Paso> pasos) {
+
+        byte[] renderizar(DatosTicket datos) {
+            ByteArrayOutputStream salida = new ByteArrayOutputStream(512);
+            salida.writeBytes(INICIALIZAR);
+            if (!datos.marca().isEmpty()) {
+                // Adiciones y reimpresiones se distinguen antes que nada en el ticket
+                salida.writeBytes(ALINEAR_CENTRO);
+                salida.writeBytes(NEGRITA_SI);
+                for (String texto : datos.marca()) {
+                    salida.writeBytes(linea(texto));
+                }
+                salida.writeBytes(NEGRITA_NO);
+            }
+            for (Paso paso : pasos) {
+                paso.escribir(salida, datos);
+            }
+            salida.writeBytes(CORTAR);
+            return salida.toByteArray();
+        }
+    }
+
+    /**
+     * Renderiza el trabajo completo (con su plantilla ya resuelta) a bytes ESC/POS.
+     * Lanza IllegalArgumentException si los datos del ticket no son de un tipo conocido.
+     */
+    public byte[] renderizar(PrintJobDTO trabajo) {
+        DatosTicket datos = normalizar(trabajo.ticketData());
+        return plan(trabajo).renderizar(datos);
+    }
+
+    /**
+     * Descarta el plan compilado de una plantilla (al editarla o eliminarla).
+     */
+    public void invalidar(Long templateId) {
+        if (templateId != null) {
+            planes.remove(templateId);
+        }
+    }
+
+    private PlanTicket plan(PrintJobDTO trabajo) {
+        TicketTemplateDTO template = trabajo.template();
+        if (template == null || template.getBlocks() == null || template.getBlocks().isEmpty()) {
+            return esCocina(trabajo) ? PLAN_COCINA : PLAN_CAJA;
+        }
+        if (template.getId() == null) {
+            return compilar(template);
+        }
+        PlanTicket actual = planes.get(template.getId());
+        if (actual != null && Objects.equals(actual.version(), template.getUpdatedAt())) {
+            return actual;
+        }
+        PlanTicket compilado = compilar(template);
+        planes.put(template.getId(), compilado);
+        logger.info("Plantilla '{}' ({}) compilada: {} pasos", template.getName(), template.getId(), compilado.pasos().size());
+        return compilado;
+    }
+
+    private static boolean esCocina(PrintJobDTO trabajo) {
+        String area = trabajo.area() != null ? trabajo.area() : trabajo.ticketType();
+        return "COCINA".equals(trabajo.ticketType()) || (area != null && area.toUpperCase().contains("COCINA"));
+    }
+
+    private static PlanTicket compilar(TicketTemplateDTO template) {
+        List<Paso> pasos = new ArrayList<>(template.getBlocks().size());
+        for (TicketBlockDTO bloque : template.getBlocks()) {
+            Paso paso = compilarBloque(bloque);
+            if (paso != null) {
+                pasos.add(paso);
+            }
+        }
+        return new PlanTicket(template.getUpdatedAt(), List.copyOf(pasos));
+    }
+
+    private static Paso compilarBloque(TicketBlockDTO bloque) {
+        String tipo = bloque.getType() != null ? bloque.getType() : "";
+        byte[] alineacion = alineacion(bloque.getAlign());
+        switch (tipo) {
+            case "text": {
+                boolean negrita = Boolean.TRUE.equals(bloque.getBold());
+                byte[] fijo = concatenar(alineacion, negrita ? NEGRITA_SI : new byte[0],
+                        linea(bloque.getValue() != null ? bloque.getValue() : ""), negrita ? NEGRITA_NO : new byte[0]);
+                return (salida, datos) -> salida.writeBytes(fijo);
+            }
+            case "line": {
+                byte[] fijo = linea(SEPARADOR);
+                return (salida, datos) -> salida.writeBytes(fijo);
+            }
+            case "datetime": {
+                DateTimeFormatter formato = formatoFecha(bloque.getFormat());
+                return (salida, datos) -> {
+                    salida.writeBytes(alineacion);
+                    salida.writeBytes(linea(fecha(datos).format(formato)));
+                };
+            }
+            case "table": {
+                List<String> columnas = bloque.getColumns();
+                boolean detallada = columnas != null && columnas.contains("Producto");
+                byte[] encabezado = columnas != null && !columnas.isEmpty()
+                        ? concatenar(ALINEAR_IZQUIERDA, linea(String.join(" | ", columnas)), linea(SEPARADOR))
+                        : ALINEAR_IZQUIERDA;
+                return (salida, datos) -> {
+                    salida.writeBytes(encabezado);
+                    for (Linea item : datos.items()) {
+                        String texto = detallada && item.precioTotal() != null
+                                ? item.cantidad() + " | " + item.producto() + " | $" + dinero(item.precioUnitario()) + " | $" + dinero(item.precioTotal())
+                                : item.cantidad() + " x " + item.producto() + (item.precioTotal() != null ? " - $" + dinero(item.precioTotal()) : "");
+                        salida.writeBytes(linea(texto));
+                        escribirNotas(salida, item);
+                    }
+                };
+            }
+            case "total": {
+                String etiqueta = bloque.getLabel() != null ? bloque.getLabel() : "Total";
+                return (salida, datos) -> {
+                    salida.writeBytes(ALINEAR_DERECHA);
+                    salida.writeBytes(linea(etiqueta + ": $" + dinero(datos.total())));
+                };
+            }
+            default:
+                logger.warn("Tipo de bloque no reconocido en plantilla: '{}'", tipo);
+                return null;
+        }
+    }
+
+    private static PlanTicket planCocinaPorDefecto() {
+        byte[] encabezado = concatenar(ALINEAR_CENTRO, linea("COCINA"), linea(SEPARADOR_DOBLE), ALINEAR_IZQUIERDA);
+        byte[] columnas = concatenar(linea(SEPARADOR), linea("Cant. | Producto"), linea(SEPARADOR));
+        byte[] pie = concatenar(linea(SEPARADOR), ALINEAR_CENTRO, linea("¡LISTO PARA PREPARAR!"), linea(""));
+        return new PlanTicket(null, List.of(
+                (salida, datos) -> salida.writeBytes(encabezado),
+                RenderizadorTicketService::escribirCabeceraComanda,
+                (salida, datos) -> salida.writeBytes(linea("Hora: " + fecha(datos).format(FORMATO_HORA))),
+                (salida, datos) -> salida.writeBytes(columnas),
+                (salida, datos) -> {
+                    for (Linea item : datos.items()) {
+                        salida.writeBytes(linea(rellenarIzquierda(String.valueOf(item.cantidad()), 3) + " x " + recortar(item.producto(), 25)));
+                        escribirNotas(salida, item);
+                    }
+                },
+                (salida, datos) -> salida.writeBytes(pie)));
+    }
+
+    private static PlanTicket planCajaPorDefecto() {
+        byte[] encabezado = concatenar(ALINEAR_CENTRO, linea("TICKET DE CAJA"), linea(SEPARADOR_DOBLE), ALINEAR_IZQUIERDA);
+        byte[] columnas = concatenar(linea(SEPARADOR), linea("Cant. | Producto | Total"), linea(SEPARADOR));
+        byte[] gracias = concatenar(ALINEAR_CENTRO, linea("¡Gracias por su visita!"), linea(""));
+        return new PlanTicket(null, List.of(
+                (salida, datos) -> salida.writeBytes(encabezado),
+                RenderizadorTicketService::escribirCabeceraComanda,
+                (salida, datos) -> salida.writeBytes(linea("Fecha: " + fecha(datos).format(FORMATO_FECHA_DEFECTO))),
+                (salida, datos) -> salida.writeBytes(columnas),
+                (salida, datos) -> {
+                    for (Linea item : datos.items()) {
+                        String producto = String.format("%-20s", recortar(item.producto(), 20));
+                        String total = rellenarIzquierda("$" + dinero(item.precioTotal()), 8);
+                        salida.writeBytes(linea(rellenarIzquierda(String.valueOf(item.cantidad()), 3) + " | " + producto + " | " + total));
+                    }
+                },
+                (salida, datos) -> {
+                    salida.writeBytes(linea(SEPARADOR));
+                    salida.writeBytes(ALINEAR_DERECHA);
+                    salida.writeBytes(linea("TOTAL: $" + dinero(datos.total())));
+                },
+                (salida, datos) -> salida.writeBytes(gracias)));
+    }
+
+    private static void escribirCabeceraComanda(ByteArrayOutputStream salida, DatosTicket datos) {
+        salida.writeBytes(linea("Mesa: " + datos.nombreMesa()));
+        salida.writeBytes(linea("Comanda: " + (datos.comandaId() != null ? datos.comandaId() : "N/A")));
+    }
+
+    private static void escribirNotas(ByteArrayOutputStream salida, Linea item) {
+        if (item.notas() != null && !item.notas().isBlank()) {
+            salida.writeBytes(linea("     Nota: " + item.notas()));
+        }
+    }
+
+    private static DatosTicket normalizar(Object ticketData) {
+        if (ticketData instanceof TicketDTO ticket) {
+            List<Linea> items = new ArrayList<>(ticket.items() != null ? ticket.items().size() : 0);
+            if (ticket.items() != null) {
+                for (TicketItemDTO item : ticket.items()) {
+                    items.add(new Linea(cantidad(item.cantidad()), nombre(item.nombreProducto()),
+                            item.precioUnitario(), item.precioTotal(), null));
+                }
+            }
+            return new DatosTicket(ticket.comandaId(), ticket.nombreMesa(), ticket.fechaHora(), items, ticket.total(), List.of());
+        }
+        if (ticketData instanceof CocinaTicketDTO ticket) {
+            List<Linea> items = new ArrayList<>(ticket.items() != null ? ticket.items().size() : 0);
+            if (ticket.items() != null) {
+                for (CocinaItemDTO item : ticket.items()) {
+                    items.add(new Linea(cantidad(item.cantidad()), nombre(item.nombreProducto()), null, null, item.notas()));
+                }
+            }
+            return new DatosTicket(ticket.comandaId(), ticket.nombreMesa(), ticket.fechaHora(), items, null, List.of());
+        }
+        if (ticketData instanceof Map<?, ?> ticket) {
+            // Tickets de área armados por ComandaAreaService
+            List<Linea> items = new ArrayList<>();
+            if (ticket.get("items") instanceof List<?> lista) {
+                for (Object elemento : lista) {
+                    if (elemento instanceof Map<?, ?> item) {
+                        int cantidad = cantidad(item.get("cantidad") instanceof Number n ? n.intValue() : null);
+                        BigDecimal precioTotal = decimal(item.get("precioTotal"));
+                        BigDecimal precioUnitario = precioTotal != null && cantidad > 0
+                                ? precioTotal.divide(BigDecimal.valueOf(cantidad), 2, RoundingMode.HALF_UP) : null;
+                        items.add(new Linea(cantidad, nombre(texto(item.get("nombreProducto"))), precioUnitario,
+                                precioTotal, texto(item.get("notas"))));
+                    }
+                }
+            }
+            return new DatosTicket(ticket.get("comandaId") instanceof Number n ? n.longValue() : null,
+                    texto(ticket.get("nombreMesa")),
+                    ticket.get("fechaHora") instanceof LocalDateTime fechaHora ? fechaHora : null,
+                    items, decimal(ticket.get("total")), marca(ticket));
+        }
+        throw new IllegalArgumentException("Datos de ticket no soportados: "
+                + (ticketData != null ? ticketData.getClass().getSimpleName() : "null"));
+    }
+
+    // Encabezado de los tickets de adición y reimpresión de una comanda de área
+    private static List<String> marca(Map<?, ?> ticket) {
+        Object tipo = ticket.get("tipoTicket");
+        Object ronda = ticket.get("ronda");
+        if (ComandaAreaService.TICKET_ADICION.equals(tipo)) {
+            int numero = ronda instanceof Number n ? n.intValue() - 1 : 0;
+            return List.of("*** ADICIÓN" + (numero > 0 ? " #" + numero : "") + " ***",
+                    "Ticket original: #" + ticket.get("ticketOriginal"));
+        }
+        if (ComandaAreaService.TICKET_REIMPRESION.equals(tipo)) {
+            return List.of("*** REIMPRESIÓN ***");
+        }
+        return List.of();
+    }
+
+    private static String texto(Object valor) {
+        return valor != null ? valor.toString() : null;
+    }
+
+    private static BigDecimal decimal(Object valor) {
+        if (valor instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        return valor instanceof Number numero ? BigDecimal.valueOf(numero.doubleValue()) : null;
+    }
+
+    private static int cantidad(Integer cantidad) {
+        return cantidad != null ? cantidad : 0;
+    }
+
+    private static String nombre(String producto) {
+        return producto != null ? producto : "Producto";
+    }
+
+    private static LocalDateTime fecha(DatosTicket datos) {
+        return datos.fechaHora() != null ? datos.fechaHora() : LocalDateTime.now();
+    }
+
+    // Los formatos del editor usan la notación de JavaScript (DD/MM/YYYY HH:mm)
+    private static DateTimeFormatter formatoFecha(String formato) {
+        if (formato == null || formato.isBlank()) {
+            return FORMATO_FECHA_DEFECTO;
+        }
+        try {
+            return DateTimeFormatter.ofPattern(formato.replace("YYYY", "yyyy").replace("YY", "yy").replace("DD", "dd"));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Formato de fecha inválido en plantilla: '{}'", formato);
+            return FORMATO_FECHA_DEFECTO;
+        }
+    }
+
+    private static byte[] alineacion(String align) {
+        if ("center".equals(align)) {
+            return ALINEAR_CENTRO;
+        }
+        if ("right".equals(align) || "total".equals(align)) {
+            return ALINEAR_DERECHA;
+        }
+        return ALINEAR_IZQUIERDA;
+    }
+
+    private static String dinero(BigDecimal valor) {
+        return (valor != null ? valor : BigDecimal.ZERO).setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static String recortar(String texto, int largo) {
+        return texto.length() > largo ? texto.substring(0, largo) : texto;
+    }
+
+    private static String rellenarIzquierda(String texto, int largo) {
+        return texto.length() >= largo ? texto : " ".repeat(largo - texto.length()) + texto;
+    }
+
+    private static byte[] linea(String texto) {
+        byte[] codificado = texto.getBytes(CODIFICACION);
+        byte[] resultado = new byte[codificado.length + 1];
+        System.arraycopy(codificado, 0, resultado, 0, codificado.length);
+        resultado[codificado.length] = SALTO;
+        return resultado;
+    }
+
+    private static byte[] concatenar(byte[]... partes) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        for (byte[] parte : partes) {
+            salida.writeBytes(parte);
+        }
+        return salida.toByteArray();
+    }
+}
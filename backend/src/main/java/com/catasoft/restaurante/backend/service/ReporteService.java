@@ -2,74 +2,145 @@ package com.catasoft.restaurante.backend.service;
 
 import com.catasoft.restaurante.backend.dto.ProductoVendidoDTO;
 import com.catasoft.restaurante.backend.dto.ReporteVentasDTO;
-import com.catasoft.restaurante.backend.model.Comanda;
-import com.catasoft.restaurante.backend.model.ComandaItem;
 import com.catasoft.restaurante.backend.model.enums.EstadoComanda;
+import com.catasoft.restaurante.backend.repository.ComandaItemRepository;
 import com.catasoft.restaurante.backend.repository.ComandaRepository;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+/**
+ * Reportes de ventas.
+ * Los días cerrados (anteriores a hoy) se leen de los resúmenes diarios que mantiene
+ * VentasDiariasService; solo el día en curso se calcula desde las comandas con consultas
+ * agrupadas (apoyadas en el índice comandas(estado, fecha_creacion)). En ambos casos el
+ * servicio recibe una fila de resumen y una fila por producto, así la memoria no depende del
+ * rango de fechas.
+ */
 @Service
 public class ReporteService {
 
+    public static final MediaType EXCEL =
+            MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    // Filas que el libro SXSSF mantiene en memoria; las anteriores se escriben a disco
+    private static final int FILAS_EN_MEMORIA = 100;
+    private static final int LOTE_LECTURA = 1_000;
+    private static final int MAX_FILAS_EXCEL = 1_048_576; // Máximo de filas de una hoja .xlsx
+
+    private static final String SQL_DETALLE_VENTAS =
+            "SELECT c.fecha_creacion, c.id, COALESCE(m.nombre, CONCAT('Mesa ', m.numero)), p.nombre, " +
+            "i.cantidad, i.precio_unitario, i.precio_unitario * i.cantidad " +
+            "FROM comanda_items i JOIN comandas c ON c.id = i.comanda_id " +
+            "JOIN productos p ON p.id = i.producto_id LEFT JOIN mesas m ON m.id = c.mesa_id " +
+            "WHERE c.estado = 'PAGADA' AND c.fecha_creacion >= ? AND c.fecha_creacion < ? " +
+            "ORDER BY c.fecha_creacion, c.id, i.id";
+
     private final ComandaRepository comandaRepository;
+    private final ComandaItemRepository comandaItemRepository;
+    private final VentasDiariasService ventasDiariasService;
+    private final JdbcTemplate jdbcTemplate;
 
-    public ReporteService(ComandaRepository comandaRepository) {
+    public ReporteService(ComandaRepository comandaRepository, ComandaItemRepository comandaItemRepository,
+                          VentasDiariasService ventasDiariasService, JdbcTemplate jdbcTemplate) {
         this.comandaRepository = comandaRepository;
+        this.comandaItemRepository = comandaItemRepository;
+        this.ventasDiariasService = ventasDiariasService;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     public ReporteVentasDTO generarReporteVentas(LocalDate fechaInicio, LocalDate fechaFin) {
-        LocalDateTime inicioDelDia = fechaInicio.atStartOfDay();
-        LocalDateTime finDelDia = fechaFin.atTime(LocalTime.MAX);
-
-        List<Comanda> comandasPagadas = comandaRepository.findByEstadoAndFechaHoraCreacionBetween(
-                EstadoComanda.PAGADA, inicioDelDia, finDelDia);
-
-        BigDecimal totalRecaudado = comandasPagadas.stream()
-                .map(Comanda::getTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        Map<Long, ProductoVendidoDTO> productosVendidosMap = comandasPagadas.stream()
-                .flatMap(comanda -> comanda.getItems().stream())
-                .collect(Collectors.groupingBy(item -> item.getProducto().getId(),
-                        Collectors.collectingAndThen(Collectors.toList(), list -> {
-                            ProductoVendidoDTO dto = new ProductoVendidoDTO();
-                            dto.setProductoId(list.get(0).getProducto().getId());
-                            dto.setNombreProducto(list.get(0).getProducto().getNombre());
-                            dto.setCantidadTotal(list.stream().mapToInt(ComandaItem::getCantidad).sum());
-                            java.math.BigDecimal precioUnitario = list.get(0).getProducto().getPrecio();
-                            dto.setPrecioUnitario(precioUnitario);
-                            dto.setTotalGenerado(precioUnitario.multiply(new java.math.BigDecimal(dto.getCantidadTotal())));
-                            return dto;
-                        })));
-
-        List<ProductoVendidoDTO> topProductos = productosVendidosMap.values().stream()
-                .sorted((a, b) -> Integer.compare(b.getCantidadTotal(), a.getCantidadTotal()))
-                .collect(Collectors.toList());
+        LocalDate hoy = LocalDate.now();
+        long numeroDeVentas = 0;
+        BigDecimal totalRecaudado = BigDecimal.ZERO;
+        Map<Long, ProductoVendidoDTO> porProducto = new HashMap<>();
+
+        // Días cerrados: resúmenes diarios
+        LocalDate finCerrado = fechaFin.isBefore(hoy) ? fechaFin : hoy.minusDays(1);
+        if (!fechaInicio.isAfter(finCerrado)) {
+            VentasDiariasService.ResumenVentas resumen = ventasDiariasService.resumen(fechaInicio, finCerrado);
+            numeroDeVentas += resumen.numeroDeVentas();
+            totalRecaudado = totalRecaudado.add(resumen.totalRecaudado());
+            for (VentasDiariasService.VentaProducto venta : ventasDiariasService.ventasPorProducto(fechaInicio, finCerrado)) {
+                acumular(porProducto, venta.productoId(), venta.nombreProducto(), venta.cantidad(), venta.totalGenerado());
+            }
+        }
+
+        // Día en curso (o fechas futuras): desde las comandas
+        if (!fechaFin.isBefore(hoy)) {
+            LocalDateTime inicioAbierto = (fechaInicio.isAfter(hoy) ? fechaInicio : hoy).atStartOfDay();
+            LocalDateTime finDelDia = fechaFin.atTime(LocalTime.MAX);
+            Object[] resumen = comandaRepository.resumirPorEstadoEntre(EstadoComanda.PAGADA, inicioAbierto, finDelDia).get(0);
+            numeroDeVentas += ((Number) resumen[0]).longValue();
+            totalRecaudado = totalRecaudado.add(decimal(resumen[1]));
+            for (Object[] fila : comandaItemRepository.sumarVentasPorProducto(EstadoComanda.PAGADA, inicioAbierto, finDelDia)) {
+                acumular(porProducto, (Long) fila[0], (String) fila[1], ((Number) fila[2]).longValue(), decimal(fila[3]));
+            }
+        }
+
+        List<ProductoVendidoDTO> topProductos = new ArrayList<>(porProducto.values());
+        for (ProductoVendidoDTO dto : topProductos) {
+            // Si el precio cambió dentro del rango, el precio unitario es el promedio ponderado
+            dto.setPrecioUnitario(dto.getCantidadTotal() > 0
+                    ? dto.getTotalGenerado().divide(BigDecimal.valueOf(dto.getCantidadTotal()), 2, RoundingMode.HALF_UP)
+                    : BigDecimal.ZERO);
+        }
+        topProductos.sort((a, b) -> Integer.compare(b.getCantidadTotal(), a.getCantidadTotal()));
 
         ReporteVentasDTO reporte = new ReporteVentasDTO();
         reporte.setFechaInicio(fechaInicio);
         reporte.setFechaFin(fechaFin);
-        reporte.setNumeroDeVentas(comandasPagadas.size());
+        reporte.setNumeroDeVentas((int) numeroDeVentas);
         reporte.setTotalRecaudado(totalRecaudado);
         reporte.setProductosMasVendidos(topProductos);
 
         return reporte;
     }
 
-    public ByteArrayInputStream exportarReporteVentasExcel(ReporteVentasDTO reporte) {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+    private static void acumular(Map<Long, ProductoVendidoDTO> porProducto, Long productoId, String nombre,
+                                 long cantidad, BigDecimal totalGenerado) {
+        ProductoVendidoDTO dto = porProducto.computeIfAbsent(productoId, id -> {
+            ProductoVendidoDTO nuevo = new ProductoVendidoDTO();
+            nuevo.setProductoId(id);
+            nuevo.setNombreProducto(nombre);
+            nuevo.setTotalGenerado(BigDecimal.ZERO);
+            return nuevo;
+        });
+        dto.setCantidadTotal(dto.getCantidadTotal() + (int) cantidad);
+        dto.setTotalGenerado(dto.getTotalGenerado().add(totalGenerado != null ? totalGenerado : BigDecimal.ZERO));
+    }
+
+    private static BigDecimal decimal(Object valor) {
+        if (valor instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        return valor instanceof Number numero ? new BigDecimal(numero.toString()) : BigDecimal.ZERO;
+    }
+
+    /**
+     * Escribe el reporte de ventas en Excel directamente en la salida.
+     */
+    public void exportarReporteVentasExcel(ReporteVentasDTO reporte, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(FILAS_EN_MEMORIA);
+        try {
             Sheet sheet = workbook.createSheet("Reporte de Ventas");
             int rowIdx = 0;
             Row header = sheet.createRow(rowIdx++);
@@ -90,10 +161,62 @@ public class ReporteService {
             totalRow.createCell(2).setCellValue("");
             totalRow.createCell(3).setCellValue(reporte.getTotalRecaudado() != null ? reporte.getTotalRecaudado().doubleValue() : 0);
             workbook.write(out);
-            return new ByteArrayInputStream(out.toByteArray());
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    /**
+     * Escribe en Excel cada ítem vendido en el rango, directamente en la salida.
+     * Las filas se leen de a LOTE_LECTURA desde la base de datos y el libro solo guarda en
+     * memoria las últimas FILAS_EN_MEMORIA (el resto va a archivos temporales), así un año de
+     * ventas no hace crecer el heap. Al llegar al máximo de filas de Excel se abre otra hoja.
+     */
+    public void exportarDetalleVentasExcel(LocalDate fechaInicio, LocalDate fechaFin, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(FILAS_EN_MEMORIA);
+        workbook.setCompressTempFiles(true);
+        try {
+            CellStyle estiloFecha = workbook.createCellStyle();
+            estiloFecha.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("dd/mm/yyyy hh:mm"));
+            Sheet[] hoja = {nuevaHojaDetalle(workbook, 1)};
+            int[] fila = {1};
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(SQL_DETALLE_VENTAS, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(LOTE_LECTURA);
+                ps.setTimestamp(1, Timestamp.valueOf(fechaInicio.atStartOfDay()));
+                ps.setTimestamp(2, Timestamp.valueOf(fechaFin.plusDays(1).atStartOfDay()));
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                if (fila[0] >= MAX_FILAS_EXCEL) {
+                    hoja[0] = nuevaHojaDetalle(workbook, workbook.getNumberOfSheets() + 1);
+                    fila[0] = 1;
+                }
+                Row row = hoja[0].createRow(fila[0]++);
+                Cell fecha = row.createCell(0);
+                fecha.setCellValue(rs.getTimestamp(1).toLocalDateTime());
+                fecha.setCellStyle(estiloFecha);
+                row.createCell(1).setCellValue(rs.getLong(2));
+                row.createCell(2).setCellValue(rs.getString(3));
+                row.createCell(3).setCellValue(rs.getString(4));
+                row.createCell(4).setCellValue(rs.getInt(5));
+                row.createCell(5).setCellValue(rs.getBigDecimal(6).doubleValue());
+                row.createCell(6).setCellValue(rs.getBigDecimal(7).doubleValue());
+            });
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static Sheet nuevaHojaDetalle(SXSSFWorkbook workbook, int numero) {
+        Sheet sheet = workbook.createSheet(numero == 1 ? "Detalle de Ventas" : "Detalle de Ventas " + numero);
+        Row header = sheet.createRow(0);
+        String[] columnas = {"Fecha", "Comanda", "Mesa", "Producto", "Cantidad", "Precio Unitario", "Subtotal"};
+        for (int i = 0; i < columnas.length; i++) {
+            header.createCell(i).setCellValue(columnas[i]);
         }
+        return sheet;
     }
-}
\ No newline at end of file
+}
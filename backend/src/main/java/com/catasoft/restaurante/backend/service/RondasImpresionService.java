@@ -0,0 +1,64 @@
+package com.catasoft.restaurante.backend.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Estado de impresión de los ítems de cada comanda de área.
+ * Cada ticket abre una ronda (comanda_areas.rondas_impresion) y los ítems que todavía no
+ * salieron en ningún ticket quedan marcados con ella (comanda_area_items.ronda_impresion).
+ * Así un ticket de adición lleva solo los ítems de su ronda y una reimpresión no los vuelve a
+ * contar como nuevos. Las columnas no están mapeadas en las entidades para que Hibernate no
+ * las sobrescriba al guardar un ítem.
+ */
+@Service
+public class RondasImpresionService {
+
+    private static final String SQL_ABRIR =
+            "UPDATE comanda_areas SET rondas_impresion = rondas_impresion + 1 WHERE id = ?";
+    private static final String SQL_DESHACER =
+            "UPDATE comanda_areas SET rondas_impresion = rondas_impresion - 1 WHERE id = ?";
+    private static final String SQL_CONSULTAR =
+            "SELECT rondas_impresion FROM comanda_areas WHERE id = ?";
+    private static final String SQL_MARCAR =
+            "UPDATE comanda_area_items SET ronda_impresion = ? WHERE comanda_area_id = ? AND ronda_impresion IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RondasImpresionService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Abre una ronda para un ticket completo (original o reimpresión) y marca en ella los
+     * ítems que no se habían impreso. Devuelve el número de ronda; 1 es el ticket original.
+     */
+    @Transactional
+    public int abrirRonda(Long comandaAreaId) {
+        int ronda = siguiente(comandaAreaId);
+        jdbcTemplate.update(SQL_MARCAR, ronda, comandaAreaId);
+        return ronda;
+    }
+
+    /**
+     * Abre una ronda de adición con los ítems que no se habían impreso.
+     * Devuelve 0 si no hay ítems nuevos, en cuyo caso no se abre la ronda.
+     */
+    @Transactional
+    public int abrirRondaAdicion(Long comandaAreaId) {
+        // El UPDATE bloquea la fila de la comanda de área: dos adiciones simultáneas se serializan
+        int ronda = siguiente(comandaAreaId);
+        if (jdbcTemplate.update(SQL_MARCAR, ronda, comandaAreaId) == 0) {
+            jdbcTemplate.update(SQL_DESHACER, comandaAreaId);
+            return 0;
+        }
+        return ronda;
+    }
+
+    private int siguiente(Long comandaAreaId) {
+        jdbcTemplate.update(SQL_ABRIR, comandaAreaId);
+        Integer ronda = jdbcTemplate.queryForObject(SQL_CONSULTAR, Integer.class, comandaAreaId);
+        return ronda != null ? ronda : 1;
+    }
+}
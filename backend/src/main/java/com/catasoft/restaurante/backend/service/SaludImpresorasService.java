@@ -0,0 +1,239 @@
+package com.catasoft.restaurante.backend.service;
+
+import com.catasoft.restaurante.backend.dto.SaludImpresorasDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Salud de las impresoras a partir de los envíos y las confirmaciones del puente.
+ * Por impresora (printerTarget) lleva la última confirmación, la tasa de error de los últimos
+ * resultados, los trabajos enviados sin confirmar y su backlog en la cola (encolados más enviados,
+ * que informa ColaImpresionService al despachar). Una impresora con muchos errores, con demasiados
+ * trabajos sin imprimir o con un trabajo estancado queda desviada a su respaldo
+ * durante un período de enfriamiento; pasado ese tiempo vuelve a recibir trabajos y, si sigue
+ * fallando, se desvía otra vez.
+ */
+@Service
+public class SaludImpresorasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SaludImpresorasService.class);
+
+    private static final int VENTANA_RESULTADOS = 20;
+    private static final int MIN_RESULTADOS = 3;
+    private static final double TASA_ERROR_MAXIMA = 0.5;
+    private static final int MAX_PENDIENTES = 15;
+    private static final long ESTANCADA_MS = 45_000;
+    private static final long ENFRIAMIENTO_MS = 120_000;
+    private static final long VENTANA_THROUGHPUT_MS = 5 * 60_000;
+    private static final int MAX_DESVIOS = 100;
+
+    private final CatalogoImpresionService catalogoImpresion;
+    private final Map<String, Salud> impresoras = new ConcurrentHashMap<>();
+    private final Deque<SaludImpresorasDTO.Desvio> desvios = new ConcurrentLinkedDeque<>();
+
+    public SaludImpresorasService(CatalogoImpresionService catalogoImpresion) {
+        this.catalogoImpresion = catalogoImpresion;
+    }
+
+    /**
+     * Estado de una impresora. Todos los accesos se sincronizan sobre la instancia.
+     */
+    private static final class Salud {
+        final String impresora;
+        final Map<Long, Long> pendientes = new LinkedHashMap<>(); // trabajoId -> primer envío (ms)
+        final boolean[] resultados = new boolean[VENTANA_RESULTADOS]; // true = error
+        final Deque<Long> confirmacionesRecientes = new ArrayDeque<>();
+        int backlog; // ENCOLADO + ENVIADO en trabajos_impresion
+        int totalResultados;
+        long confirmados;
+        long errores;
+        long desviados;
+        long ultimoEnvio;
+        long ultimaConfirmacion;
+        long desviadaHasta;
+        String motivo;
+
+        Salud(String impresora) {
+            this.impresora = impresora;
+        }
+
+        double tasaError() {
+            int cantidad = Math.min(totalResultados, VENTANA_RESULTADOS);
+            if (cantidad == 0) {
+                return 0.0;
+            }
+            int conError = 0;
+            for (int i = 0; i < cantidad; i++) {
+                if (resultados[i]) {
+                    conError++;
+                }
+            }
+            return (double) conError / cantidad;
+        }
+
+        // Motivo por el que la impresora no está sana ahora, o null
+        String evaluar(long ahora) {
+            if (totalResultados >= MIN_RESULTADOS && tasaError() >= TASA_ERROR_MAXIMA) {
+                return String.format("Tasa de error %.0f%%", tasaError() * 100);
+            }
+            if (backlog() >= MAX_PENDIENTES) {
+                return backlog() + " trabajos sin imprimir";
+            }
+            Long masAntiguo = pendientes.isEmpty() ? null : pendientes.values().iterator().next();
+            if (masAntiguo != null && ahora - masAntiguo >= ESTANCADA_MS) {
+                return "Sin confirmación hace " + (ahora - masAntiguo) / 1000 + " s";
+            }
+            return null;
+        }
+
+        // El backlog de la base se refresca al despachar; entre despachos cuentan también los envíos registrados
+        int backlog() {
+            return Math.max(backlog, pendientes.size());
+        }
+
+        void podarThroughput(long ahora) {
+            while (!confirmacionesRecientes.isEmpty() && ahora - confirmacionesRecientes.peekFirst() > VENTANA_THROUGHPUT_MS) {
+                confirmacionesRecientes.pollFirst();
+            }
+        }
+    }
+
+    /**
+     * Impresora a la que debe ir un trabajo: la indicada o, si no está sana y tiene un
+     * respaldo sano, el respaldo.
+     */
+    public String destinoPara(String impresora) {
+        String respaldo = catalogoImpresion.getRespaldo(impresora);
+        if (respaldo == null) {
+            return impresora;
+        }
+        long ahora = System.currentTimeMillis();
+        Salud principal = salud(impresora);
+        synchronized (principal) {
+            if (ahora >= principal.desviadaHasta) {
+                String motivo = principal.evaluar(ahora);
+                if (motivo == null) {
+                    return impresora;
+                }
+                principal.desviadaHasta = ahora + ENFRIAMIENTO_MS;
+                principal.motivo = motivo;
+                registrarDesvio(impresora, respaldo, motivo);
+            }
+        }
+        // No se desvía a un respaldo que tampoco está sano
+        Salud secundaria = salud(respaldo);
+        synchronized (secundaria) {
+            if (ahora < secundaria.desviadaHasta || secundaria.evaluar(ahora) != null) {
+                return impresora;
+            }
+        }
+        synchronized (principal) {
+            principal.desviados++;
+        }
+        return respaldo;
+    }
+
+    /**
+     * Un trabajo se movió de impresora: deja de contar como pendiente de la original.
+     */
+    public void registrarReasignacion(String impresora, Long trabajoId) {
+        Salud salud = salud(impresora);
+        synchronized (salud) {
+            salud.pendientes.remove(trabajoId);
+        }
+    }
+
+    /**
+     * Trabajos de la impresora que esperan en la cola o están enviados sin confirmar.
+     */
+    public void registrarBacklog(String impresora, int encolados, int enviados) {
+        Salud salud = salud(impresora);
+        synchronized (salud) {
+            salud.backlog = encolados + enviados;
+        }
+    }
+
+    public void registrarEnvio(String impresora, Long trabajoId) {
+        long ahora = System.currentTimeMillis();
+        Salud salud = salud(impresora);
+        synchronized (salud) {
+            salud.pendientes.putIfAbsent(trabajoId, ahora);
+            salud.ultimoEnvio = ahora;
+        }
+    }
+
+    public void registrarConfirmacion(String impresora, Long trabajoId, boolean ok) {
+        long ahora = System.currentTimeMillis();
+        Salud salud = salud(impresora);
+        synchronized (salud) {
+            salud.pendientes.remove(trabajoId);
+            salud.resultados[salud.totalResultados % VENTANA_RESULTADOS] = !ok;
+            salud.totalResultados++;
+            if (ok) {
+                salud.confirmados++;
+                salud.ultimaConfirmacion = ahora;
+                salud.confirmacionesRecientes.addLast(ahora);
+                salud.podarThroughput(ahora);
+            } else {
+                salud.errores++;
+            }
+        }
+    }
+
+    public SaludImpresorasDTO getSalud() {
+        long ahora = System.currentTimeMillis();
+        List<SaludImpresorasDTO.Impresora> resultado = new ArrayList<>();
+        for (Salud salud : impresoras.values()) {
+            synchronized (salud) {
+                salud.podarThroughput(ahora);
+                boolean desviada = ahora < salud.desviadaHasta;
+                String motivo = desviada ? salud.motivo : salud.evaluar(ahora);
+                resultado.add(new SaludImpresorasDTO.Impresora(
+                        salud.impresora,
+                        motivo == null,
+                        motivo,
+                        catalogoImpresion.getRespaldo(salud.impresora),
+                        desviada ? fecha(salud.desviadaHasta) : null,
+                        fecha(salud.ultimoEnvio),
+                        fecha(salud.ultimaConfirmacion),
+                        salud.confirmados,
+                        salud.errores,
+                        salud.tasaError(),
+                        salud.backlog(),
+                        salud.confirmacionesRecientes.size() / (VENTANA_THROUGHPUT_MS / 60_000.0),
+                        salud.desviados));
+            }
+        }
+        resultado.sort((a, b) -> a.impresora().compareTo(b.impresora()));
+        return new SaludImpresorasDTO(resultado, new ArrayList<>(desvios));
+    }
+
+    private void registrarDesvio(String impresora, String respaldo, String motivo) {
+        logger.warn("Impresora {} no está sana ({}), se desvían sus trabajos a {}", impresora, motivo, respaldo);
+        desvios.addFirst(new SaludImpresorasDTO.Desvio(LocalDateTime.now(), impresora, respaldo, motivo));
+        while (desvios.size() > MAX_DESVIOS) {
+            desvios.pollLast();
+        }
+    }
+
+    private Salud salud(String impresora) {
+        return impresoras.computeIfAbsent(impresora, Salud::new);
+    }
+
+    private static LocalDateTime fecha(long millis) {
+        return millis > 0 ? LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()) : null;
+    }
+}
@@ -0,0 +1,66 @@
+package com.catasoft.restaurante.backend.service;
+
+import com.catasoft.restaurante.backend.model.ComandaArea.EstadoComandaArea;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Seguimiento de completitud de comandas.
+ * Cada comanda guarda en comandas.areas_pendientes cuántas de sus áreas están en PENDING o
+ * IN_PROGRESS. Cada transición de área ajusta el contador con un UPDATE atómico, así saber
+ * si la comanda quedó lista no requiere releer todas sus áreas.
+ * La columna no está mapeada en la entidad Comanda para que Hibernate no la sobrescriba.
+ */
+@Service
+public class SeguimientoComandasService {
+
+    private static final String SQL_ABRIR =
+            "UPDATE comandas SET areas_pendientes = areas_pendientes + 1 WHERE id = ?";
+    private static final String SQL_CERRAR =
+            "UPDATE comandas SET areas_pendientes = areas_pendientes - 1 WHERE id = ? AND areas_pendientes > 0";
+    private static final String SQL_CONSULTAR =
+            "SELECT areas_pendientes FROM comandas WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SeguimientoComandasService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static boolean esPendiente(EstadoComandaArea estado) {
+        return estado == EstadoComandaArea.PENDING || estado == EstadoComandaArea.IN_PROGRESS;
+    }
+
+    /**
+     * Registra una transición de área y devuelve true si con ella la comanda quedó sin áreas pendientes.
+     * Solo cambia el contador cuando el área entra o sale del conjunto pendiente.
+     */
+    @Transactional
+    public boolean registrarTransicion(Long comandaId, EstadoComandaArea anterior, EstadoComandaArea nuevo) {
+        boolean antesPendiente = anterior != null && esPendiente(anterior);
+        boolean ahoraPendiente = esPendiente(nuevo);
+        if (!antesPendiente && ahoraPendiente) {
+            jdbcTemplate.update(SQL_ABRIR, comandaId);
+            return false;
+        }
+        if (antesPendiente && !ahoraPendiente) {
+            // El UPDATE bloquea la fila de la comanda: dos áreas que terminan a la vez se serializan
+            // y solo la última ve el contador en 0
+            if (jdbcTemplate.update(SQL_CERRAR, comandaId) == 0) {
+                return false;
+            }
+            Integer restantes = jdbcTemplate.queryForObject(SQL_CONSULTAR, Integer.class, comandaId);
+            return restantes != null && restantes == 0;
+        }
+        return false;
+    }
+
+    /**
+     * Registra un área nueva de la comanda (nace en PENDING).
+     */
+    @Transactional
+    public void registrarAreaNueva(Long comandaId) {
+        registrarTransicion(comandaId, null, EstadoComandaArea.PENDING);
+    }
+}
@@ -1,201 +1,302 @@
 package com.catasoft.restaurante.backend.service;
 
-import com.catasoft.restaurante.backend.dto.TicketBlockDTO;
 import com.catasoft.restaurante.backend.dto.TicketTemplateDTO;
+import com.catasoft.restaurante.backend.model.dto.PrintJobDTO;
+import com.catasoft.restaurante.backend.model.dto.TicketDTO;
+import com.catasoft.restaurante.backend.model.dto.TicketItemDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.properties.TextAlignment;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
+/**
+ * Previsualización de tickets térmicos en PDF y PNG.
+ * El ticket de ejemplo se renderiza con RenderizadorTicketService, el mismo motor que imprime,
+ * y los bytes ESC/POS se interpretan en líneas (texto, alineación, negrita) a ANCHO columnas;
+ * el PDF y el PNG se dibujan desde esas líneas. Las previsualizaciones se guardan por huella
+ * (SHA-256 de los bloques de la plantilla), así una plantilla sin cambios no se vuelve a
+ * dibujar, y se generan en segundo plano al guardar una plantilla.
+ */
 @Service
 public class TicketPreviewService {
-    
-    // Datos de ejemplo para la previsualización
-    private static final TicketData SAMPLE_DATA = new TicketData(
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketPreviewService.class);
+
+    public static final String FORMATO_PDF = "pdf";
+    public static final String FORMATO_PNG = "png";
+
+    private static final int MAX_PREVISUALIZACIONES = 64;
+    private static final Charset CODIFICACION = Charset.isSupported("IBM850") ? Charset.forName("IBM850") : StandardCharsets.US_ASCII;
+
+    // Papel de 58 mm: 48 mm imprimibles, 384 puntos a 203 ppp
+    private static final int ANCHO_PNG_PX = 384;
+    private static final int ALTO_LINEA_PX = 24;
+    private static final int MARGEN_PNG_PX = 8;
+    private static final float ANCHO_PDF_PT = 164.4f; // 58 mm
+    private static final float MARGEN_PDF_PT = 6f;
+    private static final float TAMANO_FUENTE_PDF = 8f;
+    private static final float INTERLINEA_PDF = 10f;
+
+    // Datos de ejemplo para la previsualización (fecha fija para que la huella sea estable)
+    private static final TicketDTO SAMPLE_DATA = new TicketDTO(
+        1L,
         "Mesa 5",
-        "COM-001",
-        LocalDateTime.now(),
+        LocalDateTime.of(2024, 1, 1, 12, 30),
         List.of(
-            new TicketItem("Hamburguesa Clásica", 2, 12.50, 25.00),
-            new TicketItem("Papas Fritas", 1, 5.00, 5.00),
-            new TicketItem("Coca Cola", 2, 3.50, 7.00)
+            new TicketItemDTO(2, "Hamburguesa Clásica", new BigDecimal("12.50"), new BigDecimal("25.00")),
+            new TicketItemDTO(1, "Papas Fritas", new BigDecimal("5.00"), new BigDecimal("5.00")),
+            new TicketItemDTO(2, "Coca Cola", new BigDecimal("3.50"), new BigDecimal("7.00"))
         ),
-        37.00
+        new BigDecimal("37.00")
     );
-    
-    public byte[] generatePreviewPdf(TicketTemplateDTO template) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            PdfWriter writer = new PdfWriter(baos);
-            PdfDocument pdf = new PdfDocument(writer);
-            Document document = new Document(pdf);
-            
-            // Configurar el documento para simular un ticket térmico
-            document.setMargins(10, 10, 10, 10);
-            
-            // Procesar cada bloque de la plantilla
-            if (template.getBlocks() != null) {
-                for (TicketBlockDTO block : template.getBlocks()) {
-                    processBlock(document, block, SAMPLE_DATA);
+
+    private final RenderizadorTicketService renderizadorTicket;
+    private final ObjectMapper objectMapper;
+    // Las fuentes se cargan una vez; cada documento PDF solo crea su PdfFont a partir de ellas
+    private final FontProgram fuenteNormal;
+    private final FontProgram fuenteNegrita;
+    private final Map<String, byte[]> previsualizaciones = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                    return size() > MAX_PREVISUALIZACIONES;
                 }
-            }
-            
-            document.close();
-            return baos.toByteArray();
-            
-        } catch (Exception e) {
-            throw new RuntimeException("Error generando previsualización PDF", e);
+            });
+    private final ExecutorService generador = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "previsualizacion-tickets");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TicketPreviewService(RenderizadorTicketService renderizadorTicket, ObjectMapper objectMapper) throws IOException {
+        this.renderizadorTicket = renderizadorTicket;
+        this.objectMapper = objectMapper;
+        this.fuenteNormal = FontProgramFactory.createFont(StandardFonts.COURIER);
+        this.fuenteNegrita = FontProgramFactory.createFont(StandardFonts.COURIER_BOLD);
+    }
+
+    /**
+     * Línea del ticket tal como la imprime la impresora.
+     */
+    private record LineaVista(String texto, TextAlignment alineacion, boolean negrita) {
+    }
+
+    public byte[] generatePreviewPdf(TicketTemplateDTO template) {
+        return previsualizacion(template, FORMATO_PDF);
+    }
+
+    public byte[] generatePreviewPng(TicketTemplateDTO template) {
+        return previsualizacion(template, FORMATO_PNG);
+    }
+
+    /**
+     * Huella del contenido de la plantilla: cambia solo si cambian los bloques (o el área, que
+     * decide el formato por defecto de una plantilla sin bloques).
+     */
+    public String huella(TicketTemplateDTO template) {
+        try {
+            byte[] contenido = objectMapper.writeValueAsBytes(
+                    template.getBlocks() == null || template.getBlocks().isEmpty() ? List.of("area", String.valueOf(template.getArea())) : template.getBlocks());
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(contenido));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No se pudo calcular la huella de la plantilla", e);
         }
     }
-    
-    private void processBlock(Document document, TicketBlockDTO block, TicketData data) {
-        switch (block.getType()) {
-            case "text":
-                processTextBlock(document, block);
-                break;
-            case "line":
-                processLineBlock(document);
-                break;
-            case "datetime":
-                processDateTimeBlock(document, block);
-                break;
-            case "table":
-                processTableBlock(document, block, data);
-                break;
-            case "total":
-                processTotalBlock(document, block, data);
-                break;
-            case "qr":
-                processQrBlock(document, block);
-                break;
-            case "logo":
-                processLogoBlock(document);
-                break;
-            default:
-                // Bloque no reconocido, ignorar
-                break;
+
+    /**
+     * Genera en segundo plano las previsualizaciones de una plantilla recién guardada.
+     */
+    public void precalentar(TicketTemplateDTO template) {
+        try {
+            generador.execute(() -> {
+                try {
+                    generatePreviewPdf(template);
+                    generatePreviewPng(template);
+                } catch (RuntimeException e) {
+                    logger.warn("No se pudo generar la previsualización de la plantilla {}: {}", template.getId(), e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Generador de previsualizaciones detenido, se omite la plantilla {}", template.getId());
         }
     }
-    
-    private void processTextBlock(Document document, TicketBlockDTO block) {
-        String text = block.getValue() != null ? block.getValue() : "";
-        
-        // Aplicar alineación usando espacios
-        if ("center".equals(block.getAlign())) {
-            text = "                    " + text; // Centrado aproximado
-        } else if ("right".equals(block.getAlign())) {
-            text = "                                        " + text; // Derecha aproximada
+
+    private byte[] previsualizacion(TicketTemplateDTO template, String formato) {
+        String clave = formato + ":" + huella(template);
+        byte[] guardada = previsualizaciones.get(clave);
+        if (guardada != null) {
+            return guardada;
         }
-        
-        Paragraph paragraph = new Paragraph(text);
-        
-        // Aplicar negrita
-        if (Boolean.TRUE.equals(block.getBold())) {
-            paragraph.setBold();
+        try {
+            List<LineaVista> lineas = interpretar(renderizarEjemplo(template));
+            byte[] generada = FORMATO_PNG.equals(formato) ? dibujarPng(lineas) : dibujarPdf(lineas);
+            previsualizaciones.put(clave, generada);
+            return generada;
+        } catch (Exception e) {
+            throw new RuntimeException("Error generando previsualización " + formato.toUpperCase(), e);
         }
-        
-        document.add(paragraph);
-    }
-    
-    private void processLineBlock(Document document) {
-        Paragraph line = new Paragraph("--------------------------------");
-        document.add(line);
     }
-    
-    private void processDateTimeBlock(Document document, TicketBlockDTO block) {
-        String format = block.getFormat() != null ? block.getFormat() : "dd/MM/yyyy HH:mm";
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format);
-        String dateStr = LocalDateTime.now().format(formatter);
-        
-        Paragraph paragraph = new Paragraph(dateStr);
-        document.add(paragraph);
+
+    // Sin id, el renderizador compila la plantilla tal como llega, sin usar su plan guardado
+    private byte[] renderizarEjemplo(TicketTemplateDTO template) {
+        TicketTemplateDTO copia = new TicketTemplateDTO(template.getName(), template.getArea(), template.getIsDefault());
+        copia.setBlocks(template.getBlocks());
+        String area = template.getArea() != null ? template.getArea() : "caja";
+        return renderizadorTicket.renderizar(new PrintJobDTO(null, null, area.toUpperCase(), SAMPLE_DATA, area, copia));
     }
-    
-    private void processTableBlock(Document document, TicketBlockDTO block, TicketData data) {
-        if (block.getColumns() != null && !block.getColumns().isEmpty()) {
-            // Crear encabezados
-            StringBuilder header = new StringBuilder();
-            for (String column : block.getColumns()) {
-                header.append(column).append(" | ");
+
+    // Interpreta los comandos ESC/POS que emite el renderizador y corta en el ancho del papel
+    private static List<LineaVista> interpretar(byte[] escpos) {
+        List<LineaVista> lineas = new ArrayList<>();
+        ByteArrayOutputStream texto = new ByteArrayOutputStream(RenderizadorTicketService.ANCHO);
+        TextAlignment alineacion = TextAlignment.LEFT;
+        boolean negrita = false;
+        int i = 0;
+        while (i < escpos.length) {
+            byte b = escpos[i];
+            if (b == 0x1B && i + 1 < escpos.length) {
+                byte comando = escpos[i + 1];
+                if (comando == 0x40) { // ESC @
+                    i += 2;
+                    continue;
+                }
+                byte valor = i + 2 < escpos.length ? escpos[i + 2] : 0;
+                if (comando == 0x45) { // ESC E n
+                    negrita = valor != 0;
+                } else if (comando == 0x61) { // ESC a n
+                    alineacion = valor == 1 ? TextAlignment.CENTER : valor == 2 ? TextAlignment.RIGHT : TextAlignment.LEFT;
+                }
+                i += 3;
+                continue;
             }
-            document.add(new Paragraph(header.toString()));
-            document.add(new Paragraph("--------------------------------"));
-            
-            // Agregar datos de ejemplo
-            for (TicketItem item : data.getItems()) {
-                String row = String.format("%s | %d | $%.2f | $%.2f", 
-                    item.getNombre(), item.getCantidad(), item.getPrecioUnitario(), item.getPrecioTotal());
-                document.add(new Paragraph(row));
+            if (b == 0x1D && i + 1 < escpos.length && escpos[i + 1] == 0x56) { // GS V m [n]: corte
+                i += i + 2 < escpos.length && escpos[i + 2] >= 0x41 ? 4 : 3;
+                continue;
             }
+            if (b == 0x0A) {
+                agregarLinea(lineas, new String(texto.toByteArray(), CODIFICACION), alineacion, negrita);
+                texto.reset();
+            } else {
+                texto.write(b);
+            }
+            i++;
         }
-    }
-    
-    private void processTotalBlock(Document document, TicketBlockDTO block, TicketData data) {
-        String label = block.getLabel() != null ? block.getLabel() : "Total";
-        String total = String.format("                                        %s: $%.2f", label, data.getTotal());
-        Paragraph totalParagraph = new Paragraph(total);
-        totalParagraph.setBold();
-        document.add(totalParagraph);
-    }
-    
-    private void processQrBlock(Document document, TicketBlockDTO block) {
-        if (block.getValue() != null) {
-            Paragraph qrPlaceholder = new Paragraph("[QR Code: " + block.getValue() + "]");
-            document.add(qrPlaceholder);
+        if (texto.size() > 0) {
+            agregarLinea(lineas, new String(texto.toByteArray(), CODIFICACION), alineacion, negrita);
         }
+        return lineas;
     }
-    
-    private void processLogoBlock(Document document) {
-        Paragraph logoPlaceholder = new Paragraph("[LOGO]");
-        document.add(logoPlaceholder);
+
+    // La impresora pasa a la línea siguiente al llegar al ancho del papel
+    private static void agregarLinea(List<LineaVista> lineas, String texto, TextAlignment alineacion, boolean negrita) {
+        int ancho = RenderizadorTicketService.ANCHO;
+        if (texto.length() <= ancho) {
+            lineas.add(new LineaVista(texto, alineacion, negrita));
+            return;
+        }
+        for (int inicio = 0; inicio < texto.length(); inicio += ancho) {
+            lineas.add(new LineaVista(texto.substring(inicio, Math.min(texto.length(), inicio + ancho)), alineacion, negrita));
+        }
     }
-    
-    // Clases de datos de ejemplo
-    public static class TicketData {
-        private String nombreMesa;
-        private String comandaId;
-        private LocalDateTime fechaHora;
-        private List<TicketItem> items;
-        private double total;
-        
-        public TicketData(String nombreMesa, String comandaId, LocalDateTime fechaHora, List<TicketItem> items, double total) {
-            this.nombreMesa = nombreMesa;
-            this.comandaId = comandaId;
-            this.fechaHora = fechaHora;
-            this.items = items;
-            this.total = total;
+
+    private byte[] dibujarPdf(List<LineaVista> lineas) throws IOException {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            float alto = lineas.size() * INTERLINEA_PDF + 2 * MARGEN_PDF_PT;
+            PdfDocument pdf = new PdfDocument(new PdfWriter(baos));
+            Document document = new Document(pdf, new PageSize(ANCHO_PDF_PT, Math.max(alto, ANCHO_PDF_PT)));
+            document.setMargins(MARGEN_PDF_PT, MARGEN_PDF_PT, MARGEN_PDF_PT, MARGEN_PDF_PT);
+            PdfFont normal = PdfFontFactory.createFont(fuenteNormal, PdfEncodings.WINANSI);
+            PdfFont negrita = PdfFontFactory.createFont(fuenteNegrita, PdfEncodings.WINANSI);
+            for (LineaVista linea : lineas) {
+                // Espacio de no separación para que las líneas vacías ocupen su alto
+                document.add(new Paragraph(linea.texto().isEmpty() ? "\u00A0" : linea.texto())
+                        .setFont(linea.negrita() ? negrita : normal)
+                        .setFontSize(TAMANO_FUENTE_PDF)
+                        .setFixedLeading(INTERLINEA_PDF)
+                        .setMargin(0)
+                        .setTextAlignment(linea.alineacion()));
+            }
+            document.close();
+            return baos.toByteArray();
         }
-        
-        // Getters
-        public String getNombreMesa() { return nombreMesa; }
-        public String getComandaId() { return comandaId; }
-        public LocalDateTime getFechaHora() { return fechaHora; }
-        public List<TicketItem> getItems() { return items; }
-        public double getTotal() { return total; }
     }
-    
-    public static class TicketItem {
-        private String nombre;
-        private int cantidad;
-        private double precioUnitario;
-        private double precioTotal;
-        
-        public TicketItem(String nombre, int cantidad, double precioUnitario, double precioTotal) {
-            this.nombre = nombre;
-            this.cantidad = cantidad;
-            this.precioUnitario = precioUnitario;
-            this.precioTotal = precioTotal;
+
+    private static byte[] dibujarPng(List<LineaVista> lineas) throws IOException {
+        int alto = lineas.size() * ALTO_LINEA_PX + 2 * MARGEN_PNG_PX;
+        BufferedImage imagen = new BufferedImage(ANCHO_PNG_PX + 2 * MARGEN_PNG_PX, alto, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = imagen.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, imagen.getWidth(), imagen.getHeight());
+            g.setColor(Color.BLACK);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            // Fuente A de la impresora: 12 x 24 puntos por carácter
+            int anchoCaracter = ANCHO_PNG_PX / RenderizadorTicketService.ANCHO;
+            Font normal = new Font(Font.MONOSPACED, Font.PLAIN, anchoCaracter * 5 / 3);
+            Font negrita = normal.deriveFont(Font.BOLD);
+            int y = MARGEN_PNG_PX;
+            for (LineaVista linea : lineas) {
+                g.setFont(linea.negrita() ? negrita : normal);
+                FontMetrics metricas = g.getFontMetrics();
+                int ancho = metricas.stringWidth(linea.texto());
+                int x = MARGEN_PNG_PX + switch (linea.alineacion()) {
+                    case CENTER -> (ANCHO_PNG_PX - ancho) / 2;
+                    case RIGHT -> ANCHO_PNG_PX - ancho;
+                    default -> 0;
+                };
+                g.drawString(linea.texto(), x, y + (ALTO_LINEA_PX + metricas.getAscent() - metricas.getDescent()) / 2);
+                y += ALTO_LINEA_PX;
+            }
+        } finally {
+            g.dispose();
+        }
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+            ImageIO.write(imagen, FORMATO_PNG, baos);
+            return baos.toByteArray();
         }
-        
-        // Getters
-        public String getNombre() { return nombre; }
-        public int getCantidad() { return cantidad; }
-        public double getPrecioUnitario() { return precioUnitario; }
-        public double getPrecioTotal() { return precioTotal; }
     }
-} 
\ No newline at end of file
+
+    @PreDestroy
+    public void detener() {
+        generador.shutdownNow();
+    }
+}
@@ -11,9 +11,11 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -38,6 +40,18 @@ public class TicketTemplateService {
     @Autowired
     private ObjectMapper objectMapper;
     
+    @Autowired
+    private CatalogoAreasService catalogoAreasService;
+    
+    @Autowired
+    private RenderizadorTicketService renderizadorTicketService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private TicketPreviewService ticketPreviewService;
+    
     // Obtener todas las áreas
     public List<Area> getAllAreas() {
         List<com.catasoft.restaurante.backend.model.PreparationArea> prepAreas = preparationAreaRepository.findAll();
@@ -78,6 +92,7 @@ public class TicketTemplateService {
         prepArea.setOrderIndex(999);
         
         prepArea = preparationAreaRepository.save(prepArea);
+        TransaccionUtils.ejecutarTrasCommit(catalogoAreasService::invalidar);
         
         // Convertir de vuelta a Area
         area.setId(prepArea.getId());
@@ -192,13 +207,20 @@ public class TicketTemplateService {
             ticketTemplateRepository.clearDefaultForArea(templateAreaId);
             template.setIsDefault(true);
         }
+        // Cambiar solo los bloques también es una nueva versión de la plantilla
+        template.setUpdatedAt(LocalDateTime.now());
         // Guardar la plantilla
         template = ticketTemplateRepository.save(template);
         // Guardar los bloques
         if (templateDTO.getBlocks() != null) {
             saveBlocks(template, templateDTO.getBlocks());
         }
-        return convertToDTO(template);
+        renderizadorTicketService.invalidar(template.getId());
+        eventPublisher.publishEvent(new CatalogoImpresionService.CambioConfiguracionImpresion());
+        TicketTemplateDTO saved = convertToDTO(template);
+        // La previsualización de la nueva versión queda lista antes de que el editor la pida
+        TransaccionUtils.ejecutarTrasCommit(() -> ticketPreviewService.precalentar(saved));
+        return saved;
     }
     
     // Obtener todas las plantillas
@@ -221,6 +243,8 @@ public class TicketTemplateService {
         }
         
         ticketTemplateRepository.deleteById(templateId);
+        renderizadorTicketService.invalidar(templateId);
+        eventPublisher.publishEvent(new CatalogoImpresionService.CambioConfiguracionImpresion());
     }
     
     // Crear plantilla por defecto para un área
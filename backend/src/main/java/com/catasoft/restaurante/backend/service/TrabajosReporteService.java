@@ -0,0 +1,299 @@
+package com.catasoft.restaurante.backend.service;
+
+import com.catasoft.restaurante.backend.dto.ReporteVentasDTO;
+import com.catasoft.restaurante.backend.dto.TrabajoReporteDTO;
+import com.catasoft.restaurante.backend.exception.ResourceNotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Trabajos de reporte en segundo plano.
+ * Un reporte se solicita y se obtiene un id; el trabajo corre en un pool acotado de hilos de
+ * baja prioridad (así los reportes grandes no compiten con la toma de pedidos), el resultado
+ * se guarda en disco y se avisa por STOMP en /topic/reportes. Una solicitud idéntica a un
+ * trabajo que todavía no terminó devuelve ese mismo trabajo. Los resultados se borran pasado
+ * su tiempo de vida.
+ */
+@Service
+public class TrabajosReporteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrabajosReporteService.class);
+
+    public static final String DESTINO_NOTIFICACIONES = "/topic/reportes";
+    private static final int CAPACIDAD_COLA = 20;
+    private static final long INTERVALO_LIMPIEZA_MIN = 10;
+
+    private final ReporteService reporteService;
+    private final PdfService pdfService;
+    private final NotificacionOutboxService notificacionOutbox;
+    private final ObjectMapper objectMapper;
+    private final Path directorio;
+    private final Duration tiempoDeVida;
+    private final Map<String, Trabajo> trabajos = new ConcurrentHashMap<>();
+    private final Map<String, Trabajo> enCurso = new ConcurrentHashMap<>(); // clave de la solicitud -> trabajo
+    private final ThreadPoolExecutor ejecutor;
+    private final ScheduledExecutorService limpieza = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reportes-limpieza");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TrabajosReporteService(ReporteService reporteService, PdfService pdfService,
+                                  NotificacionOutboxService notificacionOutbox, ObjectMapper objectMapper,
+                                  @Value("${reportes.directorio:${java.io.tmpdir}/restaurante-reportes}") String directorio,
+                                  @Value("${reportes.ttl-horas:24}") long ttlHoras,
+                                  @Value("${reportes.hilos:1}") int hilos) throws IOException {
+        this.reporteService = reporteService;
+        this.pdfService = pdfService;
+        this.notificacionOutbox = notificacionOutbox;
+        this.objectMapper = objectMapper;
+        this.directorio = Files.createDirectories(Paths.get(directorio));
+        this.tiempoDeVida = Duration.ofHours(ttlHoras);
+        AtomicInteger secuencia = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(CAPACIDAD_COLA),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "reportes-" + secuencia.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Reportes que se pueden generar en segundo plano, con la extensión y el tipo de su resultado.
+     */
+    public enum TipoReporte {
+        VENTAS("json", MediaType.APPLICATION_JSON),
+        VENTAS_PDF("pdf", MediaType.APPLICATION_PDF),
+        VENTAS_EXCEL("xlsx", ReporteService.EXCEL),
+        DETALLE_EXCEL("xlsx", ReporteService.EXCEL);
+
+        private final String extension;
+        private final MediaType mediaType;
+
+        TipoReporte(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+    }
+
+    public enum EstadoTrabajoReporte {
+        PENDIENTE, EN_CURSO, COMPLETADO, FALLIDO
+    }
+
+    /**
+     * Resultado listo para descargar.
+     */
+    public record ResultadoReporte(Path archivo, String nombre, MediaType mediaType) {
+    }
+
+    private static final class Trabajo {
+        final String id;
+        final String clave;
+        final TipoReporte tipo;
+        final LocalDate fechaInicio;
+        final LocalDate fechaFin;
+        final LocalDateTime fechaSolicitud = LocalDateTime.now();
+        volatile EstadoTrabajoReporte estado = EstadoTrabajoReporte.PENDIENTE;
+        volatile LocalDateTime fechaCompletado;
+        volatile String error;
+
+        Trabajo(String clave, TipoReporte tipo, LocalDate fechaInicio, LocalDate fechaFin) {
+            this.id = UUID.randomUUID().toString();
+            this.clave = clave;
+            this.tipo = tipo;
+            this.fechaInicio = fechaInicio;
+            this.fechaFin = fechaFin;
+        }
+
+        boolean terminado() {
+            return estado == EstadoTrabajoReporte.COMPLETADO || estado == EstadoTrabajoReporte.FALLIDO;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciarLimpieza() {
+        limpieza.scheduleWithFixedDelay(this::limpiar, 0, INTERVALO_LIMPIEZA_MIN, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Encola un reporte. Si ya hay uno igual sin terminar, devuelve ese.
+     */
+    public TrabajoReporteDTO solicitar(TipoReporte tipo, LocalDate fechaInicio, LocalDate fechaFin) {
+        if (fechaFin.isBefore(fechaInicio)) {
+            throw new IllegalArgumentException("La fecha de fin no puede ser anterior a la de inicio.");
+        }
+        String clave = tipo + ":" + fechaInicio + ":" + fechaFin;
+        Trabajo[] creado = new Trabajo[1];
+        Trabajo trabajo = enCurso.computeIfAbsent(clave, k -> {
+            creado[0] = new Trabajo(k, tipo, fechaInicio, fechaFin);
+            trabajos.put(creado[0].id, creado[0]);
+            return creado[0];
+        });
+        if (creado[0] == null) {
+            logger.debug("Reporte {} ya en curso, se devuelve el trabajo {}", clave, trabajo.id);
+            return toDTO(trabajo);
+        }
+        try {
+            ejecutor.execute(() -> ejecutar(trabajo));
+        } catch (RejectedExecutionException e) {
+            trabajos.remove(trabajo.id);
+            enCurso.remove(clave, trabajo);
+            throw new IllegalStateException("Hay demasiados reportes en preparación, intente en unos minutos.");
+        }
+        logger.info("Reporte {} encolado como trabajo {}", clave, trabajo.id);
+        return toDTO(trabajo);
+    }
+
+    public TrabajoReporteDTO consultar(String id) {
+        return toDTO(buscar(id));
+    }
+
+    /**
+     * Archivo con el resultado de un trabajo completado.
+     */
+    public ResultadoReporte resultado(String id) {
+        Trabajo trabajo = buscar(id);
+        if (trabajo.estado != EstadoTrabajoReporte.COMPLETADO) {
+            throw new IllegalStateException("El reporte " + id + " todavía no está listo (" + trabajo.estado + ").");
+        }
+        Path archivo = archivo(trabajo);
+        if (!Files.exists(archivo)) {
+            throw new ResourceNotFoundException("El resultado del reporte " + id + " ya no está disponible.");
+        }
+        String nombre = trabajo.tipo.name().toLowerCase() + "_" + trabajo.fechaInicio + "_a_" + trabajo.fechaFin + "." + trabajo.tipo.getExtension();
+        return new ResultadoReporte(archivo, nombre, trabajo.tipo.getMediaType());
+    }
+
+    private void ejecutar(Trabajo trabajo) {
+        trabajo.estado = EstadoTrabajoReporte.EN_CURSO;
+        long inicio = System.currentTimeMillis();
+        // Se escribe en un temporal y se mueve al terminar: nunca se sirve un archivo a medias
+        Path temporal = directorio.resolve(trabajo.id + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporal)) {
+                generar(trabajo, out);
+            }
+            Files.move(temporal, archivo(trabajo), StandardCopyOption.REPLACE_EXISTING);
+            trabajo.estado = EstadoTrabajoReporte.COMPLETADO;
+            logger.info("Reporte {} ({}) generado en {} ms", trabajo.id, trabajo.clave, System.currentTimeMillis() - inicio);
+        } catch (Exception e) {
+            trabajo.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            trabajo.estado = EstadoTrabajoReporte.FALLIDO;
+            logger.error("Error generando el reporte {} ({}): {}", trabajo.id, trabajo.clave, trabajo.error, e);
+            try {
+                Files.deleteIfExists(temporal);
+            } catch (IOException ignored) {
+                // La limpieza periódica no lo toca, pero el directorio es temporal
+            }
+        } finally {
+            trabajo.fechaCompletado = LocalDateTime.now();
+            enCurso.remove(trabajo.clave, trabajo);
+            notificacionOutbox.publicar(DESTINO_NOTIFICACIONES, toDTO(trabajo));
+        }
+    }
+
+    private void generar(Trabajo trabajo, OutputStream out) throws IOException {
+        switch (trabajo.tipo) {
+            case VENTAS -> objectMapper.writeValue(out, reporteService.generarReporteVentas(trabajo.fechaInicio, trabajo.fechaFin));
+            case VENTAS_PDF -> {
+                ReporteVentasDTO reporte = reporteService.generarReporteVentas(trabajo.fechaInicio, trabajo.fechaFin);
+                out.write(pdfService.generarPdfReporteVentas(reporte));
+            }
+            case VENTAS_EXCEL -> reporteService.exportarReporteVentasExcel(
+                    reporteService.generarReporteVentas(trabajo.fechaInicio, trabajo.fechaFin), out);
+            case DETALLE_EXCEL -> reporteService.exportarDetalleVentasExcel(trabajo.fechaInicio, trabajo.fechaFin, out);
+        }
+    }
+
+    // Borra los trabajos terminados (y sus archivos) que superaron el tiempo de vida
+    private void limpiar() {
+        try {
+            LocalDateTime limite = LocalDateTime.now().minus(tiempoDeVida);
+            int borrados = 0;
+            for (Trabajo trabajo : trabajos.values()) {
+                if (trabajo.terminado() && trabajo.fechaCompletado != null && trabajo.fechaCompletado.isBefore(limite)) {
+                    trabajos.remove(trabajo.id);
+                    Files.deleteIfExists(archivo(trabajo));
+                    borrados++;
+                }
+            }
+            // Archivos de una ejecución anterior del servidor
+            long limiteArchivos = System.currentTimeMillis() - tiempoDeVida.toMillis();
+            try (var archivos = Files.list(directorio)) {
+                for (Path archivo : (Iterable<Path>) archivos::iterator) {
+                    if (Files.getLastModifiedTime(archivo).toMillis() < limiteArchivos) {
+                        Files.deleteIfExists(archivo);
+                        borrados++;
+                    }
+                }
+            }
+            if (borrados > 0) {
+                logger.info("Limpieza de reportes: {} resultados vencidos borrados", borrados);
+            }
+        } catch (Exception e) {
+            logger.error("Error en la limpieza de reportes: {}", e.getMessage());
+        }
+    }
+
+    private Trabajo buscar(String id) {
+        Trabajo trabajo = trabajos.get(id);
+        if (trabajo == null) {
+            throw new ResourceNotFoundException("No existe el trabajo de reporte: " + id);
+        }
+        return trabajo;
+    }
+
+    private Path archivo(Trabajo trabajo) {
+        return directorio.resolve(trabajo.id + "." + trabajo.tipo.getExtension());
+    }
+
+    private static TrabajoReporteDTO toDTO(Trabajo trabajo) {
+        return new TrabajoReporteDTO(trabajo.id, trabajo.tipo.name(), trabajo.fechaInicio, trabajo.fechaFin,
+                trabajo.estado.name(), trabajo.fechaSolicitud, trabajo.fechaCompletado, trabajo.error,
+                trabajo.estado == EstadoTrabajoReporte.COMPLETADO ? "/api/v1/reportes/trabajos/" + trabajo.id + "/resultado" : null);
+    }
+
+    @PreDestroy
+    public void detener() {
+        ejecutor.shutdownNow();
+        limpieza.shutdownNow();
+    }
+}
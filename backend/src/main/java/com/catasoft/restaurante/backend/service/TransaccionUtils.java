@@ -0,0 +1,31 @@
+package com.catasoft.restaurante.backend.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Utilidades para diferir trabajo hasta que la transacción actual confirme.
+ */
+public final class TransaccionUtils {
+
+    private TransaccionUtils() {
+    }
+
+    /**
+     * Ejecuta la acción después del commit de la transacción activa.
+     * Si no hay transacción activa se ejecuta inmediatamente.
+     * Si la transacción hace rollback la acción se descarta.
+     */
+    public static void ejecutarTrasCommit(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,133 @@
+package com.catasoft.restaurante.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Resúmenes diarios de ventas (daily_sales y daily_product_sales).
+ * Se mantienen en la misma transacción que paga una comanda (o revierte su pago) con UPDATEs
+ * atómicos sobre la fila del día, así los reportes de días cerrados leen unas pocas filas en
+ * lugar de recorrer comandas y comanda_items. El día de una venta es el de la creación de la
+ * comanda, igual que en el reporte calculado desde las comandas. Cualquier rango de días se
+ * puede regenerar desde las comandas con reconstruir.
+ */
+@Service
+public class VentasDiariasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VentasDiariasService.class);
+
+    private static final String SQL_SUMAR_DIA =
+            "INSERT INTO daily_sales (fecha, numero_ventas, total_recaudado) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE numero_ventas = numero_ventas + VALUES(numero_ventas), " +
+            "total_recaudado = total_recaudado + VALUES(total_recaudado)";
+    private static final String SQL_SUMAR_PRODUCTOS =
+            "INSERT INTO daily_product_sales (fecha, producto_id, cantidad, total_generado) " +
+            "SELECT ?, i.producto_id, ? * SUM(i.cantidad), ? * SUM(i.precio_unitario * i.cantidad) " +
+            "FROM comanda_items i WHERE i.comanda_id = ? GROUP BY i.producto_id " +
+            "ON DUPLICATE KEY UPDATE cantidad = cantidad + VALUES(cantidad), " +
+            "total_generado = total_generado + VALUES(total_generado)";
+    private static final String SQL_LIMPIAR_PRODUCTOS =
+            "DELETE FROM daily_product_sales WHERE fecha = ? AND cantidad = 0";
+
+    private static final String SQL_BORRAR_DIAS =
+            "DELETE FROM daily_sales WHERE fecha BETWEEN ? AND ?";
+    private static final String SQL_BORRAR_DIAS_PRODUCTOS =
+            "DELETE FROM daily_product_sales WHERE fecha BETWEEN ? AND ?";
+    private static final String SQL_RECONSTRUIR_DIAS =
+            "INSERT INTO daily_sales (fecha, numero_ventas, total_recaudado) " +
+            "SELECT DATE(c.fecha_creacion), COUNT(*), COALESCE(SUM(c.total), 0) FROM comandas c " +
+            "WHERE c.estado = 'PAGADA' AND c.fecha_creacion >= ? AND c.fecha_creacion < ? " +
+            "GROUP BY DATE(c.fecha_creacion)";
+    private static final String SQL_RECONSTRUIR_PRODUCTOS =
+            "INSERT INTO daily_product_sales (fecha, producto_id, cantidad, total_generado) " +
+            "SELECT DATE(c.fecha_creacion), i.producto_id, SUM(i.cantidad), SUM(i.precio_unitario * i.cantidad) " +
+            "FROM comanda_items i JOIN comandas c ON c.id = i.comanda_id " +
+            "WHERE c.estado = 'PAGADA' AND c.fecha_creacion >= ? AND c.fecha_creacion < ? " +
+            "GROUP BY DATE(c.fecha_creacion), i.producto_id";
+
+    private static final String SQL_RESUMEN =
+            "SELECT COALESCE(SUM(numero_ventas), 0), COALESCE(SUM(total_recaudado), 0) FROM daily_sales " +
+            "WHERE fecha BETWEEN ? AND ?";
+    private static final String SQL_POR_PRODUCTO =
+            "SELECT d.producto_id, p.nombre, SUM(d.cantidad), SUM(d.total_generado) FROM daily_product_sales d " +
+            "JOIN productos p ON p.id = d.producto_id WHERE d.fecha BETWEEN ? AND ? " +
+            "GROUP BY d.producto_id, p.nombre HAVING SUM(d.cantidad) <> 0";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public VentasDiariasService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Ventas de un rango de días: cantidad de comandas pagadas y total recaudado.
+     */
+    public record ResumenVentas(long numeroDeVentas, BigDecimal totalRecaudado) {
+    }
+
+    /**
+     * Ventas de un producto en un rango de días.
+     */
+    public record VentaProducto(Long productoId, String nombreProducto, long cantidad, BigDecimal totalGenerado) {
+    }
+
+    /**
+     * Suma al día de creación de la comanda una venta recién pagada.
+     */
+    @Transactional
+    public void registrarPago(Long comandaId, LocalDateTime fechaCreacion, BigDecimal total) {
+        aplicar(comandaId, fechaCreacion.toLocalDate(), total, 1);
+    }
+
+    /**
+     * Descuenta una venta cuyo pago se revirtió (la comanda dejó de estar PAGADA).
+     */
+    @Transactional
+    public void revertirPago(Long comandaId, LocalDateTime fechaCreacion, BigDecimal total) {
+        LocalDate fecha = fechaCreacion.toLocalDate();
+        aplicar(comandaId, fecha, total, -1);
+        jdbcTemplate.update(SQL_LIMPIAR_PRODUCTOS, Date.valueOf(fecha));
+    }
+
+    private void aplicar(Long comandaId, LocalDate fecha, BigDecimal total, int signo) {
+        Date dia = Date.valueOf(fecha);
+        BigDecimal importe = total != null ? total : BigDecimal.ZERO;
+        jdbcTemplate.update(SQL_SUMAR_DIA, dia, signo, signo > 0 ? importe : importe.negate());
+        jdbcTemplate.update(SQL_SUMAR_PRODUCTOS, dia, signo, signo, comandaId);
+    }
+
+    /**
+     * Regenera los resúmenes de un rango de días desde las comandas pagadas.
+     */
+    @Transactional
+    public void reconstruir(LocalDate desde, LocalDate hasta) {
+        Timestamp inicio = Timestamp.valueOf(desde.atStartOfDay());
+        Timestamp fin = Timestamp.valueOf(hasta.plusDays(1).atStartOfDay());
+        jdbcTemplate.update(SQL_BORRAR_DIAS, Date.valueOf(desde), Date.valueOf(hasta));
+        jdbcTemplate.update(SQL_BORRAR_DIAS_PRODUCTOS, Date.valueOf(desde), Date.valueOf(hasta));
+        int dias = jdbcTemplate.update(SQL_RECONSTRUIR_DIAS, inicio, fin);
+        jdbcTemplate.update(SQL_RECONSTRUIR_PRODUCTOS, inicio, fin);
+        logger.info("Resúmenes de ventas reconstruidos del {} al {}: {} días con ventas", desde, hasta, dias);
+    }
+
+    public ResumenVentas resumen(LocalDate desde, LocalDate hasta) {
+        return jdbcTemplate.queryForObject(SQL_RESUMEN, (rs, fila) ->
+                new ResumenVentas(rs.getLong(1), rs.getBigDecimal(2)), Date.valueOf(desde), Date.valueOf(hasta));
+    }
+
+    public List<VentaProducto> ventasPorProducto(LocalDate desde, LocalDate hasta) {
+        return jdbcTemplate.query(SQL_POR_PRODUCTO, (rs, fila) ->
+                new VentaProducto(rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getBigDecimal(4)),
+                Date.valueOf(desde), Date.valueOf(hasta));
+    }
+}
@@ -13,36 +13,41 @@ public class WebSocketService {
 
     private static final Logger logger = LoggerFactory.getLogger(WebSocketService.class);
     private final SimpMessagingTemplate messagingTemplate;
-    private final TicketTemplateService ticketTemplateService;
+    private final CatalogoImpresionService catalogoImpresion;
 
     @Autowired
-    public WebSocketService(SimpMessagingTemplate messagingTemplate, TicketTemplateService ticketTemplateService) {
+    public WebSocketService(SimpMessagingTemplate messagingTemplate, CatalogoImpresionService catalogoImpresion) {
         this.messagingTemplate = messagingTemplate;
-        this.ticketTemplateService = ticketTemplateService;
+        this.catalogoImpresion = catalogoImpresion;
     }
 
-    public void sendPrintJob(PrintJobDTO printJob) {
-        try {
-            TicketTemplateDTO template = printJob.template();
-            if (template == null) {
-                // Solo si no viene plantilla, buscar por área
-                template = getTemplateForArea(printJob.area());
-            }
+    /**
+     * Devuelve el trabajo con su plantilla: la que trae o, si no trae, la del área.
+     */
+    public PrintJobDTO completarPlantilla(PrintJobDTO printJob) {
+        TicketTemplateDTO template = printJob.template();
+        if (template == null) {
+            // Solo si no viene plantilla, buscar por área
+            template = getTemplateForArea(printJob.area());
+        }
 
-            PrintJobDTO printJobWithTemplate = new PrintJobDTO(
-                printJob.printerType(),
-                printJob.printerTarget(),
-                printJob.ticketType(),
-                printJob.ticketData(),
-                printJob.area(),
-                template
-            );
+        return new PrintJobDTO(
+            printJob.printerType(),
+            printJob.printerTarget(),
+            printJob.ticketType(),
+            printJob.ticketData(),
+            printJob.area(),
+            template
+        );
+    }
 
-            String destination = "/topic/print-jobs";
-            messagingTemplate.convertAndSend(destination, printJobWithTemplate);
-            logger.info("Trabajo de impresión enviado a [{}]. Destino: {}, Área: {}, Plantilla: {}", 
-                printJob.printerType(), printJob.printerTarget(), printJob.area(), 
-                template != null ? "encontrada" : "no encontrada");
+    /**
+     * Envía un trabajo de impresión al destino STOMP de su impresora.
+     */
+    public void sendPrintJob(String destination, Object payload) {
+        try {
+            messagingTemplate.convertAndSend(destination, payload);
+            logger.info("Trabajo de impresión enviado a {}", destination);
         } catch (Exception e) {
             logger.error("Error al enviar el trabajo de impresión por WebSocket", e);
             throw e;
@@ -53,7 +58,7 @@ public class WebSocketService {
         try {
             if (areaId != null && !areaId.trim().isEmpty()) {
                 logger.info("🔍 Buscando plantilla para área: '{}'", areaId);
-                TicketTemplateDTO template = ticketTemplateService.getTemplateByArea(areaId);
+                TicketTemplateDTO template = catalogoImpresion.getPlantillaDeArea(areaId);
                 if (template != null) {
                     logger.info("✅ Plantilla encontrada para área '{}': '{}' con {} bloques", 
                         areaId, template.getName(), template.getBlocks() != null ? template.getBlocks().size() : 0);
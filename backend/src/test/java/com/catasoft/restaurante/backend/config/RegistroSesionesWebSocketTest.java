@@ -0,0 +1,248 @@
+package com.catasoft.restaurante.backend.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RegistroSesionesWebSocketTest {
+
+    private static final int MAX_PENDIENTES = 10;
+    private static final long LIMITE_MS = 1_000;
+
+    private final AtomicLong reloj = new AtomicLong(0);
+    private final MessageChannel canal = mock(MessageChannel.class);
+    private final MessageHandler handler = mock(MessageHandler.class);
+    private RegistroSesionesWebSocket registro;
+    private WebSocketHandler decorado;
+    private WebSocketSession congelada;
+    private WebSocketSession sana;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        registro = new RegistroSesionesWebSocket(MAX_PENDIENTES, LIMITE_MS, reloj::get);
+        decorado = registro.decorar(mock(WebSocketHandler.class));
+        congelada = sesion("congelada");
+        sana = sesion("sana");
+        decorado.afterConnectionEstablished(congelada);
+        decorado.afterConnectionEstablished(sana);
+    }
+
+    @AfterEach
+    void tearDown() {
+        registro.detener();
+    }
+
+    @Test
+    void brokerConUnaSesionBloqueadaAcotaSuColaLaExpulsaYNoFrenaALasDemas() throws Exception {
+        // Canal de salida y broker reales, con el registro como interceptor y executor
+        ExecutorSubscribableChannel salida = new ExecutorSubscribableChannel(registro.ejecutorSalida());
+        salida.addInterceptor(registro);
+        CountDownLatch bloqueada = new CountDownLatch(1);
+        CountDownLatch desbloquear = new CountDownLatch(1);
+        List<Integer> recibidosSana = new CopyOnWriteArrayList<>();
+        salida.subscribe(recibido -> {
+            if (SimpMessageHeaderAccessor.getMessageType(recibido.getHeaders()) != SimpMessageType.MESSAGE) {
+                return; // CONNECTED
+            }
+            if ("congelada".equals(SimpMessageHeaderAccessor.getSessionId(recibido.getHeaders()))) {
+                // El socket de la tablet congelada no termina nunca de escribir
+                bloqueada.countDown();
+                try {
+                    desbloquear.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            } else {
+                recibidosSana.add((int) ((byte[]) recibido.getPayload())[0]);
+            }
+        });
+        SimpleBrokerMessageHandler broker = new SimpleBrokerMessageHandler(
+                new ExecutorSubscribableChannel(), salida, new ExecutorSubscribableChannel(), List.of("/topic"));
+        broker.start();
+        try {
+            for (String sesionId : List.of("congelada", "sana")) {
+                broker.handleMessage(control(SimpMessageType.CONNECT, sesionId));
+                broker.handleMessage(control(SimpMessageType.SUBSCRIBE, sesionId));
+            }
+
+            broker.handleMessage(publicacion(0));
+            assertThat(bloqueada.await(2, TimeUnit.SECONDS)).isTrue();
+            esperar(() -> recibidosSana.size() == 1);
+            // La sesión sana consume al ritmo de la publicación; la trabada va acumulando
+            int total = MAX_PENDIENTES + 50;
+            for (int i = 1; i < total; i++) {
+                broker.handleMessage(publicacion(i));
+                int recibidos = i + 1;
+                esperar(() -> recibidosSana.size() == recibidos);
+            }
+
+            // La sesión sana recibe todo y en orden aunque la otra esté trabada
+            assertThat(recibidosSana).containsExactlyElementsOf(IntStream.range(0, total).boxed().toList());
+
+            RegistroSesionesWebSocket.EstadoSesion estadoCongelada = estado("congelada");
+            assertThat(estadoCongelada.pendientes()).isEqualTo(MAX_PENDIENTES);
+            assertThat(estadoCongelada.descartados()).isEqualTo(total - MAX_PENDIENTES);
+            assertThat(estado("sana").pendientes()).isZero();
+
+            // Sin avanzar durante el límite, el siguiente mensaje publicado la expulsa
+            reloj.addAndGet(LIMITE_MS + 1);
+            broker.handleMessage(publicacion(total));
+            verify(congelada, timeout(2_000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+            verify(sana, never()).close(CloseStatus.SESSION_NOT_RELIABLE);
+            assertThat(registro.getExpulsiones()).isEqualTo(1);
+        } finally {
+            desbloquear.countDown();
+            broker.stop();
+        }
+    }
+
+    @Test
+    void suscriptorCongeladoNoAcumulaMasDelLimiteNiAfectaALosDemas() {
+        // La sesión congelada nunca termina de escribir sus mensajes; la sana los entrega al instante
+        int aceptadosCongelada = 0;
+        for (int i = 0; i < MAX_PENDIENTES + 50; i++) {
+            if (registro.preSend(mensaje("congelada"), canal) != null) {
+                aceptadosCongelada++;
+            }
+            Message<?> paraSana = mensaje("sana");
+            assertThat(registro.preSend(paraSana, canal)).isNotNull();
+            registro.afterMessageHandled(paraSana, canal, handler, null);
+        }
+
+        assertThat(aceptadosCongelada).isEqualTo(MAX_PENDIENTES);
+        RegistroSesionesWebSocket.EstadoSesion estadoCongelada = estado("congelada");
+        assertThat(estadoCongelada.pendientes()).isEqualTo(MAX_PENDIENTES);
+        assertThat(estadoCongelada.descartados()).isEqualTo(50);
+        assertThat(estadoCongelada.enviados()).isZero();
+
+        RegistroSesionesWebSocket.EstadoSesion estadoSana = estado("sana");
+        assertThat(estadoSana.pendientes()).isZero();
+        assertThat(estadoSana.enviados()).isEqualTo(MAX_PENDIENTES + 50);
+        assertThat(estadoSana.descartados()).isZero();
+
+        // La sesión más cargada aparece primero
+        assertThat(registro.getSesiones().get(0).sesionId()).isEqualTo("congelada");
+    }
+
+    @Test
+    void suscriptorSinAvanzarMasDelLimiteDeTiempoSeExpulsa() throws Exception {
+        assertThat(registro.preSend(mensaje("congelada"), canal)).isNotNull();
+        reloj.addAndGet(LIMITE_MS / 2);
+        assertThat(registro.preSend(mensaje("congelada"), canal)).isNotNull();
+        assertThat(estado("congelada").estancada()).isFalse();
+
+        reloj.addAndGet(LIMITE_MS);
+        assertThat(estado("congelada").estancada()).isTrue();
+        assertThat(registro.preSend(mensaje("congelada"), canal)).isNull();
+
+        verify(congelada, timeout(2_000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        verify(sana, never()).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(registro.getExpulsiones()).isEqualTo(1);
+
+        // Mensajes siguientes no vuelven a expulsar
+        assertThat(registro.preSend(mensaje("congelada"), canal)).isNull();
+        assertThat(registro.getExpulsiones()).isEqualTo(1);
+
+        decorado.afterConnectionClosed(congelada, CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(registro.getSesiones()).extracting(RegistroSesionesWebSocket.EstadoSesion::sesionId)
+                .containsExactly("sana");
+    }
+
+    @Test
+    void sesionInactivaQueRecibeUnMensajeNoSeConsideraEstancada() {
+        reloj.addAndGet(LIMITE_MS * 10);
+        assertThat(registro.preSend(mensaje("sana"), canal)).isNotNull();
+        assertThat(estado("sana").estancada()).isFalse();
+    }
+
+    @Test
+    void mensajesDeControlYDeSesionesDesconocidasPasanSinContarse() {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT_ACK);
+        accessor.setSessionId("congelada");
+        Message<byte[]> connectAck = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        for (int i = 0; i < MAX_PENDIENTES * 2; i++) {
+            assertThat(registro.preSend(connectAck, canal)).isNotNull();
+        }
+        assertThat(registro.preSend(mensaje("otra"), canal)).isNotNull();
+        assertThat(estado("congelada").pendientes()).isZero();
+    }
+
+    @Test
+    void mensajeRechazadoPorElExecutorLiberaSuLugar() {
+        Message<?> mensaje = mensaje("congelada");
+        assertThat(registro.preSend(mensaje, canal)).isNotNull();
+        registro.afterSendCompletion(mensaje, canal, false, new IllegalStateException("cola llena"));
+        assertThat(estado("congelada").pendientes()).isZero();
+        assertThat(estado("congelada").descartados()).isEqualTo(1);
+    }
+
+    private static void esperar(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 2_000;
+        while (!condicion.getAsBoolean() && System.currentTimeMillis() < limite) {
+            Thread.sleep(1);
+        }
+        assertThat(condicion.getAsBoolean()).isTrue();
+    }
+
+    private RegistroSesionesWebSocket.EstadoSesion estado(String sesionId) {
+        List<RegistroSesionesWebSocket.EstadoSesion> sesiones = registro.getSesiones();
+        return sesiones.stream().filter(s -> s.sesionId().equals(sesionId)).findFirst().orElseThrow();
+    }
+
+    private static WebSocketSession sesion(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        return session;
+    }
+
+    private static Message<byte[]> control(SimpMessageType tipo, String sesionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(tipo);
+        accessor.setSessionId(sesionId);
+        if (tipo == SimpMessageType.CONNECT) {
+            accessor.setHeader(SimpMessageHeaderAccessor.HEART_BEAT_HEADER, new long[]{0, 0});
+        } else {
+            accessor.setSubscriptionId("sub-" + sesionId);
+            accessor.setDestination("/topic/area/cocina");
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> publicacion(int numero) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination("/topic/area/cocina");
+        return MessageBuilder.createMessage(new byte[]{(byte) numero}, accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> mensaje(String sesionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sesionId);
+        accessor.setDestination("/topic/area/cocina");
+        return MessageBuilder.createMessage(new byte[]{1}, accessor.getMessageHeaders());
+    }
+}
@@ -11,20 +11,24 @@ import { getStockDisponibleProducto } from '../services/productoService';
 interface ProductCardProps {
     producto: Producto;
     hideActions?: boolean;
+    // Si se recibe, se usa en lugar de consultar el stock del producto
+    stockDisponible?: number;
 }
 
-const ProductCard = ({ producto, hideActions }: ProductCardProps) => {
+const ProductCard = ({ producto, hideActions, stockDisponible }: ProductCardProps) => {
     // 2. Obtenemos la función para añadir productos desde el contexto
     const { addProductToOrder } = useOrder();
-    const [stockReal, setStockReal] = useState<number | null>(null);
+    const [stockConsultado, setStockConsultado] = useState<number | null>(null);
+    const stockReal = stockDisponible !== undefined ? stockDisponible : stockConsultado;
 
     useEffect(() => {
+        if (stockDisponible !== undefined) return;
         let mounted = true;
         getStockDisponibleProducto(producto.id)
-            .then(stock => { if (mounted) setStockReal(stock); })
-            .catch(() => { if (mounted) setStockReal(null); });
+            .then(stock => { if (mounted) setStockConsultado(stock); })
+            .catch(() => { if (mounted) setStockConsultado(null); });
         return () => { mounted = false; };
-    }, [producto.id]);
+    }, [producto.id, stockDisponible]);
 
     return (
         <Card sx={{ height: '100%', display: 'flex', flexDirection: 'column' }}>
@@ -1,14 +1,40 @@
 // ✅ Este es el único WebSocketContext que debe usarse en producción y desarrollo.
-import { createContext, useContext, useState, useEffect, useRef } from 'react';
+import { createContext, useContext, useState, useEffect, useRef, useCallback } from 'react';
 import type { ReactNode } from 'react';
 import { Client } from '@stomp/stompjs';
+import type { IMessage, StompSubscription } from '@stomp/stompjs';
+import api from '../services/api';
 
 interface IWebSocketContext {
     stompClient: Client | null;
     isConnected: boolean;
     reconnect: () => void;
+    // Suscripción que sobrevive a reconexiones: al reconectar se reciben los eventos perdidos.
+    // onResincronizar se llama si el servidor ya no tiene esos eventos y hay que recargar todo.
+    suscribir: (destino: string, onMensaje: (cuerpo: string) => void, onResincronizar?: () => void) => () => void;
 }
 
+interface Manejador {
+    onMensaje: (cuerpo: string) => void;
+    onResincronizar?: () => void;
+}
+
+interface ReanudacionEventos {
+    epoca: number;
+    secuenciaActual: number;
+    completo: boolean;
+    eventos: { secuencia: number; destino: string; payload: unknown }[];
+}
+
+interface MensajeEnEspera {
+    destino: string;
+    secuencia: number | null;
+    cuerpo: string;
+}
+
+const CABECERA_SECUENCIA = 'x-secuencia';
+const MAX_SECUENCIAS_VISTAS = 2000;
+
 const WebSocketContext = createContext<IWebSocketContext | undefined>(undefined);
 
 export const WebSocketProvider = ({ children }: { children: ReactNode }) => {
@@ -20,6 +46,118 @@ export const WebSocketProvider = ({ children }: { children: ReactNode }) => {
     const isProduction = window.location.hostname !== 'localhost' && window.location.hostname !== '127.0.0.1';
     const isInitializedRef = useRef(false);
     const isShuttingDownRef = useRef(false);
+    const clientRef = useRef<Client | null>(null);
+    const manejadoresRef = useRef(new Map<string, Set<Manejador>>());
+    const suscripcionesRef = useRef(new Map<string, StompSubscription>());
+    const ultimaSecuenciaRef = useRef<number | null>(null);
+    // Ejecución del servidor a la que pertenece ultimaSecuencia (las secuencias reinician al arrancar)
+    const epocaRef = useRef<number | null>(null);
+    const secuenciasVistasRef = useRef(new Set<number>());
+    // Mensajes en vivo que llegan mientras se reproducen los eventos perdidos
+    const enEsperaRef = useRef<MensajeEnEspera[] | null>(null);
+
+    const entregar = (destino: string, secuencia: number | null, cuerpo: string) => {
+        if (secuencia !== null) {
+            const vistas = secuenciasVistasRef.current;
+            if (vistas.has(secuencia)) return; // Ya entregado (en vivo o reproducido)
+            vistas.add(secuencia);
+            if (vistas.size > MAX_SECUENCIAS_VISTAS) {
+                vistas.delete(vistas.values().next().value as number);
+            }
+            ultimaSecuenciaRef.current = Math.max(ultimaSecuenciaRef.current ?? 0, secuencia);
+        }
+        manejadoresRef.current.get(destino)?.forEach(manejador => {
+            try {
+                manejador.onMensaje(cuerpo);
+            } catch (error) {
+                console.error(`❌ Error procesando mensaje de ${destino}:`, error);
+            }
+        });
+    };
+
+    const recibir = (destino: string) => (message: IMessage) => {
+        const cabecera = message.headers[CABECERA_SECUENCIA];
+        const secuencia = cabecera !== undefined ? Number(cabecera) : null;
+        if (enEsperaRef.current) {
+            enEsperaRef.current.push({ destino, secuencia, cuerpo: message.body });
+            return;
+        }
+        entregar(destino, secuencia, message.body);
+    };
+
+    const suscribirEnCliente = (client: Client, destino: string) => {
+        if (suscripcionesRef.current.has(destino)) return;
+        suscripcionesRef.current.set(destino, client.subscribe(destino, recibir(destino)));
+    };
+
+    const resincronizarTodo = () => {
+        manejadoresRef.current.forEach(manejadores =>
+            manejadores.forEach(manejador => manejador.onResincronizar?.())
+        );
+    };
+
+    // Tras (re)conectar: pedir solo los eventos posteriores a la última secuencia vista
+    const reanudar = async () => {
+        const desde = ultimaSecuenciaRef.current;
+        const params = new URLSearchParams();
+        if (desde !== null) params.append('desde', String(desde));
+        if (desde !== null && epocaRef.current !== null) params.append('epoca', String(epocaRef.current));
+        manejadoresRef.current.forEach((_, destino) => params.append('destino', destino));
+        enEsperaRef.current = [];
+        try {
+            const { data } = await api.get<ReanudacionEventos>(`/eventos?${params.toString()}`);
+            if (desde !== null) {
+                if (data.completo) {
+                    console.log(`🔁 Reanudando ${data.eventos.length} eventos desde la secuencia ${desde}`);
+                    data.eventos.forEach(evento => entregar(evento.destino, evento.secuencia, JSON.stringify(evento.payload)));
+                } else {
+                    console.log('⚠️ Historial de eventos insuficiente o servidor reiniciado, recargando estado completo');
+                    secuenciasVistasRef.current.clear();
+                    ultimaSecuenciaRef.current = null;
+                    resincronizarTodo();
+                }
+            }
+            epocaRef.current = data.epoca;
+            ultimaSecuenciaRef.current = Math.max(ultimaSecuenciaRef.current ?? 0, data.secuenciaActual);
+        } catch (error) {
+            console.error('❌ Error reanudando eventos:', error);
+            if (desde !== null) resincronizarTodo();
+        } finally {
+            const enEspera = enEsperaRef.current ?? [];
+            enEsperaRef.current = null;
+            enEspera.forEach(mensaje => entregar(mensaje.destino, mensaje.secuencia, mensaje.cuerpo));
+        }
+    };
+
+    const suscribir = useCallback((destino: string, onMensaje: (cuerpo: string) => void, onResincronizar?: () => void) => {
+        const manejador: Manejador = { onMensaje, onResincronizar };
+        let manejadores = manejadoresRef.current.get(destino);
+        if (!manejadores) {
+            manejadores = new Set();
+            manejadoresRef.current.set(destino, manejadores);
+        }
+        manejadores.add(manejador);
+        const client = clientRef.current;
+        if (client && client.connected) {
+            suscribirEnCliente(client, destino);
+        }
+        return () => {
+            const actuales = manejadoresRef.current.get(destino);
+            if (!actuales) return;
+            actuales.delete(manejador);
+            if (actuales.size === 0) {
+                manejadoresRef.current.delete(destino);
+                const suscripcion = suscripcionesRef.current.get(destino);
+                suscripcionesRef.current.delete(destino);
+                try {
+                    suscripcion?.unsubscribe();
+                } catch {
+                    // La conexión ya estaba cerrada
+                }
+            }
+        };
+        // eslint-disable-next-line react-hooks/exhaustive-deps
+    }, []);
 
     const cleanup = () => {
         if (reconnectTimeoutRef.current) {
@@ -72,6 +210,10 @@ export const WebSocketProvider = ({ children }: { children: ReactNode }) => {
             if (isShuttingDownRef.current) return;
             
             console.log("✅ WebSocket conectado");
+            // Las suscripciones de la conexión anterior ya no existen en el servidor
+            suscripcionesRef.current.clear();
+            manejadoresRef.current.forEach((_, destino) => suscribirEnCliente(client, destino));
+            reanudar();
             setIsConnected(true);
             reconnectAttemptsRef.current = 0;
             isInitializedRef.current = true;
@@ -145,6 +287,7 @@ export const WebSocketProvider = ({ children }: { children: ReactNode }) => {
 
         try {
             client.activate();
+            clientRef.current = client;
             setStompClient(client);
         } catch (error) {
             console.error('❌ Error activando WebSocket:', error);
@@ -200,7 +343,8 @@ export const WebSocketProvider = ({ children }: { children: ReactNode }) => {
     const value: IWebSocketContext = {
         stompClient,
         isConnected,
-        reconnect
+        reconnect,
+        suscribir
     };
 
     return (
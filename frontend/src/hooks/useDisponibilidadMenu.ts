@@ -0,0 +1,47 @@
+import { useEffect, useRef, useState } from 'react';
+import { useWebSocket } from '../context/WebSocketContextProduction';
+import { getDisponibilidadMenu } from '../services/productoService';
+import type { DisponibilidadMenu } from '../services/productoService';
+
+// Disponibilidad del menú: carga inicial en bloque y cambios por /topic/disponibilidad
+export const useDisponibilidadMenu = () => {
+  const { suscribir } = useWebSocket();
+  const [disponibilidad, setDisponibilidad] = useState<Record<number, number> | null>(null);
+  const versionRef = useRef(0);
+
+  const cargar = async () => {
+    try {
+      const data: DisponibilidadMenu = await getDisponibilidadMenu();
+      versionRef.current = data.version;
+      setDisponibilidad(data.productos);
+    } catch {
+      setDisponibilidad(null);
+    }
+  };
+
+  useEffect(() => {
+    cargar();
+  }, []);
+
+  useEffect(() => {
+    // Al reconectar llegan los cambios perdidos; si el servidor ya no los tiene se recarga el menú
+    return suscribir('/topic/disponibilidad', (cuerpo) => {
+      try {
+        const cambios: DisponibilidadMenu = JSON.parse(cuerpo);
+        if (cambios.version <= versionRef.current) return;
+        // Si se perdió algún cambio, volver a pedir el menú completo
+        if (cambios.version !== versionRef.current + 1) {
+          cargar();
+          return;
+        }
+        versionRef.current = cambios.version;
+        setDisponibilidad(prev => ({ ...(prev ?? {}), ...cambios.productos }));
+      } catch {
+        // Mensaje con formato inesperado
+      }
+    }, cargar);
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [suscribir]);
+
+  return disponibilidad;
+};
@@ -203,7 +203,7 @@ const CashierViewPage: React.FC = () => {
   const [quickSaleProductos, setQuickSaleProductos] = useState<Producto[]>([]);
   const [creatingQuickSale, setCreatingQuickSale] = useState(false);
   
-  const { stompClient, isConnected } = useWebSocket();
+  const { stompClient, isConnected, suscribir } = useWebSocket();
   const { showError, showSuccess } = useNotification();
   const theme = useTheme();
   const isMobile = useMediaQuery(theme.breakpoints.down('md'));
@@ -244,33 +244,34 @@ const CashierViewPage: React.FC = () => {
   }, [showError]);
 
     useEffect(() => {
-        if (isConnected && stompClient) {
-            fetchInitialComandas();
-            const subscription = stompClient.subscribe('/topic/caja', (message) => {
-                const comandaActualizada: ComandaResponseDTO = JSON.parse(message.body);
-                // Incluir ventas rápidas (EN_PROCESO con mesaId 9999) y comandas LISTA/ENTREGADA
-                if (comandaActualizada.estado === 'LISTA' || 
-                    comandaActualizada.estado === 'ENTREGADA' ||
-                    (comandaActualizada.estado === 'EN_PROCESO' && comandaActualizada.numeroMesa === 9999)) {
-                    setComandas(prevComandas => {
-                        const comandaExistente = prevComandas.find(c => c.id === comandaActualizada.id);
-                        if (comandaExistente) {
-                            return prevComandas.map(c => c.id === comandaActualizada.id ? comandaActualizada : c);
-                        }
-                        return [comandaActualizada, ...prevComandas];
-                    });
-                    
-                    // Mostrar mensaje apropiado según el tipo de comanda
-                    if (comandaActualizada.numeroMesa === 9999) {
-                        showSuccess('Venta rápida creada', 'Nueva venta rápida lista para cobrar');
-                    } else {
-                        showSuccess('Nueva comanda', `Mesa ${comandaActualizada.numeroMesa} lista para cobrar`);
+        fetchInitialComandas();
+    }, [fetchInitialComandas]);
+
+    // Tras una reconexión llegan las comandas perdidas; se recarga todo solo si el servidor ya no las tiene
+    useEffect(() => {
+        return suscribir('/topic/caja', (cuerpo) => {
+            const comandaActualizada: ComandaResponseDTO = JSON.parse(cuerpo);
+            // Incluir ventas rápidas (EN_PROCESO con mesaId 9999) y comandas LISTA/ENTREGADA
+            if (comandaActualizada.estado === 'LISTA' || 
+                comandaActualizada.estado === 'ENTREGADA' ||
+                (comandaActualizada.estado === 'EN_PROCESO' && comandaActualizada.numeroMesa === 9999)) {
+                setComandas(prevComandas => {
+                    const comandaExistente = prevComandas.find(c => c.id === comandaActualizada.id);
+                    if (comandaExistente) {
+                        return prevComandas.map(c => c.id === comandaActualizada.id ? comandaActualizada : c);
                     }
+                    return [comandaActualizada, ...prevComandas];
+                });
+                
+                // Mostrar mensaje apropiado según el tipo de comanda
+                if (comandaActualizada.numeroMesa === 9999) {
+                    showSuccess('Venta rápida creada', 'Nueva venta rápida lista para cobrar');
+                } else {
+                    showSuccess('Nueva comanda', `Mesa ${comandaActualizada.numeroMesa} lista para cobrar`);
                 }
-            });
-            return () => { subscription.unsubscribe(); };
-        }
-  }, [isConnected, stompClient, fetchInitialComandas, showSuccess]);
+            }
+        }, fetchInitialComandas);
+  }, [suscribir, fetchInitialComandas, showSuccess]);
 
   useEffect(() => {
     if (isConnected && stompClient) {
@@ -1,4 +1,4 @@
-import { useState, useEffect } from 'react';
+import { useState, useEffect, useRef } from 'react';
 import {
     Container,
     Typography,
@@ -32,7 +32,7 @@ import {
     Search as SearchIcon,
     Visibility as ViewIcon,
 } from '@mui/icons-material';
-import { getMesas, createMesa, updateMesaEstado, deleteMesa, type Mesa } from '../services/mesaService';
+import { getMesas, createMesa, updateMesaEstado, deleteMesa, aplicarCambiosMesas, type Mesa, type MesasCambios } from '../services/mesaService';
 import { useAuth } from '../context/AuthContext';
 import ModernCard from '../components/ModernCard';
 import ModernButton from '../components/ModernButton';
@@ -42,7 +42,8 @@ import { useWebSocket } from '../context/WebSocketContextProduction';
 
 const GestionMesasPage = () => {
     const { roles } = useAuth();
-    const { stompClient, isConnected } = useWebSocket();
+    const { suscribir } = useWebSocket();
+    const versionMesasRef = useRef<number | null>(null);
     const theme = useTheme();
     const isMobile = useMediaQuery(theme.breakpoints.down('md'));
     const isGerente = roles.includes('ROLE_GERENTE');
@@ -66,23 +67,28 @@ const GestionMesasPage = () => {
 
     useEffect(() => {
         loadMesas();
+        // eslint-disable-next-line react-hooks/exhaustive-deps
+    }, []);
 
-        if (isConnected && stompClient) {
-            const subscription = stompClient.subscribe('/topic/mesas', (message) => {
-                try {
-                    const mesaActualizada = JSON.parse(message.body);
-                    setMesas(prevMesas =>
-                        prevMesas.map(m => m.id === mesaActualizada.id ? { ...m, ...mesaActualizada } : m)
-                    );
-                } catch {
-                    // Mensaje no es una mesa válida
+    // Tras una reconexión llegan solo los cambios perdidos; se recarga todo solo si el servidor ya no los tiene
+    useEffect(() => {
+        return suscribir('/topic/mesas', (cuerpo) => {
+            try {
+                const cambios: MesasCambios = JSON.parse(cuerpo);
+                const anterior = versionMesasRef.current;
+                versionMesasRef.current = cambios.version;
+                // Si se perdió algún cambio, recargar todas las mesas
+                if (anterior !== null && cambios.version > anterior + 1) {
+                    loadMesas();
+                    return;
                 }
-            });
-            return () => {
-                subscription.unsubscribe();
-            };
-        }
-    }, [isConnected, stompClient]);
+                setMesas(prevMesas => aplicarCambiosMesas(prevMesas, cambios));
+            } catch {
+                // Mensaje con formato inesperado
+            }
+        }, () => loadMesas());
+        // eslint-disable-next-line react-hooks/exhaustive-deps
+    }, [suscribir]);
 
     const loadMesas = async () => {
         try {
@@ -133,7 +133,7 @@ const IngredientesPage = () => {
         }
         try {
             if (editingIngrediente) {
-                await updateIngrediente(editingIngrediente.id!, formData);
+                await updateIngrediente(editingIngrediente.id!, formData, editingIngrediente.stock);
                 setSuccess('Ingrediente actualizado correctamente');
             } else {
                 await createIngrediente(formData);
@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import {
   Box,
   Typography,
@@ -31,9 +31,10 @@ import { useNotification } from '../hooks/useNotification';
 import ModernCard from '../components/ModernCard';
 import ModernButton from '../components/ModernButton';
 import LoadingSpinner from '../components/LoadingSpinner';
-import { getComandasPorArea, startPreparation, markAsReady, imprimirComandaArea } from '../services/comandaService';
+import { getPantallaArea, startPreparation, markAsReady, imprimirComandaArea } from '../services/comandaService';
 import { getAreasPreparacion } from '../services/preparationAreaService';
-import type { PreparationArea, ComandaAreaResponseDTO } from '../types';
+import { useWebSocket } from '../context/WebSocketContextProduction';
+import type { PreparationArea, ComandaAreaResponseDTO, EventoArea } from '../types';
 
 interface TabPanelProps {
   children?: React.ReactNode;
@@ -68,6 +69,9 @@ const KitchenViewPage: React.FC = () => {
   const [comandasPorArea, setComandasPorArea] = useState<{ [areaId: number]: ComandaAreaResponseDTO[] }>({});
   const [loading, setLoading] = useState(true);
   const [refreshing, setRefreshing] = useState(false);
+  const { isConnected, suscribir } = useWebSocket();
+  // Última secuencia aplicada de /topic/area/{areaId}, por id numérico de área
+  const secuenciasRef = useRef<{ [areaId: number]: number }>({});
 
    
   useEffect(() => {
@@ -83,9 +87,28 @@ const KitchenViewPage: React.FC = () => {
     // eslint-disable-next-line react-hooks/exhaustive-deps
   }, [areas]);
 
-  // Auto-refresh cada 30 segundos para detectar nuevos items (reducido de 10s para optimizar)
+  // Eventos incrementales por área: cada pantalla recibe solo el tráfico de sus áreas.
+  // Al reconectar llegan los eventos perdidos; la foto del área se pide solo si el servidor ya no los tiene
   useEffect(() => {
-    if (areas.length === 0) return; // No hacer nada si no hay áreas
+    if (areas.length === 0) return;
+    const desuscribir = areas.map(area =>
+      suscribir(`/topic/area/${area.areaId}`, (cuerpo) => {
+        try {
+          aplicarEventoArea(area, JSON.parse(cuerpo) as EventoArea);
+        } catch {
+          // Mensaje con formato inesperado
+        }
+      }, () => loadComandasArea(area))
+    );
+    return () => {
+      desuscribir.forEach(cancelar => cancelar());
+    };
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [suscribir, areas]);
+
+  // Sin WebSocket, refrescar cada 30 segundos como respaldo
+  useEffect(() => {
+    if (areas.length === 0 || isConnected) return;
     
     const interval = setInterval(() => {
       // Solo actualizar si la página está visible y activa
@@ -95,7 +118,67 @@ const KitchenViewPage: React.FC = () => {
     }, 30000); // 30 segundos (optimizado)
 
     return () => clearInterval(interval);
-  }, [areas.length]); // Solo depender del length, no del array completo
+  }, [areas.length, isConnected]); // Solo depender del length, no del array completo
+
+  const loadComandasArea = async (area: PreparationArea) => {
+    try {
+      const { comandas, secuencia } = await getPantallaArea(area.id);
+      secuenciasRef.current[area.id] = secuencia;
+      setComandasPorArea(prev => ({ ...prev, [area.id]: comandas }));
+    } catch (error) {
+      console.error(`❌ Error cargando comandas para área ${area.id}:`, error);
+    }
+  };
+
+  const aplicarEventoArea = (area: PreparationArea, evento: EventoArea) => {
+    const ultima = secuenciasRef.current[area.id] ?? 0;
+    if (evento.secuencia <= ultima) return; // Ya incluido en la foto actual
+    if (evento.secuencia !== ultima + 1) {
+      // Se perdió al menos un evento (o el servidor reinició): volver a pedir la foto del área
+      loadComandasArea(area);
+      return;
+    }
+    secuenciasRef.current[area.id] = evento.secuencia;
+
+    setComandasPorArea(prev => {
+      const actuales = prev[area.id] ?? [];
+      switch (evento.tipo) {
+        case 'TICKET_AGREGADO': {
+          const nueva: ComandaAreaResponseDTO = {
+            id: evento.comandaAreaId,
+            comandaId: evento.comandaId,
+            areaId: area.id,
+            areaNombre: area.name,
+            mesaId: evento.mesaId ?? 0,
+            estado: evento.estado ?? 'PENDING',
+            fechaCreacion: evento.fechaCreacion ?? new Date().toISOString(),
+            items: evento.items ?? [],
+          };
+          return { ...prev, [area.id]: [...actuales.filter(c => c.id !== nueva.id), nueva] };
+        }
+        case 'ITEMS_AGREGADOS':
+          return {
+            ...prev,
+            [area.id]: actuales.map(c => {
+              if (c.id !== evento.comandaAreaId) return c;
+              const nuevos = (evento.items ?? []).filter(item => !c.items.some(existente => existente.id === item.id));
+              return { ...c, items: [...c.items, ...nuevos] };
+            }),
+          };
+        case 'ESTADO_CAMBIADO':
+          // La pantalla solo muestra comandas pendientes o en preparación
+          if (evento.estado === 'READY' || evento.estado === 'DELIVERED') {
+            return { ...prev, [area.id]: actuales.filter(c => c.id !== evento.comandaAreaId) };
+          }
+          return {
+            ...prev,
+            [area.id]: actuales.map(c => c.id === evento.comandaAreaId ? { ...c, estado: evento.estado ?? c.estado } : c),
+          };
+        default:
+          return prev;
+      }
+    });
+  };
 
   const loadAreas = async () => {
     try {
@@ -124,8 +207,9 @@ const KitchenViewPage: React.FC = () => {
       
       for (const area of areas) {
         try {
-          const comandas = await getComandasPorArea(area.id);
+          const { comandas, secuencia } = await getPantallaArea(area.id);
           comandasData[area.id] = comandas;
+          secuenciasRef.current[area.id] = secuencia;
           
           // Solo hacer log si hay comandas y estamos en desarrollo
           if (comandas.length > 0 && import.meta.env.DEV) {
@@ -329,7 +413,8 @@ const KitchenViewPage: React.FC = () => {
     try {
       await startPreparation(comandaAreaId);
       showSuccess('Preparación iniciada', 'La comanda ha sido marcada como en preparación');
-      await loadComandasForAllAreas();
+      // Con WebSocket el cambio llega por /topic/area/{areaId}
+      if (!isConnected) await loadComandasForAllAreas();
     } catch {
       showError('Error al iniciar preparación');
     }
@@ -339,7 +424,7 @@ const KitchenViewPage: React.FC = () => {
     try {
       await markAsReady(comandaAreaId);
       showSuccess('Comanda lista', 'La comanda ha sido marcada como lista');
-      await loadComandasForAllAreas();
+      if (!isConnected) await loadComandasForAllAreas();
     } catch {
       showError('Error al marcar como listo');
     }
@@ -20,7 +20,7 @@ import Tooltip from '@mui/material/Tooltip';
 import EditIcon from '@mui/icons-material/Edit';
 import SaveIcon from '@mui/icons-material/Save';
 import AddIcon from '@mui/icons-material/Add';
-import { getMesasMapa, updateMesaPosicion, createMesa, updateMesaEstado, type MesaMapa } from '../services/mesaService';
+import { getMesasMapa, updateMesaPosicion, createMesa, updateMesaEstado, aplicarCambiosMesas, type MesaMapa, type MesasCambios } from '../services/mesaService';
 import { useAuth } from '../context/AuthContext';
 import { useWebSocket } from '../context/WebSocketContextProduction';
 import { useNavigate } from 'react-router-dom';
@@ -33,7 +33,8 @@ interface MesaVisual extends MesaMapa {
 const MesaMapaPage = () => {
     const { roles } = useAuth();
     const isGerente = roles.includes('ROLE_GERENTE');
-    const { stompClient, isConnected } = useWebSocket();
+    const { suscribir } = useWebSocket();
+    const versionMesasRef = useRef<number | null>(null);
     
     const [mesas, setMesas] = useState<MesaVisual[]>([]);
     const [loading, setLoading] = useState(true);
@@ -71,28 +72,27 @@ const MesaMapaPage = () => {
     }, []);
 
     useEffect(() => {
-        // Carga inicial al montar el componente
         loadMesas();
+    }, [loadMesas]);
 
-        // Lógica de WebSocket para actualizaciones en tiempo real
-        if (isConnected && stompClient) {
-            console.log("MesaMapaPage: Suscribiendo a /topic/mesas");
-            const subscription = stompClient.subscribe('/topic/mesas', (message) => {
-                try {
-                    const mesaActualizada = JSON.parse(message.body);
-                    setMesas(prevMesas =>
-                        prevMesas.map(m => m.id === mesaActualizada.id ? { ...m, ...mesaActualizada } : m)
-                    );
-                } catch {
-                    console.warn('Mensaje de /topic/mesas no es un objeto Mesa:', message.body);
+    // Tras una reconexión llegan solo los cambios perdidos; se recarga todo solo si el servidor ya no los tiene
+    useEffect(() => {
+        return suscribir('/topic/mesas', (cuerpo) => {
+            try {
+                const cambios: MesasCambios = JSON.parse(cuerpo);
+                const anterior = versionMesasRef.current;
+                versionMesasRef.current = cambios.version;
+                // Si se perdió algún cambio, recargar todo el plano
+                if (anterior !== null && cambios.version > anterior + 1) {
+                    loadMesas();
+                    return;
                 }
-            });
-            return () => {
-                console.log("MesaMapaPage: Desuscribiendo de /topic/mesas");
-                subscription.unsubscribe();
-            };
-        }
-    }, [isConnected, stompClient, loadMesas]);
+                setMesas(prevMesas => aplicarCambiosMesas(prevMesas, cambios));
+            } catch {
+                console.warn('Mensaje de /topic/mesas con formato inesperado:', cuerpo);
+            }
+        }, () => loadMesas());
+    }, [suscribir, loadMesas]);
 
     const handleCreateMesa = async () => {
         try {
@@ -25,6 +25,7 @@ import { useParams, useNavigate } from 'react-router-dom';
 import { useAuth } from '../context/AuthContext';
 import { useNotification } from '../hooks/useNotification';
 import { useOrder } from '../hooks/useOrder';
+import { useDisponibilidadMenu } from '../hooks/useDisponibilidadMenu';
 import ModernCard from '../components/ModernCard';
 import ModernButton from '../components/ModernButton';
 import ModernModal from '../components/ModernModal';
@@ -51,6 +52,7 @@ const OrderPage: React.FC = () => {
   useAuth();
   const { showError, showSuccess } = useNotification();
   const { orderItems, addProductToOrder, updateItemQuantity, clearOrder, loadExistingOrder, activeComandaId } = useOrder();
+  const disponibilidad = useDisponibilidadMenu();
   
   const theme = useTheme();
   const isMobile = useMediaQuery(theme.breakpoints.down('md'));
@@ -155,7 +157,11 @@ const OrderPage: React.FC = () => {
 
   // Reemplazar renderProductoCard por ProductCard
   const renderProductoCard = (producto: Producto) => (
-    <ProductCard key={producto.id} producto={producto} />
+    <ProductCard
+      key={producto.id}
+      producto={producto}
+      stockDisponible={disponibilidad ? (disponibilidad[producto.id] ?? 0) : undefined}
+    />
   );
 
   // Nueva función para agrupar items principales y sus adicionales
@@ -166,7 +166,11 @@ const PrinterSettingsPage = () => {
             const configToSave = {
                 ...currentConfig,
                 role: currentConfig.areaId,
-                templateId: currentConfig.templateId ? Number(currentConfig.templateId) : undefined
+                templateId: currentConfig.templateId ? Number(currentConfig.templateId) : undefined,
+                backupTarget: currentConfig.backupTarget?.trim() || undefined,
+                ajustePrioridad: currentConfig.ajustePrioridad !== undefined && String(currentConfig.ajustePrioridad).trim() !== ''
+                    ? Number(currentConfig.ajustePrioridad)
+                    : undefined
             };
             await savePrinterConfig(configToSave as PrinterConfig);
             setSuccess('Configuración guardada exitosamente.');
@@ -202,6 +206,8 @@ const PrinterSettingsPage = () => {
             areaId: '',
             printerType: 'TCP',
             printerTarget: '',
+            backupTarget: '',
+            ajustePrioridad: undefined,
             templateId: undefined // debe ser number o undefined
         });
         setError(null);
@@ -830,6 +836,27 @@ const PrinterSettingsPage = () => {
                                     helperText="Para TCP: IP:Puerto, Para USB: Nombre del dispositivo, Para WIN: Nombre de la impresora"
                         />
                     </Grid>
+                    <Grid item xs={12}>
+                        <TextField
+                            name="backupTarget"
+                            label="Destino de respaldo (opcional)"
+                            value={currentConfig.backupTarget || ''}
+                            onChange={handleInputChange}
+                            fullWidth
+                            helperText="Si la impresora falla o acumula trabajos sin imprimir, los tickets se envían aquí"
+                        />
+                    </Grid>
+                    <Grid item xs={12} sm={6}>
+                        <TextField
+                            name="ajustePrioridad"
+                            label="Ajuste de prioridad (opcional)"
+                            type="number"
+                            value={currentConfig.ajustePrioridad ?? ''}
+                            onChange={handleInputChange}
+                            fullWidth
+                            helperText="Negativo: sus tickets salen antes. Comandas 10, adiciones 20, cuentas 30, reimpresiones 40"
+                        />
+                    </Grid>
                     <Grid item xs={12} sm={6}>
                         <FormControl fullWidth>
                             <InputLabel>Plantilla de Ticket</InputLabel>
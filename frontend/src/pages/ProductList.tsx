@@ -34,7 +34,7 @@ import {
     Refresh as RefreshIcon,
     Inventory as StockIcon,
 } from '@mui/icons-material';
-import { getProductos, getStockDisponibleProducto } from '../services/productoService';
+import { getProductos, getDisponibilidadMenu } from '../services/productoService';
 import type { Producto } from '../types';
 import { useOrder } from '../hooks/useOrder';
 import { useAuth } from '../context/AuthContext';
@@ -76,27 +76,16 @@ const ProductList = () => {
     const loadProductos = async () => {
         try {
             setLoading(true);
-            const data = await getProductos();
-            const productosWithStock = await Promise.all(
-                (Array.isArray(data) ? data : []).map(async (producto) => {
-                    try {
-                        const stock = await getStockDisponibleProducto(producto.id);
-                        return {
-                            ...producto,
-                            stock,
-                            imagen: getImagenFromProducto(producto),
-                            destacado: Math.random() > 0.7, // Simular productos destacados
-                        };
-                    } catch {
-                        return {
-                            ...producto,
-                            stock: 0,
-                            imagen: getImagenFromProducto(producto),
-                            destacado: false,
-                        };
-                    }
-                })
-            );
+            const [data, disponibilidad] = await Promise.all([
+                getProductos(),
+                getDisponibilidadMenu().catch(() => null),
+            ]);
+            const productosWithStock = (Array.isArray(data) ? data : []).map((producto) => ({
+                ...producto,
+                stock: disponibilidad?.productos[producto.id] ?? 0,
+                imagen: getImagenFromProducto(producto),
+                destacado: disponibilidad ? Math.random() > 0.7 : false, // Simular productos destacados
+            }));
             setProductos(productosWithStock);
         } catch {
             setError('Error al cargar los productos');
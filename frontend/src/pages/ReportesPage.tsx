@@ -52,7 +52,7 @@ import {
   Info as InfoIcon
 } from '@mui/icons-material';
 import type { ReporteVentasDTO, ProductoVendidoDTO } from '../dto/ReportesDTO';
-import { getReporteVentas, descargarReporteVentasPdf, descargarReporteVentasExcel } from '../services/reporteService';
+import { getReporteVentas, descargarReporteVentasPdf, descargarReporteVentasExcel, descargarDetalleVentasExcel } from '../services/reporteService';
 import { useAuth } from '../context/AuthContext';
 import ModernCard from '../components/ModernCard';
 import ModernButton from '../components/ModernButton';
@@ -148,18 +148,20 @@ const ReportesPage = () => {
         }
     };
 
-    const handleDescargarExcel = async () => {
+    const handleDescargarExcel = async (detalle = false) => {
         if (!fechaInicio || !fechaFin) {
             setError('Por favor selecciona las fechas de inicio y fin');
             return;
         }
         setLoading(true);
         try {
-            const blob = await descargarReporteVentasExcel(fechaInicio, fechaFin);
+            const blob = detalle
+                ? await descargarDetalleVentasExcel(fechaInicio, fechaFin)
+                : await descargarReporteVentasExcel(fechaInicio, fechaFin);
             const url = window.URL.createObjectURL(new Blob([blob], { type: 'application/vnd.openxmlformats-officedocument.spreadsheetml.sheet' }));
             const link = document.createElement('a');
             link.href = url;
-            link.setAttribute('download', `reporte_ventas_${fechaInicio}_a_${fechaFin}.xlsx`);
+            link.setAttribute('download', `${detalle ? 'detalle_ventas' : 'reporte_ventas'}_${fechaInicio}_a_${fechaFin}.xlsx`);
             document.body.appendChild(link);
             link.click();
             link.parentNode?.removeChild(link);
@@ -329,12 +331,21 @@ const ReportesPage = () => {
                     <ModernButton
                         variant="secondary"
                         startIcon={<DownloadIcon />}
-                        onClick={handleDescargarExcel}
+                        onClick={() => handleDescargarExcel()}
                         disabled={loading}
                         sx={{ flex: 1 }}
                     >
                         Excel
                     </ModernButton>
+                    <ModernButton
+                        variant="secondary"
+                        startIcon={<DownloadIcon />}
+                        onClick={() => handleDescargarExcel(true)}
+                        disabled={loading}
+                        sx={{ flex: 1 }}
+                    >
+                        Detalle
+                    </ModernButton>
                 </Box>
             </Grid>
                 </Grid>
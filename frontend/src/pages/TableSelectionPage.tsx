@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import {
   Box,
   Grid,
@@ -28,7 +28,7 @@ import ModernCard from '../components/ModernCard';
 import ModernButton from '../components/ModernButton';
 // import LoadingSpinner from '../components/LoadingSpinner';
 // import SkeletonLoader from '../components/SkeletonLoader';
-import { getMesas, type Mesa } from '../services/mesaService';
+import { getMesas, aplicarCambiosMesas, type Mesa, type MesasCambios } from '../services/mesaService';
 import { useWebSocket } from '../context/WebSocketContextProduction';
 
 interface MesaWithComanda extends Mesa {
@@ -53,27 +53,33 @@ const TableSelectionPage: React.FC = () => {
   const [viewMode, setViewMode] = useState<'grid' | 'list'>('grid');
   const [filter] = useState<'all' | 'libre' | 'ocupada' | 'reservada'>('all');
 
-  const { stompClient, isConnected } = useWebSocket();
+  const { suscribir } = useWebSocket();
+  const versionMesasRef = useRef<number | null>(null);
 
   useEffect(() => {
     loadMesas();
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, []);
 
-    if (isConnected && stompClient) {
-      const subscription = stompClient.subscribe('/topic/mesas', (message) => {
-        try {
-          const mesaActualizada = JSON.parse(message.body);
-          setMesas(prevMesas =>
-            prevMesas.map(m => m.id === mesaActualizada.id ? { ...m, ...mesaActualizada } : m)
-          );
-        } catch {
-          // Mensaje no es una mesa válida
+  // Tras una reconexión llegan solo los cambios perdidos; se recarga todo solo si el servidor ya no los tiene
+  useEffect(() => {
+    return suscribir('/topic/mesas', (cuerpo) => {
+      try {
+        const cambios: MesasCambios = JSON.parse(cuerpo);
+        const anterior = versionMesasRef.current;
+        versionMesasRef.current = cambios.version;
+        // Si se perdió algún cambio, recargar todas las mesas
+        if (anterior !== null && cambios.version > anterior + 1) {
+          loadMesas();
+          return;
         }
-      });
-      return () => {
-        subscription.unsubscribe();
-      };
-    }
-  }, [isConnected, stompClient]);
+        setMesas(prevMesas => aplicarCambiosMesas(prevMesas, cambios));
+      } catch {
+        // Mensaje con formato inesperado
+      }
+    }, () => loadMesas());
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [suscribir]);
 
   const loadMesas = async () => {
     try {
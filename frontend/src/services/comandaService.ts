@@ -1,5 +1,5 @@
 import api from './api'; // 1. Usamos una sola importación
-import type { ComandaResponseDTO } from '../types';
+import type { ComandaResponseDTO, ComandaAreaResponseDTO } from '../types';
 import type { ComandaRequestDTO, ItemRequestDTO } from '../dto/comandaDTOs';
 
 // La URL base /api/v1 ya está en nuestra instancia de 'api'
@@ -39,6 +39,15 @@ export const getComandasPorArea = async (areaId: number): Promise<any[]> => {
   return response.data;
 };
 
+// Pantalla de un área junto con la secuencia de /topic/area/{areaId} a partir de la cual aplicar eventos
+export const getPantallaArea = async (areaId: number): Promise<{ comandas: ComandaAreaResponseDTO[]; secuencia: number }> => {
+  const response = await api.get(`/comanda-areas/area/${areaId}`);
+  return {
+    comandas: response.data,
+    secuencia: Number(response.headers['x-secuencia-area'] ?? 0),
+  };
+};
+
 export const startPreparation = async (comandaAreaId: number): Promise<any> => {
   const response = await api.put(`/comanda-areas/${comandaAreaId}/start-preparation`);
   return response.data;
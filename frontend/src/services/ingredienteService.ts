@@ -24,8 +24,9 @@ export const createIngrediente = async (ingrediente: Ingrediente): Promise<Ingre
     return response.data;
 };
 
-export const updateIngrediente = async (id: number, ingrediente: Ingrediente): Promise<Ingrediente> => {
-    const response = await api.put(`/ingredientes/${id}`, ingrediente);
+// stockAnterior es el stock que se mostraba al editar: si cambió mientras tanto el backend rechaza el cambio de stock
+export const updateIngrediente = async (id: number, ingrediente: Ingrediente, stockAnterior: number): Promise<Ingrediente> => {
+    const response = await api.put(`/ingredientes/${id}`, { ...ingrediente, stockAnterior });
     return response.data;
 };
 
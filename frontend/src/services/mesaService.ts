@@ -22,6 +22,29 @@ export interface MesaMapa {
     estadoTexto: string;
 }
 
+// Cambios agrupados del plano publicados en /topic/mesas
+export interface MesasCambios {
+    version: number;
+    mesas: MesaMapa[];
+    eliminadas: number[];
+}
+
+// Aplica un mensaje de /topic/mesas sobre las mesas ya cargadas
+export const aplicarCambiosMesas = <T extends { id?: number }>(mesas: T[], cambios: MesasCambios): T[] => {
+    const porId = new Map(cambios.mesas.map(m => [m.id, m]));
+    const eliminadas = new Set(cambios.eliminadas);
+    const actualizadas = mesas
+        .filter(m => m.id === undefined || !eliminadas.has(m.id))
+        .map(m => {
+            const cambio = m.id !== undefined ? porId.get(m.id) : undefined;
+            if (!cambio) return m;
+            porId.delete(m.id as number);
+            return { ...m, ...cambio };
+        });
+    // Mesas nuevas que todavía no estaban en la lista
+    return [...actualizadas, ...(Array.from(porId.values()) as unknown as T[])];
+};
+
 export const getMesas = async (): Promise<Mesa[]> => {
     const response = await api.get('/mesas');
     return response.data;
@@ -8,6 +8,8 @@ export interface PrinterConfig {
     printerTarget: string;
     areaId?: string;
     templateId?: number; // NUEVO: id de la plantilla asignada
+    backupTarget?: string; // Destino de respaldo si esta impresora falla
+    ajustePrioridad?: number; // Se suma a la prioridad de sus trabajos (negativo = más urgente)
 }
 
 // Obtener todas las configuraciones
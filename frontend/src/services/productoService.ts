@@ -11,6 +11,17 @@ export const getStockDisponibleProducto = async (productoId: number): Promise<nu
     return response.data;
 };
 
+export interface DisponibilidadMenu {
+    version: number;
+    productos: Record<number, number>;
+}
+
+// Unidades disponibles de todo el menú en una sola llamada
+export const getDisponibilidadMenu = async (): Promise<DisponibilidadMenu> => {
+    const response = await api.get('/productos/disponibilidad');
+    return response.data;
+};
+
 export const createProducto = async (producto: Omit<Producto, 'id'>): Promise<Producto> => {
     const response = await api.post('/productos', producto);
     return response.data;
@@ -17,16 +17,65 @@ export const getReporteVentas = async (fechaInicio: string, fechaFin: string): P
     return response.data;
 };
 
-export const descargarReporteVentasPdf = async (fechaInicio: string, fechaFin: string): Promise<Blob> => {
-    const response = await api.get(`/reportes/ventas/pdf?fechaInicio=${fechaInicio}&fechaFin=${fechaFin}`, {
-        responseType: 'blob',
-    });
+// --- Reportes en segundo plano ---
+// El backend encola el reporte y devuelve un trabajo; se consulta hasta que termina y
+// recién ahí se descarga el archivo. Así un reporte de un mes no ocupa los hilos que
+// atienden los pedidos.
+
+export type TipoReporte = 'VENTAS' | 'VENTAS_PDF' | 'VENTAS_EXCEL' | 'DETALLE_EXCEL';
+
+export interface TrabajoReporteDTO {
+    id: string;
+    tipo: TipoReporte;
+    fechaInicio: string;
+    fechaFin: string;
+    estado: 'PENDIENTE' | 'EN_CURSO' | 'COMPLETADO' | 'FALLIDO';
+    fechaSolicitud: string;
+    fechaCompletado: string | null;
+    error: string | null;
+    urlResultado: string | null;
+}
+
+export const solicitarReporte = async (tipo: TipoReporte, fechaInicio: string, fechaFin: string): Promise<TrabajoReporteDTO> => {
+    const response = await api.post(`/reportes/trabajos?tipo=${tipo}&fechaInicio=${fechaInicio}&fechaFin=${fechaFin}`);
     return response.data;
 };
 
-export const descargarReporteVentasExcel = async (fechaInicio: string, fechaFin: string): Promise<Blob> => {
-    const response = await api.get(`/reportes/ventas/excel?fechaInicio=${fechaInicio}&fechaFin=${fechaFin}`, {
+export const consultarTrabajoReporte = async (id: string): Promise<TrabajoReporteDTO> => {
+    const response = await api.get(`/reportes/trabajos/${id}`);
+    return response.data;
+};
+
+export const descargarResultadoReporte = async (id: string): Promise<Blob> => {
+    const response = await api.get(`/reportes/trabajos/${id}/resultado`, {
         responseType: 'blob',
     });
     return response.data;
-};
\ No newline at end of file
+};
+
+const esperar = (ms: number) => new Promise(resolve => setTimeout(resolve, ms));
+
+// Solicita el reporte, espera a que termine (consultando cada vez más espaciado) y lo descarga
+export const generarReporte = async (tipo: TipoReporte, fechaInicio: string, fechaFin: string): Promise<Blob> => {
+    let trabajo = await solicitarReporte(tipo, fechaInicio, fechaFin);
+    let intervalo = 500;
+    while (trabajo.estado === 'PENDIENTE' || trabajo.estado === 'EN_CURSO') {
+        await esperar(intervalo);
+        intervalo = Math.min(intervalo * 2, 5000);
+        trabajo = await consultarTrabajoReporte(trabajo.id);
+    }
+    if (trabajo.estado === 'FALLIDO') {
+        throw new Error(trabajo.error ?? 'No se pudo generar el reporte.');
+    }
+    return descargarResultadoReporte(trabajo.id);
+};
+
+export const descargarReporteVentasPdf = (fechaInicio: string, fechaFin: string): Promise<Blob> =>
+    generarReporte('VENTAS_PDF', fechaInicio, fechaFin);
+
+export const descargarReporteVentasExcel = (fechaInicio: string, fechaFin: string): Promise<Blob> =>
+    generarReporte('VENTAS_EXCEL', fechaInicio, fechaFin);
+
+// Excel con cada ítem vendido en el rango
+export const descargarDetalleVentasExcel = (fechaInicio: string, fechaFin: string): Promise<Blob> =>
+    generarReporte('DETALLE_EXCEL', fechaInicio, fechaFin);
@@ -83,17 +83,22 @@ export const createDefaultTemplate = async (areaId: string, areaName: string): P
   return response.data;
 };
 
-// Generar previsualización PDF de una plantilla guardada
-export const generatePreview = async (id: number): Promise<Blob> => {
+// Formato de la previsualización: PDF o PNG al ancho real de la impresora
+export type PreviewFormat = 'pdf' | 'png';
+
+// Generar previsualización de una plantilla guardada
+export const generatePreview = async (id: number, format: PreviewFormat = 'pdf'): Promise<Blob> => {
   const response = await api.post(`/ticket-templates/${id}/preview`, {}, {
+    params: { format },
     responseType: 'blob'
   });
   return response.data;
 };
 
-// Generar previsualización PDF de una plantilla temporal (sin guardar)
-export const generatePreviewFromTemplate = async (template: TicketTemplateDTO): Promise<Blob> => {
+// Generar previsualización de una plantilla temporal (sin guardar)
+export const generatePreviewFromTemplate = async (template: TicketTemplateDTO, format: PreviewFormat = 'pdf'): Promise<Blob> => {
   const response = await api.post('/ticket-templates/preview', template, {
+    params: { format },
     responseType: 'blob'
   });
   return response.data;
@@ -103,4 +103,16 @@ export interface ComandaAreaResponseDTO {
     observaciones?: string;
     esNuevo?: boolean;
   }>;
+}
+
+// Evento incremental de /topic/area/{areaId}
+export interface EventoArea {
+  secuencia: number;
+  tipo: 'TICKET_AGREGADO' | 'ITEMS_AGREGADOS' | 'ESTADO_CAMBIADO';
+  comandaAreaId: number;
+  comandaId: number;
+  mesaId?: number;
+  estado?: string;
+  fechaCreacion?: string;
+  items?: ComandaAreaResponseDTO['items'];
 }
\ No newline at end of file
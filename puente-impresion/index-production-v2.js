@@ -14,6 +14,9 @@ const RECONNECT_DELAY = 3000;
 const PRINT_TIMEOUT = 30000; // 30 segundos para producción
 const HEALTH_CHECK_INTERVAL = 15000; // 15 segundos
 const CONNECTION_TIMEOUT = 10000; // 10 segundos
+const MAX_TRABAJOS_RECORDADOS = 500; // ids ya impresos que se recuerdan para no duplicar reenvíos
+// Impresoras (printerTarget) que atiende este puente, separadas por coma. Vacío: todas
+const IMPRESORAS = (process.env.IMPRESORAS || '').split(',').map(i => i.trim()).filter(Boolean);
 
 console.log('-----------------------------------------');
 console.log('--- PUENTE DE IMPRESIÓN v5.0 (PRODUCCIÓN V2) ---');
@@ -21,6 +24,7 @@ console.log('-----------------------------------------');
 console.log(`WebSocket URL: ${WEBSOCKET_URL}`);
 console.log(`Modo: PRODUCCIÓN V2`);
 console.log(`Timeout de impresión: ${PRINT_TIMEOUT/1000} segundos`);
+console.log(`Impresoras: ${IMPRESORAS.length > 0 ? IMPRESORAS.join(', ') : 'todas'}`);
 
 // --- 3. VARIABLES DE CONTROL MEJORADAS ---
 let reconnectAttempts = 0;
@@ -33,37 +37,107 @@ let lastPrintTime = null;
 let connectionStartTime = null;
 let printJobQueue = [];
 let isProcessingQueue = false;
+const trabajosImpresos = new Set(); // en orden de inserción, se recortan los más antiguos
+const trabajosEnCurso = new Set();  // encolados o imprimiéndose
+
+// Mismo criterio que ColaImpresionService.destino en el backend
+function destinoImpresora(impresora) {
+    const clave = (impresora || '').toLowerCase()
+        .replace(/[^a-z0-9_-]+/g, '-')
+        .replace(/^-+|-+$/g, '');
+    return `/topic/impresora/${clave || 'default'}`;
+}
+
+// Informa al backend el resultado de un trabajo; sin confirmación el backend lo reenvía
+function confirmarTrabajo(printJob, ok, error) {
+    if (!printJob || printJob.trabajoId == null || printJob.confirmado) {
+        return;
+    }
+    printJob.confirmado = true;
+    trabajosEnCurso.delete(printJob.trabajoId);
+    if (ok) {
+        trabajosImpresos.add(printJob.trabajoId);
+        while (trabajosImpresos.size > MAX_TRABAJOS_RECORDADOS) {
+            trabajosImpresos.delete(trabajosImpresos.values().next().value);
+        }
+    }
+    publicarConfirmacion(printJob.trabajoId, ok, error);
+}
+
+function publicarConfirmacion(trabajoId, ok, error) {
+    if (!stompClient || !stompClient.connected) {
+        console.warn(`⚠️ Sin conexión, no se pudo confirmar el trabajo ${trabajoId} (el backend lo reenviará)`);
+        return;
+    }
+    stompClient.publish({
+        destination: '/app/impresion/confirmar',
+        body: JSON.stringify({ trabajoId, ok, error: error || null })
+    });
+}
+
+function recibirTrabajo(printJob) {
+    const id = printJob.trabajoId;
+    if (id != null) {
+        if (trabajosImpresos.has(id)) {
+            // Reenvío de un trabajo ya impreso cuya confirmación se perdió
+            console.log(`ℹ️ Trabajo ${id} ya impreso, se vuelve a confirmar`);
+            publicarConfirmacion(id, true, null);
+            return;
+        }
+        if (trabajosEnCurso.has(id)) {
+            console.log(`ℹ️ Trabajo ${id} ya está en cola, se ignora el reenvío`);
+            return;
+        }
+        trabajosEnCurso.add(id);
+    }
+    return imprimirTicket(printJob);
+}
+
+// Inserta el trabajo detrás de los de igual o mayor prioridad (menor número = más urgente).
+// Los trabajos sin prioridad (formato anterior) van al final, en orden de llegada.
+function encolarPorPrioridad(printJob) {
+    const prioridad = printJob.prioridad != null ? printJob.prioridad : Number.MAX_SAFE_INTEGER;
+    const posicion = printJobQueue.findIndex(trabajo =>
+        (trabajo.prioridad != null ? trabajo.prioridad : Number.MAX_SAFE_INTEGER) > prioridad);
+    if (posicion === -1) {
+        printJobQueue.push(printJob);
+    } else {
+        printJobQueue.splice(posicion, 0, printJob);
+    }
+}
 
 // --- 4. FUNCIÓN DE IMPRESIÓN MEJORADA ---
 async function imprimirTicket(printJob) {
     // Agregar a la cola si hay un trabajo en curso
     if (currentPrintJob) {
         console.log('⚠️ Ya hay un trabajo de impresión en curso, agregando a cola...');
-        printJobQueue.push(printJob);
+        encolarPorPrioridad(printJob);
         return;
     }
 
     currentPrintJob = printJob;
-    const { printerType, printerTarget, ticketType, ticketData, template } = printJob;
+    const { printerType, printerTarget, ticketType, ticketData, template, escpos, nombreMesa } = printJob;
     
     console.log(`\n🖨️ NUEVO TRABAJO DE IMPRESIÓN (PRODUCCIÓN V2):`);
     console.log(`   Tipo: ${printerType}`);
     console.log(`   Destino: ${printerTarget}`);
     console.log(`   Ticket: ${ticketType}`);
-    console.log(`   Mesa: ${ticketData?.nombreMesa || 'N/A'}`);
-    console.log(`   Plantilla: ${template?.name || 'Por defecto'}`);
+    console.log(`   Mesa: ${nombreMesa || ticketData?.nombreMesa || 'N/A'}`);
+    console.log(`   Plantilla: ${escpos ? 'Renderizada en el backend' : (template?.name || 'Por defecto')}`);
 
     // Configurar timeout para producción
     printTimeout = setTimeout(() => {
         console.error('❌ Timeout de impresión alcanzado (30 segundos)');
+        confirmarTrabajo(printJob, false, 'Timeout de impresión');
         cleanupPrintJob();
         processNextInQueue();
     }, PRINT_TIMEOUT);
 
     try {
-        // Validar datos básicos
-        if (!ticketData || !ticketData.nombreMesa || !ticketData.items) {
+        // Validar datos básicos (los trabajos renderizados en el backend ya traen los bytes)
+        if (!escpos && (!ticketData || !ticketData.nombreMesa || !ticketData.items)) {
             console.error('❌ Datos del ticket incompletos');
+            confirmarTrabajo(printJob, false, 'Datos del ticket incompletos');
             cleanupPrintJob();
             processNextInQueue();
             return;
@@ -88,8 +162,13 @@ async function imprimirTicket(printJob) {
             console.warn('⚠️ No se pudo conectar a la impresora, continuando...', connectError.message);
         }
 
-        // Imprimir usando la plantilla personalizada si está disponible
-        if (template && template.blocks && template.blocks.length > 0) {
+        if (escpos) {
+            // El backend ya renderizó el ticket: se escriben los bytes ESC/POS tal cual
+            const bytes = Buffer.from(escpos, 'base64');
+            console.log(`📋 Escribiendo ticket renderizado (${bytes.length} bytes)`);
+            await printer.raw(bytes);
+        } else if (template && template.blocks && template.blocks.length > 0) {
+            // Trabajos encolados antes de renderizar en el backend
             console.log('📋 Usando plantilla personalizada:', template.name);
             console.log('📋 Bloques de la plantilla:', JSON.stringify(template.blocks, null, 2));
             console.log('📋 Datos del ticket:', JSON.stringify(ticketData, null, 2));
@@ -112,9 +191,13 @@ async function imprimirTicket(printJob) {
             }
         }
         
-        await printer.execute();
+        // raw() ya escribió los bytes; execute() envía el buffer armado por las funciones anteriores
+        if (!escpos) {
+            await printer.execute();
+        }
         console.log("✅ Ticket enviado exitosamente (PRODUCCIÓN V2)");
         lastPrintTime = new Date();
+        confirmarTrabajo(printJob, true);
         
         // Desconectar impresora después de imprimir (si existe el método)
         try {
@@ -128,6 +211,7 @@ async function imprimirTicket(printJob) {
     } catch (error) {
         console.error(`❌ Error de impresión en producción V2: ${error.message}`);
         console.error(`Stack trace: ${error.stack}`);
+        confirmarTrabajo(printJob, false, error.message);
         
         // Intentar reconectar WebSocket si hay error
         if (error.message.includes('connection') || error.message.includes('timeout')) {
@@ -140,8 +224,11 @@ async function imprimirTicket(printJob) {
         }
         
     } finally {
-        cleanupPrintJob();
-        processNextInQueue();
+        // Si el timeout ya liberó este trabajo no se toca el que esté en curso ahora
+        if (currentPrintJob === printJob) {
+            cleanupPrintJob();
+            processNextInQueue();
+        }
     }
 }
 
@@ -395,17 +482,26 @@ stompClient.onConnect = () => {
     reconnectAttempts = 0;
     connectionStartTime = new Date();
     
-    stompClient.subscribe('/topic/print-jobs', async (message) => {
-        try {
-            const printJob = JSON.parse(message.body);
-            console.log('📨 Trabajo de impresión recibido (PRODUCCIÓN V2)');
-            await imprimirTicket(printJob);
-        } catch (error) {
-            console.error('❌ Error procesando mensaje (PRODUCCIÓN V2):', error.message);
-        }
+    // Cada impresora tiene su destino; sin IMPRESORAS se atienden todas con el comodín
+    const destinos = IMPRESORAS.length > 0 ? IMPRESORAS.map(destinoImpresora) : ['/topic/impresora/*'];
+    destinos.forEach(destino => {
+        stompClient.subscribe(destino, async (message) => {
+            try {
+                const printJob = JSON.parse(message.body);
+                console.log(`📨 Trabajo de impresión ${printJob.trabajoId ?? ''} recibido (PRODUCCIÓN V2)`);
+                await recibirTrabajo(printJob);
+            } catch (error) {
+                console.error('❌ Error procesando mensaje (PRODUCCIÓN V2):', error.message);
+            }
+        });
+        console.log(`✅ Suscrito a '${destino}' (PRODUCCIÓN V2)`);
+    });
+
+    // El backend reenvía lo que quedó sin confirmar para estas impresoras
+    stompClient.publish({
+        destination: '/app/impresion/conectado',
+        body: JSON.stringify({ impresoras: IMPRESORAS })
     });
-    
-    console.log("✅ Suscrito a '/topic/print-jobs' (PRODUCCIÓN V2)");
 };
 
 stompClient.onDisconnect = () => {